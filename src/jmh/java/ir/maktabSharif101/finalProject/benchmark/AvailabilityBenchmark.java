@@ -0,0 +1,122 @@
+package ir.maktabSharif101.finalProject.benchmark;
+
+import ir.maktabSharif101.finalProject.entity.enums.TechnicianStatus;
+import ir.maktabSharif101.finalProject.service.availability.TechnicianCalendar;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * "Is technician T free for this hour" and "which technicians of sub service S are free for this
+ * hour": the in-memory technician calendar against overlap queries on the orders' scheduled
+ * windows. {@code bookAndRelease} is the calendar's share of accepting a suggestion.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class AvailabilityBenchmark {
+
+    @Param({"100000"})
+    public int rows;
+
+    @Param({"10", "100"})
+    public int jobsPerTechnician;
+
+    private BenchmarkContext context;
+    private TechnicianCalendar calendar;
+    private LocalDateTime firstBooking;
+    private int technicians;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new BenchmarkContext(rows);
+        firstBooking = LocalDate.now().plusDays(1).atStartOfDay();
+        context.seedBookings(jobsPerTechnician, firstBooking);
+        calendar = context.getCalendar();
+        technicians = Math.max(1, rows / jobsPerTechnician);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public boolean isFreeCalendar() {
+        LocalDateTime start = randomStart();
+        return context.getTechnicianService().isAvailable(randomTechnicianId(), start, start.plusHours(1));
+    }
+
+    @Benchmark
+    public boolean isFreeQuery() {
+        long technicianId = randomTechnicianId();
+        LocalDateTime start = randomStart();
+        return context.getUnitOfWork().call(entityManager -> entityManager.createQuery(
+                        "select count(o) from Order o where o.technician.id = :technician" +
+                                " and o.scheduledEnd > :start and o.scheduledStart < :end", Long.class)
+                .setParameter("technician", technicianId)
+                .setParameter("start", start)
+                .setParameter("end", start.plusHours(1))
+                .getSingleResult() == 0);
+    }
+
+    @Benchmark
+    public void freeTechniciansCalendar(Blackhole blackhole) {
+        LocalDateTime start = randomStart();
+        context.getTechnicianService().forEachAvailableTechnician(randomSubService(), start, start.plusHours(1),
+                blackhole::consume);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Long> freeTechniciansQuery() {
+        long subServiceId = randomSubService();
+        LocalDateTime start = randomStart();
+        return context.getUnitOfWork().call(entityManager -> entityManager.createQuery(
+                        "select t.id from Technician t join t.subServices s" +
+                                " where s.id = :subService and t.status = :status and not exists (" +
+                                " select o.id from Order o where o.technician = t" +
+                                " and o.scheduledEnd > :start and o.scheduledStart < :end)", Long.class)
+                .setParameter("subService", subServiceId)
+                .setParameter("status", TechnicianStatus.CONFIRMED)
+                .setParameter("start", start)
+                .setParameter("end", start.plusHours(1))
+                .getResultList());
+    }
+
+    @Benchmark
+    public boolean bookAndRelease() {
+        long technicianId = randomTechnicianId();
+        LocalDateTime start = randomStart();
+        LocalDateTime end = start.plusHours(1);
+        if (!calendar.book(technicianId, start, end)) {
+            return false;
+        }
+        calendar.release(technicianId, start, end);
+        return true;
+    }
+
+    /**
+     * A whole hour somewhere in the seeded bookings, so some windows hit a job and some don't.
+     */
+    private LocalDateTime randomStart() {
+        int hours = jobsPerTechnician * BenchmarkContext.BOOKING_STRIDE_HOURS;
+        return firstBooking.plusHours(ThreadLocalRandom.current().nextInt(hours));
+    }
+
+    private long randomTechnicianId() {
+        return context.getFirstTechnicianId() + ThreadLocalRandom.current().nextInt(technicians);
+    }
+
+    private long randomSubService() {
+        return context.getFirstSubServiceId() + ThreadLocalRandom.current().nextInt(BenchmarkContext.SUB_SERVICES);
+    }
+}
@@ -0,0 +1,373 @@
+package ir.maktabSharif101.finalProject.benchmark;
+
+import ir.maktabSharif101.finalProject.base.entity.BaseEntity;
+import ir.maktabSharif101.finalProject.base.persistence.SchemaMigrations;
+import ir.maktabSharif101.finalProject.base.persistence.UnitOfWork;
+import ir.maktabSharif101.finalProject.entity.enums.UserRole;
+import ir.maktabSharif101.finalProject.repository.*;
+import ir.maktabSharif101.finalProject.repository.impl.*;
+import ir.maktabSharif101.finalProject.service.*;
+import ir.maktabSharif101.finalProject.service.availability.TechnicianCalendar;
+import ir.maktabSharif101.finalProject.service.event.EventBus;
+import ir.maktabSharif101.finalProject.service.event.Outbox;
+import ir.maktabSharif101.finalProject.service.event.OutboxRelay;
+import ir.maktabSharif101.finalProject.service.impl.*;
+import ir.maktabSharif101.finalProject.service.ledger.Ledger;
+import ir.maktabSharif101.finalProject.service.rating.RatingRebuild;
+import ir.maktabSharif101.finalProject.utils.PasswordHasher;
+import ir.maktabSharif101.finalProject.utils.SessionToken;
+import ir.maktabSharif101.finalProject.utils.SessionTokens;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import lombok.Getter;
+import org.hibernate.Session;
+import org.hibernate.validator.messageinterpolation.ParameterMessageInterpolator;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Wires the repositories and services against a private in-memory H2 database and seeds it.
+ * Every seeded table gets {@code rows} rows; ids are contiguous so benchmarks can pick random ones.
+ * Technician {@code i} (0-based) serves sub service {@code i % SUB_SERVICES}; order {@code i} is
+ * for sub service {@code (i + 1) % SUB_SERVICES}.
+ * The schema comes from the migration scripts unless {@link Schema#GENERATED} asks for the one
+ * Hibernate generates from the mappings, which has keys and unique constraints only (H2 still
+ * indexes foreign key columns on its own, PostgreSQL does not).
+ * Seeded users share one hash of {@link #PASSWORD}. Unless a benchmark asks for a cost, passwords
+ * are hashed with {@link #CHEAP_HASH_ITERATIONS} so the other benchmarks keep measuring data access.
+ */
+@Getter
+public class BenchmarkContext implements AutoCloseable {
+
+    public static final String PASSWORD = "Pass1234";
+    public static final int SUB_SERVICES = 10;
+    public static final int BOOKING_HOURS = 2;
+    public static final int BOOKING_STRIDE_HOURS = 3;
+    public static final int CHEAP_HASH_ITERATIONS = 1000;
+
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+
+    public enum Schema {
+        MIGRATED,
+        GENERATED
+    }
+
+    private final int rows;
+    private final EntityManagerFactory entityManagerFactory;
+    private final UnitOfWork unitOfWork;
+    private final PasswordHasher passwordHasher;
+    private final SessionTokens sessionTokens = SessionTokens.withRandomSecret(Duration.ofHours(12));
+
+    private final CustomerRepository customerRepository;
+    private final ManagerRepository managerRepository;
+    private final TechnicianRepository technicianRepository;
+    private final TechnicianImageRepository technicianImageRepository;
+    private final MainServicesRepository mainServicesRepository;
+    private final SubServicesRepository subServicesRepository;
+    private final OrderRepository orderRepository;
+    private final SuggestionRepository suggestionRepository;
+    private final OutboxEventRepository outboxEventRepository;
+    private final LedgerEntryRepository ledgerEntryRepository;
+
+    private final EventBus eventBus = new EventBus();
+    private final OutboxRelay outboxRelay;
+    private final Outbox outbox;
+    private final Ledger ledger;
+    private final TechnicianCalendar calendar = new TechnicianCalendar();
+
+    private final CustomerService customerService;
+    private final ManagerService managerService;
+    private final TechnicianService technicianService;
+    private final MainServicesService mainServicesService;
+    private final SubServicesService subServicesService;
+    private final OrderService orderService;
+    private final SuggestionServiceImpl suggestionService;
+    private final RatingRebuild ratingRebuild;
+
+    private long firstCustomerId;
+    private long firstTechnicianId;
+    private long firstSubServiceId;
+    private long firstOrderId;
+
+    public BenchmarkContext(int rows) {
+        this(rows, CHEAP_HASH_ITERATIONS);
+    }
+
+    public BenchmarkContext(int rows, int hashIterations) {
+        this(rows, hashIterations, Schema.MIGRATED);
+    }
+
+    public BenchmarkContext(int rows, int hashIterations, Schema schema) {
+        this.rows = rows;
+        this.passwordHasher = new PasswordHasher(hashIterations,
+                Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+        this.entityManagerFactory = createEntityManagerFactory(schema);
+        this.unitOfWork = new UnitOfWork(entityManagerFactory);
+        Validator validator = Validation.byDefaultProvider()
+                .configure()
+                .messageInterpolator(new ParameterMessageInterpolator())
+                .buildValidatorFactory()
+                .getValidator();
+
+        customerRepository = new CustomerRepositoryImpl(unitOfWork);
+        managerRepository = new ManagerRepositoryImpl(unitOfWork);
+        technicianRepository = new TechnicianRepositoryImpl(unitOfWork);
+        technicianImageRepository = new TechnicianImageRepositoryImpl(unitOfWork);
+        mainServicesRepository = new MainServicesRepositoryImpl(unitOfWork);
+        subServicesRepository = new SubServicesRepositoryImpl(unitOfWork);
+        orderRepository = new OrderRepositoryImpl(unitOfWork);
+        suggestionRepository = new SuggestionRepositoryImpl(unitOfWork);
+        outboxEventRepository = new OutboxEventRepositoryImpl(unitOfWork);
+        outboxRelay = new OutboxRelay(outboxEventRepository, eventBus, 256, Duration.ofMillis(100));
+        outbox = new Outbox(outboxEventRepository, unitOfWork, outboxRelay);
+        ledgerEntryRepository = new LedgerEntryRepositoryImpl(unitOfWork);
+        ledger = new Ledger(ledgerEntryRepository, unitOfWork, Duration.ofSeconds(1));
+
+        customerService = new CustomerServiceImpl(customerRepository, unitOfWork, passwordHasher, sessionTokens,
+                validator);
+        managerService = new ManagerServiceImpl(managerRepository, unitOfWork, passwordHasher, sessionTokens,
+                validator);
+        technicianService = new TechnicianServiceImpl(technicianRepository, unitOfWork,
+                passwordHasher, sessionTokens, technicianImageRepository, outbox, calendar, validator);
+        mainServicesService = new MainServicesServiceImpl(mainServicesRepository, unitOfWork);
+        subServicesService = new SubServicesServiceImpl(subServicesRepository, unitOfWork,
+                mainServicesService, technicianService);
+        orderService = new OrderServiceImpl(orderRepository, unitOfWork, subServicesService,
+                customerService, suggestionRepository, technicianRepository, outbox, calendar, ledger, validator);
+        suggestionService = new SuggestionServiceImpl(suggestionRepository, unitOfWork, orderRepository,
+                technicianService, outbox, validator);
+        ratingRebuild = new RatingRebuild(orderRepository, technicianRepository);
+
+        seed();
+        customerService.warmEmailFilter();
+        managerService.warmEmailFilter();
+        technicianService.warmEmailFilter();
+        outboxRelay.start();
+        ledger.start();
+    }
+
+    /**
+     * Starts Hibernate the way the application does for {@link Schema#MIGRATED} (migrate, then
+     * validate), or with {@code hbm2ddl.auto=create} for {@link Schema#GENERATED}.
+     */
+    private static EntityManagerFactory createEntityManagerFactory(Schema schema) {
+        Map<String, Object> properties = overrides();
+        if (schema == Schema.MIGRATED) {
+            SchemaMigrations.migrate("default", properties);
+        } else {
+            properties.put("hibernate.hbm2ddl.auto", "create");
+        }
+        return Persistence.createEntityManagerFactory("default", properties);
+    }
+
+    private static Map<String, Object> overrides() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("javax.persistence.jdbc.driver", "org.h2.Driver");
+        properties.put("javax.persistence.jdbc.url", "jdbc:h2:mem:bench" + DATABASES.incrementAndGet()
+                + ";DB_CLOSE_DELAY=-1;MODE=PostgreSQL");
+        properties.put("javax.persistence.jdbc.user", "sa");
+        properties.put("javax.persistence.jdbc.password", "");
+        properties.put("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        properties.put("hibernate.show_sql", "false");
+        return properties;
+    }
+
+    private void seed() {
+        String passwordHash = passwordHasher.hash(PASSWORD);
+        long id = 0;
+        firstCustomerId = id + 1;
+        id = insertUsers("customer", "c", passwordHash, id, "balance", "0");
+        id = insertUsers("manager", "m", passwordHash, id, "lastLogin", "current_timestamp");
+        firstTechnicianId = id + 1;
+        id = insertUsers("technician", "t", passwordHash, id, "status, score, balance", "'CONFIRMED', 0, 0");
+
+        long mainServiceId = ++id;
+        firstSubServiceId = id + 1;
+        firstOrderId = id + SUB_SERVICES + 1;
+        long lastId = id;
+        long customers = firstCustomerId;
+        unitOfWork.run(entityManager -> {
+            Session session = entityManager.unwrap(Session.class);
+            session.doWork(connection -> {
+                try (var statement = connection.createStatement()) {
+                    statement.execute("insert into main_services (id, name) values (" + mainServiceId + ", 'main')");
+                    statement.execute("insert into sub_service (id, name, baseWage, description, mainServices_id)"
+                            + " select " + lastId + " + x, 'sub' || x, 100, 'seeded', " + mainServiceId
+                            + " from system_range(1, " + SUB_SERVICES + ")");
+                    statement.execute("insert into orders (id, orderStatus, jobInfo, dateAndTime, address, price,"
+                            + " point, customer_id, subServices_id)"
+                            + " select " + (lastId + SUB_SERVICES) + " + x, 'AWAITING_TECHNICIAN_SUGGESTION', 'job',"
+                            + " dateadd('DAY', 30, current_timestamp), 'address', 200, 0,"
+                            + " " + customers + " + mod(x, " + rows + "),"
+                            + " " + firstSubServiceId + " + mod(x, " + SUB_SERVICES + ")"
+                            + " from system_range(1, " + rows + ")");
+                    statement.execute("insert into Technician_SubServices (Technician_id, SubService_id)"
+                            + " select " + (firstTechnicianId - 1) + " + x, " + firstSubServiceId
+                            + " + mod(x - 1, " + SUB_SERVICES + ") from system_range(1, " + rows + ")");
+                    // the pooled optimizer hands out (value - allocationSize, value]
+                    statement.execute("alter sequence hibernate_sequence restart with "
+                            + (lastId + SUB_SERVICES + rows + BaseEntity.ID_ALLOCATION_SIZE));
+                }
+            });
+        });
+    }
+
+    private long insertUsers(String table, String prefix, String passwordHash, long lastId,
+                             String extraColumns, String extraValues) {
+        unitOfWork.run(entityManager -> entityManager.unwrap(Session.class).doWork(connection -> {
+            try (var statement = connection.createStatement()) {
+                statement.execute("insert into " + table
+                        + " (id, firstname, lastname, emailAddress, password, registerDate, " + extraColumns + ")"
+                        + " select " + lastId + " + x, 'first', 'last', '" + prefix + "' || x || '@gmail.com', '"
+                        + PASSWORD + "', current_timestamp, " + extraValues
+                        + " from system_range(1, " + rows + ")");
+            }
+        }));
+        return lastId + rows;
+    }
+
+    /**
+     * Gives every seeded technician a photo of {@code bytes} bytes. Image ids are taken from far
+     * above the sequence so they never collide with rows created by the benchmarks.
+     */
+    public void seedTechnicianImages(int bytes) {
+        byte[] image = new byte[bytes];
+        unitOfWork.run(entityManager -> entityManager.unwrap(Session.class).doWork(connection -> {
+            try (var statement = connection.prepareStatement("insert into technician_image"
+                    + " (id, technician_id, image_data) select 1000000000 + x, " + (firstTechnicianId - 1) + " + x, ?"
+                    + " from system_range(1, " + rows + ")")) {
+                statement.setBytes(1, image);
+                statement.execute();
+            }
+        }));
+    }
+
+    /**
+     * Adds {@code mainServices} main services with {@code subServicesEach} sub services apiece, with
+     * ids taken from far above the sequence like the technician images.
+     */
+    public void seedCatalog(int mainServices, int subServicesEach) {
+        long firstMainId = 1500000000L;
+        unitOfWork.run(entityManager -> entityManager.unwrap(Session.class).doWork(connection -> {
+            try (var statement = connection.createStatement()) {
+                statement.execute("insert into main_services (id, name)"
+                        + " select " + firstMainId + " + x, 'catalog' || x from system_range(1, " + mainServices + ")");
+                statement.execute("insert into sub_service (id, name, baseWage, description, mainServices_id)"
+                        + " select " + (firstMainId + mainServices) + " + x, 'catalog-sub' || x, 100, 'seeded',"
+                        + " " + firstMainId + " + 1 + mod(x, " + mainServices + ")"
+                        + " from system_range(1, " + (mainServices * subServicesEach) + ")");
+            }
+        }));
+    }
+
+    /**
+     * Gives every seeded order {@code perOrder} suggestions from technicians that serve its sub
+     * service, with ids far above the sequence like the technician images.
+     */
+    public void seedSuggestions(int perOrder) {
+        unitOfWork.run(entityManager -> entityManager.unwrap(Session.class).doWork(connection -> {
+            try (var statement = connection.createStatement()) {
+                statement.execute("insert into suggestion (id, suggestionDate, suggestedPrice, suggestedTime,"
+                        + " Duration, technician_id, order_id)"
+                        + " select 2000000000 + x, current_timestamp, 100 + mod(x * 7, 500), time '10:30', '2h',"
+                        + " " + firstTechnicianId + " + mod(mod((x - 1) / " + perOrder + " + 1, " + SUB_SERVICES + ")"
+                        + " + " + SUB_SERVICES + " * mod(x, " + (rows / SUB_SERVICES) + "), " + rows + "),"
+                        + " " + firstOrderId + " + (x - 1) / " + perOrder
+                        + " from system_range(1, " + ((long) rows * perOrder) + ")");
+            }
+        }));
+    }
+
+    /**
+     * Gives every seeded customer {@code perAccount} ledger entries of 100 minor units, with ids far
+     * above the sequence like the technician images. Running balances are not rebuilt.
+     */
+    public void seedLedger(int perAccount) {
+        unitOfWork.run(entityManager -> entityManager.unwrap(Session.class).doWork(connection -> {
+            try (var statement = connection.createStatement()) {
+                statement.execute("insert into ledger_entry (id, accountType, accountId, amount, description, postedAt)"
+                        + " select 3000000000 + x, 'CUSTOMER', " + firstCustomerId + " + mod(x, " + rows + "), 100,"
+                        + " 'seeded', current_timestamp from system_range(1, " + ((long) rows * perAccount) + ")");
+            }
+        }));
+    }
+
+    /**
+     * Finishes every seeded order and rates it 1 to 5, spreading the orders over the first
+     * {@code rows / ordersPerTechnician} technicians, and stores their rating aggregates to match.
+     */
+    public void seedRatings(int ordersPerTechnician) {
+        int technicians = Math.max(1, rows / ordersPerTechnician);
+        unitOfWork.run(entityManager -> entityManager.unwrap(Session.class).doWork(connection -> {
+            try (var statement = connection.createStatement()) {
+                statement.execute("update orders set orderStatus = 'FINISHED', point = 1 + mod(id, 5),"
+                        + " technician_id = " + firstTechnicianId
+                        + " + mod(id - " + firstOrderId + ", " + technicians + ")"
+                        + " where id >= " + firstOrderId);
+                statement.execute("update technician t set"
+                        + " ratingCount = (select count(*) from orders o where o.technician_id = t.id and o.point > 0),"
+                        + " ratingSum = (select coalesce(sum(o.point), 0) from orders o"
+                        + " where o.technician_id = t.id and o.point > 0)");
+                statement.execute("update technician set recentScore = 0,"
+                        + " score = case when ratingCount = 0 then 0 else ratingSum / ratingCount end");
+            }
+        }));
+    }
+
+    /**
+     * Gives every seeded order to one of the first {@code rows / jobsPerTechnician} technicians,
+     * booked for {@link #BOOKING_HOURS} hours every {@link #BOOKING_STRIDE_HOURS} hours from
+     * {@code firstBooking}, and reloads the technician calendar from them.
+     */
+    public void seedBookings(int jobsPerTechnician, LocalDateTime firstBooking) {
+        int technicians = Math.max(1, rows / jobsPerTechnician);
+        unitOfWork.run(entityManager -> entityManager.unwrap(Session.class).doWork(connection -> {
+            try (var statement = connection.prepareStatement("update orders set"
+                    + " orderStatus = 'AWAITING_TECHNICIAN_ARRIVAL', technician_id = " + firstTechnicianId
+                    + " + mod(id - " + firstOrderId + ", " + technicians + "),"
+                    + " scheduledStart = dateadd('HOUR', " + BOOKING_STRIDE_HOURS
+                    + " * ((id - " + firstOrderId + ") / " + technicians + "), cast(? as timestamp)),"
+                    + " scheduledEnd = dateadd('HOUR', " + BOOKING_STRIDE_HOURS
+                    + " * ((id - " + firstOrderId + ") / " + technicians + ") + " + BOOKING_HOURS + ", cast(? as timestamp))"
+                    + " where id >= " + firstOrderId)) {
+                statement.setObject(1, firstBooking);
+                statement.setObject(2, firstBooking);
+                statement.execute();
+            }
+        }));
+        orderService.rebuildCalendar();
+    }
+
+    /**
+     * A session of the customer who placed seeded order {@code orderId}, as the services get it
+     * from a verified token.
+     */
+    public SessionToken customerSessionFor(long orderId) {
+        long now = System.currentTimeMillis();
+        long customerId = firstCustomerId + (orderId - firstOrderId + 1) % rows;
+        return new SessionToken(customerId, UserRole.CUSTOMER, now, now + Duration.ofHours(12).toMillis());
+    }
+
+    public String customerEmail(int index) {
+        return "c" + (index + 1) + "@gmail.com";
+    }
+
+    public String technicianEmail(int index) {
+        return "t" + (index + 1) + "@gmail.com";
+    }
+
+    @Override
+    public void close() {
+        ledger.close();
+        suggestionService.close();
+        outboxRelay.close();
+        passwordHasher.close();
+        entityManagerFactory.close();
+    }
+}
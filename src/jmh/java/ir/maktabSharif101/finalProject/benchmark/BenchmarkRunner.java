@@ -0,0 +1,24 @@
+package ir.maktabSharif101.finalProject.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of {@code benchmarks.jar}. Accepts the usual JMH command line and always attaches
+ * the GC profiler so allocation rate ({@code gc.alloc.rate.norm}) is reported next to throughput.
+ * <p>
+ * Example: {@code java -jar target/benchmarks.jar UserServiceBenchmark -p rows=1000 -t 4}
+ */
+public class BenchmarkRunner {
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build()
+        ).run();
+    }
+}
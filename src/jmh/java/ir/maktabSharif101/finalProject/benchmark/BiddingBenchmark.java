@@ -0,0 +1,111 @@
+package ir.maktabSharif101.finalProject.benchmark;
+
+import ir.maktabSharif101.finalProject.base.persistence.TransactionTemplate;
+import ir.maktabSharif101.finalProject.entity.Suggestion;
+import ir.maktabSharif101.finalProject.entity.enums.OrderStatus;
+import ir.maktabSharif101.finalProject.service.dto.SuggestionOffer;
+import ir.maktabSharif101.finalProject.service.dto.SuggestionSubmitDto;
+import lombok.extern.slf4j.Slf4j;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Many technicians bidding on the same order at once: group-committed submissions against one
+ * transaction per bid, plus reading the best offers back. A technician bids on an order only once,
+ * so bids walk through the orders: every technician that serves an order bids on it, all threads
+ * together, before the next order gets its turn.
+ */
+@Slf4j
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Threads(8)
+@State(Scope.Benchmark)
+public class BiddingBenchmark {
+
+    private static final int HOT_ORDERS = 10;
+
+    @Param({"10000"})
+    public int rows;
+
+    private final AtomicLong bids = new AtomicLong();
+
+    private BenchmarkContext context;
+    private TransactionTemplate transactionTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new BenchmarkContext(rows);
+        transactionTemplate = new TransactionTemplate(context.getUnitOfWork());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        log.info("Bidding commits: [{}]", context.getUnitOfWork().getCommitCount());
+        context.close();
+    }
+
+    @Benchmark
+    public Suggestion groupCommit() {
+        long bid = bids.getAndIncrement();
+        int order = orderFor(bid);
+        SuggestionSubmitDto dto = new SuggestionSubmitDto(context.getFirstOrderId() + order,
+                100 + ThreadLocalRandom.current().nextInt(1000), "10:30", "2 hours");
+        return context.getSuggestionService().submitSuggestion(technicianFor(order, bid), dto);
+    }
+
+    @Benchmark
+    public Suggestion transactionPerBid() {
+        long bid = bids.getAndIncrement();
+        int order = orderFor(bid);
+        long orderId = context.getFirstOrderId() + order;
+        long technicianId = technicianFor(order, bid);
+        return context.getUnitOfWork().call(entityManager -> transactionTemplate.execute(() -> {
+            Suggestion suggestion = context.getSuggestionRepository().newSuggestion(technicianId, orderId);
+            suggestion.setSuggestedPrice(100 + ThreadLocalRandom.current().nextInt(1000));
+            suggestion.setSuggestedTime(LocalTime.of(10, 30));
+            suggestion.setDuration(Duration.ofHours(2));
+            suggestion.setSuggestionDate(new Date());
+            context.getSuggestionRepository().save(suggestion);
+            context.getOrderRepository().updateStatus(List.of(orderId), OrderStatus.AWAITING_TECHNICIAN_SUGGESTION,
+                    OrderStatus.AWAITING_TECHNICIAN);
+            return suggestion;
+        }));
+    }
+
+    @Benchmark
+    public List<SuggestionOffer> bestOffers() {
+        return context.getSuggestionService().findBestOffers(
+                context.getFirstOrderId() + ThreadLocalRandom.current().nextInt(HOT_ORDERS));
+    }
+
+    /**
+     * The order bid number {@code bid} goes to: each order takes one bid from every technician that
+     * serves it, then the next one is up.
+     */
+    private int orderFor(long bid) {
+        return (int) (bid / techniciansPerSubService() % rows);
+    }
+
+    /**
+     * The technician making bid number {@code bid}, one that serves the sub service of {@code order}.
+     */
+    private long technicianFor(int order, long bid) {
+        int subService = (order + 1) % BenchmarkContext.SUB_SERVICES;
+        long technician = subService + BenchmarkContext.SUB_SERVICES * (bid % techniciansPerSubService());
+        return context.getFirstTechnicianId() + technician;
+    }
+
+    private int techniciansPerSubService() {
+        return rows / BenchmarkContext.SUB_SERVICES;
+    }
+}
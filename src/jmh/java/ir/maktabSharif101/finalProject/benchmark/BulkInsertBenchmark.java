@@ -0,0 +1,54 @@
+package ir.maktabSharif101.finalProject.benchmark;
+
+import ir.maktabSharif101.finalProject.entity.Customer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class BulkInsertBenchmark {
+
+    @State(Scope.Thread)
+    public static class Import {
+        private static final AtomicInteger THREADS = new AtomicInteger();
+        private final int thread = THREADS.incrementAndGet();
+        private int counter;
+
+        @Param({"1000"})
+        public int batch;
+
+        List<Customer> nextBatch() {
+            List<Customer> customers = new ArrayList<>(batch);
+            for (int i = 0; i < batch; i++) {
+                Customer customer = new Customer();
+                customer.setFirstname("Imported");
+                customer.setLastname("Customer");
+                customer.setEmailAddress("imp" + thread + "n" + (counter++) + "@gmail.com");
+                customer.setPassword(BenchmarkContext.PASSWORD);
+                customers.add(customer);
+            }
+            return customers;
+        }
+    }
+
+    @Benchmark
+    public List<Customer> saveAll(DatabaseState database, Import customers) {
+        return database.context.getCustomerRepository().saveAll(customers.nextBatch());
+    }
+
+    @Benchmark
+    public int saveInLoop(DatabaseState database, Import customers) {
+        List<Customer> batch = customers.nextBatch();
+        for (Customer customer : batch) {
+            database.context.getCustomerRepository().save(customer);
+        }
+        return batch.size();
+    }
+}
@@ -0,0 +1,62 @@
+package ir.maktabSharif101.finalProject.benchmark;
+
+import ir.maktabSharif101.finalProject.entity.MainServices;
+import ir.maktabSharif101.finalProject.entity.SubServices;
+import ir.maktabSharif101.finalProject.service.catalog.CatalogSnapshot;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering the whole catalog tree: walking the lazy {@code MainServices.subServices} collections
+ * (one query per main service) against reading the in-memory snapshot.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class CatalogBenchmark {
+
+    @Param({"10", "100"})
+    public int mainServices;
+
+    private BenchmarkContext context;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new BenchmarkContext(1000);
+        context.seedCatalog(mainServices, 10);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public double lazyTree() {
+        return context.getUnitOfWork().call(entityManager -> {
+            double total = 0;
+            for (MainServices main : context.getMainServicesService().findAll()) {
+                for (SubServices sub : main.getSubServices()) {
+                    total += sub.getBaseWage();
+                }
+            }
+            return total;
+        });
+    }
+
+    @Benchmark
+    public double snapshotTree() {
+        CatalogSnapshot snapshot = context.getMainServicesService().getCatalogSnapshot();
+        double total = 0;
+        for (int main = 0; main < snapshot.mainServiceCount(); main++) {
+            for (int sub = snapshot.firstSubService(main); sub < snapshot.endSubService(main); sub++) {
+                total += snapshot.subServiceBaseWage(sub);
+            }
+        }
+        return total;
+    }
+}
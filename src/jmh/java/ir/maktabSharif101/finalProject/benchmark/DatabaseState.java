@@ -0,0 +1,28 @@
+package ir.maktabSharif101.finalProject.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+@State(Scope.Benchmark)
+public class DatabaseState {
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    public BenchmarkContext context;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new BenchmarkContext(rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    public int randomRow() {
+        return ThreadLocalRandom.current().nextInt(rows);
+    }
+}
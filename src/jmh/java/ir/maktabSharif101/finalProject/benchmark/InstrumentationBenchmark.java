@@ -0,0 +1,72 @@
+package ir.maktabSharif101.finalProject.benchmark;
+
+import ir.maktabSharif101.finalProject.base.metrics.Instrumentation;
+import ir.maktabSharif101.finalProject.base.metrics.MetricsRegistry;
+import ir.maktabSharif101.finalProject.entity.Customer;
+import ir.maktabSharif101.finalProject.service.CustomerService;
+import ir.maktabSharif101.finalProject.service.MainServicesService;
+import ir.maktabSharif101.finalProject.service.catalog.CatalogSnapshot;
+import lombok.extern.slf4j.Slf4j;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the instrumentation proxy: the same calls direct and through
+ * {@link Instrumentation#wrap}, on a method that hits the database and on one that doesn't.
+ */
+@Slf4j
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Threads(4)
+@State(Scope.Benchmark)
+public class InstrumentationBenchmark {
+
+    private BenchmarkContext context;
+    private final MetricsRegistry registry = new MetricsRegistry();
+    private CustomerService instrumentedCustomers;
+    private MainServicesService instrumentedCatalog;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new BenchmarkContext(1000);
+        instrumentedCustomers = Instrumentation.wrap(CustomerService.class, context.getCustomerService(), registry);
+        instrumentedCatalog = Instrumentation.wrap(MainServicesService.class, context.getMainServicesService(),
+                registry);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        registry.dump();
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<Customer> findByIdDirect() {
+        return context.getCustomerService().findById(randomCustomer());
+    }
+
+    @Benchmark
+    public Optional<Customer> findByIdInstrumented() {
+        return instrumentedCustomers.findById(randomCustomer());
+    }
+
+    @Benchmark
+    public CatalogSnapshot inMemoryDirect() {
+        return context.getMainServicesService().getCatalogSnapshot();
+    }
+
+    @Benchmark
+    public CatalogSnapshot inMemoryInstrumented() {
+        return instrumentedCatalog.getCatalogSnapshot();
+    }
+
+    private long randomCustomer() {
+        return context.getFirstCustomerId() + ThreadLocalRandom.current().nextInt(1000);
+    }
+}
@@ -0,0 +1,78 @@
+package ir.maktabSharif101.finalProject.benchmark;
+
+import ir.maktabSharif101.finalProject.base.persistence.TransactionTemplate;
+import ir.maktabSharif101.finalProject.entity.Customer;
+import ir.maktabSharif101.finalProject.entity.LedgerEntry;
+import ir.maktabSharif101.finalProject.entity.enums.LedgerAccountType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Crediting a customer through the ledger against loading the customer and writing the new
+ * balance back, the read-modify-write the ledger replaces (and which loses updates when two
+ * threads credit the same customer). Runs on four threads so ledger postings can share commits.
+ * {@code rebuild} recomputes every running balance from {@code rows * ENTRIES_PER_ACCOUNT} entries.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Threads(4)
+@State(Scope.Benchmark)
+public class LedgerBenchmark {
+
+    private static final int ENTRIES_PER_ACCOUNT = 10;
+
+    @Param({"10000"})
+    public int rows;
+
+    private BenchmarkContext context;
+    private TransactionTemplate transactionTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new BenchmarkContext(rows);
+        context.seedLedger(ENTRIES_PER_ACCOUNT);
+        context.getLedger().rebuild();
+        transactionTemplate = new TransactionTemplate(context.getUnitOfWork());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public LedgerEntry post() {
+        return context.getLedger().post(LedgerAccountType.CUSTOMER, randomCustomerId(), 100, "credit");
+    }
+
+    @Benchmark
+    public long readModifyWrite() {
+        long customerId = randomCustomerId();
+        return context.getUnitOfWork().call(entityManager -> transactionTemplate.execute(() -> {
+            Customer customer = entityManager.find(Customer.class, customerId);
+            customer.setBalance(customer.getBalance() + 100);
+            return customer.getBalance();
+        }));
+    }
+
+    @Benchmark
+    public long balanceOf() {
+        return context.getLedger().balanceOf(LedgerAccountType.CUSTOMER, randomCustomerId());
+    }
+
+    @Benchmark
+    @Threads(1)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void rebuild() {
+        context.getLedger().rebuild();
+    }
+
+    private long randomCustomerId() {
+        return context.getFirstCustomerId() + ThreadLocalRandom.current().nextInt(rows);
+    }
+}
@@ -0,0 +1,52 @@
+package ir.maktabSharif101.finalProject.benchmark;
+
+import ir.maktabSharif101.finalProject.entity.enums.TechnicianStatus;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * "Which confirmed technicians serve this sub service": the in-memory matching index against the
+ * equivalent join query.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class MatchingBenchmark {
+
+    @Benchmark
+    public void matchingIndex(DatabaseState database, Blackhole blackhole) {
+        BenchmarkContext context = database.context;
+        context.getTechnicianService().forEachTechnician(randomSubService(context), TechnicianStatus.CONFIRMED,
+                blackhole::consume);
+    }
+
+    @Benchmark
+    public List<Long> joinQuery(DatabaseState database) {
+        BenchmarkContext context = database.context;
+        long subServiceId = randomSubService(context);
+        return context.getUnitOfWork().call(entityManager -> entityManager.createQuery(
+                        "select t.id from Technician t join t.subServices s" +
+                                " where s.id = :subService and t.status = :status", Long.class)
+                .setParameter("subService", subServiceId)
+                .setParameter("status", TechnicianStatus.CONFIRMED)
+                .getResultList());
+    }
+
+    @Benchmark
+    public boolean membership(DatabaseState database) {
+        BenchmarkContext context = database.context;
+        int row = database.randomRow();
+        return context.getTechnicianService().servesSubService(context.getFirstTechnicianId() + row,
+                randomSubService(context));
+    }
+
+    private static long randomSubService(BenchmarkContext context) {
+        return context.getFirstSubServiceId() + ThreadLocalRandom.current().nextInt(BenchmarkContext.SUB_SERVICES);
+    }
+}
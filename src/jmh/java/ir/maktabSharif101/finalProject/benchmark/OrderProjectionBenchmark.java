@@ -0,0 +1,93 @@
+package ir.maktabSharif101.finalProject.benchmark;
+
+import ir.maktabSharif101.finalProject.entity.Order;
+import ir.maktabSharif101.finalProject.entity.Suggestion;
+import ir.maktabSharif101.finalProject.entity.enums.OrderStatus;
+import ir.maktabSharif101.finalProject.service.dto.OrderDetails;
+import ir.maktabSharif101.finalProject.service.dto.OrderSummary;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order lists and the order page read as managed entities (walking the lazy suggestions) against
+ * the projection queries.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class OrderProjectionBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+    private static final int SUGGESTIONS_PER_ORDER = 5;
+
+    @Param({"1000", "100000"})
+    public int rows;
+
+    private BenchmarkContext context;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new BenchmarkContext(rows);
+        context.seedSuggestions(SUGGESTIONS_PER_ORDER);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void subServicePageEntities(Blackhole blackhole) {
+        long subServiceId = randomSubService();
+        context.getUnitOfWork().run(entityManager -> {
+            List<Order> orders = entityManager.createQuery("from Order o where o.subServices.id = :subService" +
+                            " and o.orderStatus = :status order by o.id", Order.class)
+                    .setParameter("subService", subServiceId)
+                    .setParameter("status", OrderStatus.AWAITING_TECHNICIAN_SUGGESTION)
+                    .setMaxResults(PAGE_SIZE)
+                    .getResultList();
+            for (Order order : orders) {
+                blackhole.consume(order.getSubServices().getName());
+                blackhole.consume(order.getSuggestions().size());
+            }
+        });
+    }
+
+    @Benchmark
+    public List<OrderSummary> subServicePageProjection() {
+        return context.getOrderService().findOrdersForSubService(randomSubService(),
+                OrderStatus.AWAITING_TECHNICIAN_SUGGESTION, null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public void detailsEntities(Blackhole blackhole) {
+        long orderId = randomOrder();
+        context.getUnitOfWork().run(entityManager -> {
+            Order order = entityManager.find(Order.class, orderId);
+            blackhole.consume(order.getCustomer().getFirstname());
+            blackhole.consume(order.getSubServices().getBaseWage());
+            blackhole.consume(order.getSuggestions().stream().mapToDouble(Suggestion::getSuggestedPrice).min());
+        });
+    }
+
+    @Benchmark
+    public Optional<OrderDetails> detailsProjection() {
+        return context.getOrderService().findOrderDetails(randomOrder());
+    }
+
+    private long randomSubService() {
+        return context.getFirstSubServiceId() + ThreadLocalRandom.current().nextInt(BenchmarkContext.SUB_SERVICES);
+    }
+
+    private long randomOrder() {
+        return context.getFirstOrderId() + ThreadLocalRandom.current().nextInt(rows);
+    }
+}
@@ -0,0 +1,40 @@
+package ir.maktabSharif101.finalProject.benchmark;
+
+import ir.maktabSharif101.finalProject.base.persistence.UnitOfWork;
+import ir.maktabSharif101.finalProject.service.dto.OrderSubmitDto;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class OrderServiceBenchmark {
+
+    /**
+     * Commits issued by the unit of work while submitting; divide by {@code submitted} for commits
+     * per order. Only exact with a single benchmark thread.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Commits {
+        public long commits;
+        public long submitted;
+    }
+
+    @Benchmark
+    public void submitOrder(DatabaseState database, Commits commits) {
+        BenchmarkContext context = database.context;
+        UnitOfWork unitOfWork = context.getUnitOfWork();
+        long subServiceId = context.getFirstSubServiceId() + database.randomRow() % BenchmarkContext.SUB_SERVICES;
+        long customerId = context.getFirstCustomerId() + database.randomRow();
+
+        long before = unitOfWork.getCommitCount();
+        context.getOrderService().submitOrder(customerId, new OrderSubmitDto(
+                subServiceId, "benchmark job", "2099-01-01", "12:00", "benchmark address", 150));
+        commits.commits += unitOfWork.getCommitCount() - before;
+        commits.submitted++;
+    }
+}
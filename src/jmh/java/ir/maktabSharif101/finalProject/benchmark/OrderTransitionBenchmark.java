@@ -0,0 +1,102 @@
+package ir.maktabSharif101.finalProject.benchmark;
+
+import ir.maktabSharif101.finalProject.base.persistence.TransactionTemplate;
+import ir.maktabSharif101.finalProject.entity.Order;
+import ir.maktabSharif101.finalProject.entity.enums.OrderStatus;
+import ir.maktabSharif101.finalProject.service.dto.OrderState;
+import ir.maktabSharif101.finalProject.service.order.OrderStateMachine;
+import ir.maktabSharif101.finalProject.service.order.RetryPolicy;
+import ir.maktabSharif101.finalProject.utils.CustomException;
+import lombok.extern.slf4j.Slf4j;
+import org.openjdk.jmh.annotations.*;
+
+import javax.persistence.PersistenceException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Eight threads flipping a few hot orders between AWAITING_TECHNICIAN_SUGGESTION and
+ * AWAITING_TECHNICIAN: conditional updates through the state machine, with and without retries,
+ * against loading and saving the versioned entity.
+ */
+@Slf4j
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Threads(8)
+@State(Scope.Benchmark)
+public class OrderTransitionBenchmark {
+
+    @Param({"1", "16"})
+    public int hotOrders;
+
+    private BenchmarkContext context;
+    private TransactionTemplate transactionTemplate;
+    private OrderStateMachine stateMachine;
+    private final LongAdder lost = new LongAdder();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new BenchmarkContext(1000);
+        transactionTemplate = new TransactionTemplate(context.getUnitOfWork());
+        stateMachine = new OrderStateMachine(context.getUnitOfWork(), context.getOrderRepository(),
+                context.getOutbox(), RetryPolicy.DEFAULT);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        log.info("Transitions: [{}], conflicts: [{}], retries: [{}], lost races: [{}]",
+                stateMachine.getTransitionCount(), stateMachine.getConflictCount(), stateMachine.getRetryCount(),
+                lost.sum());
+        context.close();
+    }
+
+    @Benchmark
+    public OrderState compareAndSet() {
+        return flip(RetryPolicy.NONE);
+    }
+
+    @Benchmark
+    public OrderState compareAndSetWithRetry() {
+        return flip(RetryPolicy.DEFAULT);
+    }
+
+    @Benchmark
+    public Order readModifyWrite() {
+        long orderId = randomHotOrder();
+        try {
+            return context.getUnitOfWork().call(entityManager -> transactionTemplate.execute(() -> {
+                Order order = entityManager.find(Order.class, orderId);
+                order.setOrderStatus(next(order.getOrderStatus()));
+                return order;
+            }));
+        } catch (PersistenceException e) {
+            lost.increment();
+            return null;
+        }
+    }
+
+    private OrderState flip(RetryPolicy policy) {
+        long orderId = randomHotOrder();
+        OrderStatus from = context.getOrderRepository().findState(orderId).orElseThrow().status();
+        try {
+            return stateMachine.transition(orderId, from, next(from), policy);
+        } catch (CustomException e) {
+            lost.increment();
+            return null;
+        }
+    }
+
+    private long randomHotOrder() {
+        return context.getFirstOrderId() + ThreadLocalRandom.current().nextInt(hotOrders);
+    }
+
+    private static OrderStatus next(OrderStatus status) {
+        return status == OrderStatus.AWAITING_TECHNICIAN
+                ? OrderStatus.AWAITING_TECHNICIAN_SUGGESTION
+                : OrderStatus.AWAITING_TECHNICIAN;
+    }
+}
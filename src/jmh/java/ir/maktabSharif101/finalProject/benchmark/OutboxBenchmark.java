@@ -0,0 +1,94 @@
+package ir.maktabSharif101.finalProject.benchmark;
+
+import ir.maktabSharif101.finalProject.entity.Order;
+import ir.maktabSharif101.finalProject.entity.enums.OrderStatus;
+import ir.maktabSharif101.finalProject.service.dto.OrderState;
+import ir.maktabSharif101.finalProject.service.event.OutboxLag;
+import ir.maktabSharif101.finalProject.service.order.OrderStateMachine;
+import ir.maktabSharif101.finalProject.service.order.RetryPolicy;
+import lombok.extern.slf4j.Slf4j;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Status changes that write an outbox event, relayed to a subscriber while the load runs, next to
+ * what integrations did before: polling every order. Customers send orders back to
+ * AWAITING_TECHNICIAN_SUGGESTION through the service; the move back stands in for a new bid and
+ * goes through the state machine directly, as the suggestion pipeline's would.
+ */
+@Slf4j
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Threads(4)
+@State(Scope.Benchmark)
+public class OutboxBenchmark {
+
+    @Param({"1000", "100000"})
+    public int rows;
+
+    private BenchmarkContext context;
+    private OrderStateMachine stateMachine;
+    private final Map<Long, Long> lastEventPerOrder = new ConcurrentHashMap<>();
+    private final LongAdder received = new LongAdder();
+    private final LongAdder outOfOrder = new LongAdder();
+    private volatile OutboxLag worstLag;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new BenchmarkContext(rows);
+        stateMachine = new OrderStateMachine(context.getUnitOfWork(), context.getOrderRepository(),
+                context.getOutbox(), RetryPolicy.DEFAULT);
+        context.getEventBus().subscribeAll(event -> {
+            received.increment();
+            Long previous = lastEventPerOrder.put(event.getAggregateId(), event.getId());
+            if (previous != null && previous > event.getId()) {
+                outOfOrder.increment();
+            }
+        });
+    }
+
+    @TearDown(Level.Iteration)
+    public void sampleLag() {
+        OutboxLag lag = context.getOutboxRelay().getLag();
+        if (worstLag == null || lag.oldestPendingAge().compareTo(worstLag.oldestPendingAge()) > 0) {
+            worstLag = lag;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        log.info("Received: [{}], out of order: [{}], worst lag sample: [{}], now: [{}]", received.sum(),
+                outOfOrder.sum(), worstLag, context.getOutboxRelay().getLag());
+        context.close();
+    }
+
+    @Benchmark
+    public OrderState changeStatus() {
+        long orderId = context.getFirstOrderId() + ThreadLocalRandom.current().nextInt(rows);
+        OrderStatus from = context.getOrderRepository().findState(orderId).orElseThrow().status();
+        try {
+            if (from == OrderStatus.AWAITING_TECHNICIAN) {
+                return context.getOrderService().changeStatus(context.customerSessionFor(orderId), orderId, from,
+                        OrderStatus.AWAITING_TECHNICIAN_SUGGESTION);
+            }
+            return stateMachine.transition(orderId, from, OrderStatus.AWAITING_TECHNICIAN);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public List<Order> pollAllOrders() {
+        return context.getOrderService().findAll();
+    }
+}
@@ -0,0 +1,42 @@
+package ir.maktabSharif101.finalProject.benchmark;
+
+import ir.maktabSharif101.finalProject.entity.Customer;
+import ir.maktabSharif101.finalProject.service.base.LoginResult;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Customer login at real PBKDF2 costs. Run with {@code -t} above the hashing pool size to see the
+ * pool cap CPU use: throughput stays flat while the extra threads wait in the queue.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class PasswordLoginBenchmark {
+
+    @Param({"100000", "310000", "600000"})
+    public int iterations;
+
+    private BenchmarkContext context;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new BenchmarkContext(1000, iterations);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public LoginResult<Customer> login() {
+        return context.getCustomerService().login(
+                context.customerEmail(ThreadLocalRandom.current().nextInt(context.getRows())), BenchmarkContext.PASSWORD);
+    }
+}
@@ -0,0 +1,106 @@
+package ir.maktabSharif101.finalProject.benchmark;
+
+import ir.maktabSharif101.finalProject.base.metrics.Instrumentation;
+import ir.maktabSharif101.finalProject.base.metrics.MetricsRegistry;
+import ir.maktabSharif101.finalProject.base.metrics.QueryBudgets;
+import ir.maktabSharif101.finalProject.entity.Customer;
+import ir.maktabSharif101.finalProject.entity.enums.OrderStatus;
+import ir.maktabSharif101.finalProject.service.CustomerService;
+import ir.maktabSharif101.finalProject.service.OrderService;
+import ir.maktabSharif101.finalProject.service.SubServicesService;
+import ir.maktabSharif101.finalProject.service.base.LoginResult;
+import ir.maktabSharif101.finalProject.service.dto.OrderSubmitDto;
+import ir.maktabSharif101.finalProject.service.order.OrderStateMachine;
+import ir.maktabSharif101.finalProject.service.order.RetryPolicy;
+import ir.maktabSharif101.finalProject.utils.CustomException;
+import lombok.extern.slf4j.Slf4j;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The main customer and technician flows run through services instrumented with the shipped
+ * query budgets in {@code FAIL} mode, so a change that adds statements to any of them (an N+1, a
+ * lazy collection touched by accident) fails this benchmark instead of only slowing it down. The
+ * over-budget call is rolled back before the failure surfaces.
+ */
+@Slf4j
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class QueryBudgetBenchmark {
+
+    @Param({"1000", "100000"})
+    public int rows;
+
+    private BenchmarkContext context;
+    private MetricsRegistry registry;
+    private CustomerService customerService;
+    private OrderService orderService;
+    private SubServicesService subServicesService;
+    private OrderStateMachine stateMachine;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new BenchmarkContext(rows);
+        registry = new MetricsRegistry(QueryBudgets.load("query-budgets.properties", QueryBudgets.Mode.FAIL),
+                context.getUnitOfWork());
+        customerService = Instrumentation.wrap(CustomerService.class, context.getCustomerService(), registry);
+        orderService = Instrumentation.wrap(OrderService.class, context.getOrderService(), registry);
+        subServicesService = Instrumentation.wrap(SubServicesService.class, context.getSubServicesService(),
+                registry);
+        stateMachine = new OrderStateMachine(context.getUnitOfWork(), context.getOrderRepository(),
+                context.getOutbox(), RetryPolicy.DEFAULT);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        registry.dump();
+        context.close();
+    }
+
+    @Benchmark
+    public LoginResult<Customer> login() {
+        return customerService.login(context.customerEmail(randomRow()), BenchmarkContext.PASSWORD);
+    }
+
+    @Benchmark
+    public void submitOrder() {
+        orderService.submitOrder(context.getFirstCustomerId() + randomRow(), new OrderSubmitDto(
+                context.getFirstSubServiceId(), "job", "2030-01-01", "10:00", "address", 200));
+    }
+
+    @Benchmark
+    public void changeStatus() {
+        long orderId = context.getFirstOrderId() + randomRow();
+        OrderStatus from = context.getOrderRepository().findState(orderId).orElseThrow().status();
+        try {
+            if (from == OrderStatus.AWAITING_TECHNICIAN) {
+                orderService.changeStatus(context.customerSessionFor(orderId), orderId, from,
+                        OrderStatus.AWAITING_TECHNICIAN_SUGGESTION);
+            } else {
+                // a new bid would reopen the order; that isn't a customer move and isn't budgeted here
+                stateMachine.transition(orderId, from, OrderStatus.AWAITING_TECHNICIAN);
+            }
+        } catch (CustomException e) {
+            // another iteration already moved this order; only the statement count matters here
+        }
+    }
+
+    @Benchmark
+    public void addAndRemoveTechnician() {
+        int row = randomRow();
+        long technicianId = context.getFirstTechnicianId() + row;
+        long subServiceId = context.getFirstSubServiceId() + (row + 1) % BenchmarkContext.SUB_SERVICES;
+        subServicesService.addToSubService(technicianId, subServiceId);
+        subServicesService.deleteFromSubService(technicianId, subServiceId);
+    }
+
+    private int randomRow() {
+        return ThreadLocalRandom.current().nextInt(rows);
+    }
+}
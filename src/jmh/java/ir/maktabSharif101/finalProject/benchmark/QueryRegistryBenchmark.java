@@ -0,0 +1,94 @@
+package ir.maktabSharif101.finalProject.benchmark;
+
+import ir.maktabSharif101.finalProject.entity.Customer;
+import org.openjdk.jmh.annotations.*;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The generic repository lookups with their JPQL built per call, the way they were before
+ * {@code QueryRegistry}, against the named queries the repositories use now. The {@code create*}
+ * pairs only build the query, without running it, to show the part the registry saves.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class QueryRegistryBenchmark {
+
+    @Param({"10000"})
+    public int rows;
+
+    private BenchmarkContext context;
+    private EntityManager entityManager;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new BenchmarkContext(rows);
+        entityManager = context.getEntityManagerFactory().createEntityManager();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        entityManager.close();
+        context.close();
+    }
+
+    @Benchmark
+    public TypedQuery<Customer> createConcatenated() {
+        return entityManager.createQuery("select s from " + Customer.class.getSimpleName()
+                + " s where s.emailAddress = :email", Customer.class);
+    }
+
+    @Benchmark
+    public TypedQuery<Customer> createNamed() {
+        return entityManager.createNamedQuery("Customer.findByEmailAddress", Customer.class);
+    }
+
+    @Benchmark
+    public Optional<Customer> findByEmailAddressConcatenated() {
+        return context.getUnitOfWork().call(entityManager -> entityManager.createQuery("select s from "
+                        + Customer.class.getSimpleName() + " s where s.emailAddress = :email", Customer.class)
+                .setParameter("email", randomEmail())
+                .getResultList().stream().findFirst());
+    }
+
+    @Benchmark
+    public Optional<Customer> findByEmailAddressNamed() {
+        return context.getCustomerRepository().findByEmailAddress(randomEmail());
+    }
+
+    @Benchmark
+    public boolean existsByEmailAddressConcatenated() {
+        return context.getUnitOfWork().call(entityManager -> entityManager.createQuery("select count(s) from "
+                        + Customer.class.getSimpleName() + " s where s.emailAddress = :email", Long.class)
+                .setParameter("email", randomEmail())
+                .getSingleResult() > 0);
+    }
+
+    @Benchmark
+    public boolean existsByEmailAddressNamed() {
+        return context.getCustomerRepository().existsByEmailAddress(randomEmail());
+    }
+
+    @Benchmark
+    public long countConcatenated() {
+        return context.getUnitOfWork().call(entityManager -> entityManager.createQuery("select count (t) from "
+                + Customer.class.getSimpleName() + " t", Long.class).getSingleResult());
+    }
+
+    @Benchmark
+    public long countNamed() {
+        return context.getCustomerRepository().count();
+    }
+
+    private String randomEmail() {
+        return context.customerEmail(ThreadLocalRandom.current().nextInt(rows));
+    }
+}
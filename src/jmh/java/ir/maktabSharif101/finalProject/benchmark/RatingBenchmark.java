@@ -0,0 +1,73 @@
+package ir.maktabSharif101.finalProject.benchmark;
+
+import ir.maktabSharif101.finalProject.base.persistence.TransactionTemplate;
+import ir.maktabSharif101.finalProject.service.dto.RatingAggregate;
+import ir.maktabSharif101.finalProject.service.rating.RatingRebuildReport;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Taking one new rating into a technician's aggregate with the single update {@code rateOrder}
+ * uses, against recomputing the aggregate from all of the technician's rated orders.
+ * {@code rebuild} checks every technician against the orders; the first call after
+ * {@code increment} also corrects the aggregates it moved.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class RatingBenchmark {
+
+    @Param({"100000"})
+    public int rows;
+
+    @Param({"10", "1000"})
+    public int ordersPerTechnician;
+
+    private BenchmarkContext context;
+    private TransactionTemplate transactionTemplate;
+    private int technicians;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new BenchmarkContext(rows);
+        context.seedRatings(ordersPerTechnician);
+        transactionTemplate = new TransactionTemplate(context.getUnitOfWork());
+        technicians = Math.max(1, rows / ordersPerTechnician);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public boolean increment() {
+        return context.getTechnicianRepository().addRating(randomTechnicianId(), 4, 0.2);
+    }
+
+    @Benchmark
+    public boolean rescan() {
+        long technicianId = randomTechnicianId();
+        return transactionTemplate.execute(() -> {
+            List<RatingAggregate> actual = context.getOrderRepository().aggregateRatings(technicianId, technicianId);
+            RatingAggregate stored = context.getTechnicianRepository().findRatingAggregates(technicianId - 1, 1).get(0);
+            return context.getTechnicianRepository().correctRating(stored, actual.get(0));
+        });
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public RatingRebuildReport rebuild() {
+        return context.getRatingRebuild().run(4);
+    }
+
+    private long randomTechnicianId() {
+        return context.getFirstTechnicianId() + ThreadLocalRandom.current().nextInt(technicians);
+    }
+}
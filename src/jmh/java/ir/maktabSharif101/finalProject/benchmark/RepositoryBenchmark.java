@@ -0,0 +1,41 @@
+package ir.maktabSharif101.finalProject.benchmark;
+
+import ir.maktabSharif101.finalProject.entity.Order;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class RepositoryBenchmark {
+
+    @Benchmark
+    public List<Order> findAll(DatabaseState database) {
+        return database.context.getOrderRepository().findAll();
+    }
+
+    @Benchmark
+    public int findPage(DatabaseState database) {
+        int pages = 0;
+        List<Order> page = database.context.getOrderRepository().findPage(null, 1000);
+        while (!page.isEmpty()) {
+            pages++;
+            page = database.context.getOrderRepository().findPage(page.get(page.size() - 1).getId(), 1000);
+        }
+        return pages;
+    }
+
+    @Benchmark
+    public double streamAll(DatabaseState database) {
+        return database.context.getOrderRepository().streamAll(orders -> orders.mapToDouble(Order::getPrice).sum());
+    }
+
+    @Benchmark
+    public long count(DatabaseState database) {
+        return database.context.getOrderRepository().count();
+    }
+}
@@ -0,0 +1,84 @@
+package ir.maktabSharif101.finalProject.benchmark;
+
+import ir.maktabSharif101.finalProject.entity.Technician;
+import ir.maktabSharif101.finalProject.entity.enums.OrderStatus;
+import ir.maktabSharif101.finalProject.service.dto.OrderDetails;
+import ir.maktabSharif101.finalProject.service.dto.OrderSummary;
+import ir.maktabSharif101.finalProject.service.dto.SuggestionOffer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The order, suggestion and technician link lookups against the schema Hibernate generates and
+ * the migrated one with its composite indexes. H2 indexes every foreign key column by itself, so
+ * the generated schema here is closer to the migrated one than it would be on PostgreSQL.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class SchemaBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+    private static final int SUGGESTIONS_PER_ORDER = 5;
+
+    @Param({"GENERATED", "MIGRATED"})
+    public BenchmarkContext.Schema schema;
+
+    @Param({"100000"})
+    public int rows;
+
+    private BenchmarkContext context;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new BenchmarkContext(rows, BenchmarkContext.CHEAP_HASH_ITERATIONS, schema);
+        context.seedSuggestions(SUGGESTIONS_PER_ORDER);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<OrderSummary> orderHistory() {
+        long customerId = context.getFirstCustomerId() + ThreadLocalRandom.current().nextInt(rows);
+        return context.getOrderService().findOrderHistory(customerId, null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<OrderSummary> subServicePage() {
+        long subServiceId = context.getFirstSubServiceId()
+                + ThreadLocalRandom.current().nextInt(BenchmarkContext.SUB_SERVICES);
+        return context.getOrderService().findOrdersForSubService(subServiceId,
+                OrderStatus.AWAITING_TECHNICIAN_SUGGESTION, null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Optional<OrderDetails> orderDetails() {
+        return context.getOrderService().findOrderDetails(randomOrder());
+    }
+
+    @Benchmark
+    public List<SuggestionOffer> topOffers() {
+        return context.getSuggestionRepository().findTopOffers(randomOrder(), 10);
+    }
+
+    @Benchmark
+    public int technicianSubServices() {
+        long technicianId = context.getFirstTechnicianId() + ThreadLocalRandom.current().nextInt(rows);
+        return context.getUnitOfWork().call(entityManager ->
+                entityManager.find(Technician.class, technicianId).getSubServices().size());
+    }
+
+    private long randomOrder() {
+        return context.getFirstOrderId() + ThreadLocalRandom.current().nextInt(rows);
+    }
+}
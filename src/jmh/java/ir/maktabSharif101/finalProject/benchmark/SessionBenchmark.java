@@ -0,0 +1,62 @@
+package ir.maktabSharif101.finalProject.benchmark;
+
+import ir.maktabSharif101.finalProject.entity.Customer;
+import ir.maktabSharif101.finalProject.utils.SessionToken;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Establishing who the caller is on a follow-up request: verifying a session token against
+ * looking the user up again by id or by email.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class SessionBenchmark {
+
+    private static final int TOKENS = 1000;
+
+    @Param({"1000", "100000"})
+    public int rows;
+
+    private BenchmarkContext context;
+    private String[] tokens;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new BenchmarkContext(rows);
+        tokens = new String[TOKENS];
+        for (int i = 0; i < TOKENS; i++) {
+            tokens[i] = context.getCustomerService().login(context.customerEmail(i), BenchmarkContext.PASSWORD)
+                    .token();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public SessionToken verifyToken() {
+        return context.getCustomerService().verifySession(tokens[ThreadLocalRandom.current().nextInt(TOKENS)]);
+    }
+
+    @Benchmark
+    public Optional<Customer> findById() {
+        return context.getCustomerService().findById(
+                context.getFirstCustomerId() + ThreadLocalRandom.current().nextInt(rows));
+    }
+
+    @Benchmark
+    public Optional<Customer> findByEmailAddress() {
+        return context.getCustomerService().findByEmailAddress(
+                context.customerEmail(ThreadLocalRandom.current().nextInt(rows)));
+    }
+}
@@ -0,0 +1,28 @@
+package ir.maktabSharif101.finalProject.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SubServicesServiceBenchmark {
+
+    /**
+     * Adds a random confirmed technician to a sub service it doesn't serve yet and removes it
+     * again, so every invocation starts from the seeded state.
+     */
+    @Benchmark
+    public void addToSubService(DatabaseState database) {
+        BenchmarkContext context = database.context;
+        int row = database.randomRow();
+        long technicianId = context.getFirstTechnicianId() + row;
+        long subServiceId = context.getFirstSubServiceId() + (row + 1) % BenchmarkContext.SUB_SERVICES;
+
+        context.getSubServicesService().addToSubService(technicianId, subServiceId);
+        context.getSubServicesService().deleteFromSubService(technicianId, subServiceId);
+    }
+}
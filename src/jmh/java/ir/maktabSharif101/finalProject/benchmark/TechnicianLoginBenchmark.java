@@ -0,0 +1,43 @@
+package ir.maktabSharif101.finalProject.benchmark;
+
+import ir.maktabSharif101.finalProject.entity.Technician;
+import ir.maktabSharif101.finalProject.service.base.LoginResult;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Technician login with a 300 KB photo stored for every technician. Seeding is limited to the
+ * small table size because of the image volume.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class TechnicianLoginBenchmark {
+
+    @Param({"1000"})
+    public int rows;
+
+    private BenchmarkContext context;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new BenchmarkContext(rows);
+        context.seedTechnicianImages(300 * 1024);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public LoginResult<Technician> login() {
+        return context.getTechnicianService().login(
+                context.technicianEmail(ThreadLocalRandom.current().nextInt(rows)), BenchmarkContext.PASSWORD);
+    }
+}
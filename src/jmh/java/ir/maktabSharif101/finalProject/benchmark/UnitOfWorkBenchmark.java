@@ -0,0 +1,112 @@
+package ir.maktabSharif101.finalProject.benchmark;
+
+import ir.maktabSharif101.finalProject.entity.Order;
+import ir.maktabSharif101.finalProject.repository.OrderRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * How the thread-bound unit of work scales with threads: each thread opens its own entity manager
+ * per call, so throughput should grow with the thread count until the connection pool (10) or the
+ * CPUs run out, rather than stay flat as it did with one shared entity manager.
+ * <p>
+ * {@code readModifySave} loads an order, changes it and saves it twice, going on with what
+ * {@code save} returned; the second save only succeeds if that copy carries the new version.
+ * Every thread works on its own slice of the orders, so there are no version conflicts between
+ * threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class UnitOfWorkBenchmark {
+
+    private static final int MAX_THREADS = 16;
+
+    @Param({"10000"})
+    public int rows;
+
+    private BenchmarkContext context;
+    private final AtomicInteger slices = new AtomicInteger();
+
+    @State(Scope.Thread)
+    public static class Slice {
+        long first;
+        int size;
+
+        @Setup(Level.Trial)
+        public void setUp(UnitOfWorkBenchmark benchmark) {
+            size = benchmark.rows / MAX_THREADS;
+            int slice = benchmark.slices.getAndIncrement() % MAX_THREADS;
+            first = benchmark.context.getFirstOrderId() + (long) size * slice;
+        }
+
+        long randomOrder() {
+            return first + ThreadLocalRandom.current().nextInt(size);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new BenchmarkContext(rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Order findById1(Slice slice) {
+        return findById(slice);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Order findById4(Slice slice) {
+        return findById(slice);
+    }
+
+    @Benchmark
+    @Threads(MAX_THREADS)
+    public Order findById16(Slice slice) {
+        return findById(slice);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Order readModifySave1(Slice slice) {
+        return readModifySave(slice);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Order readModifySave4(Slice slice) {
+        return readModifySave(slice);
+    }
+
+    @Benchmark
+    @Threads(MAX_THREADS)
+    public Order readModifySave16(Slice slice) {
+        return readModifySave(slice);
+    }
+
+    private Order findById(Slice slice) {
+        return context.getOrderRepository().findById(slice.randomOrder()).orElseThrow();
+    }
+
+    private Order readModifySave(Slice slice) {
+        OrderRepository orders = context.getOrderRepository();
+        Order order = orders.findById(slice.randomOrder()).orElseThrow();
+        order.setComment("first " + System.nanoTime());
+        order = orders.save(order);
+        order.setComment("second " + System.nanoTime());
+        return orders.save(order);
+    }
+}
@@ -0,0 +1,50 @@
+package ir.maktabSharif101.finalProject.benchmark;
+
+import ir.maktabSharif101.finalProject.entity.Customer;
+import ir.maktabSharif101.finalProject.service.base.LoginResult;
+import ir.maktabSharif101.finalProject.service.dto.RegisterDto;
+import lombok.extern.slf4j.Slf4j;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Slf4j
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class UserServiceBenchmark {
+
+    @State(Scope.Thread)
+    public static class Registrations {
+        private static final AtomicInteger THREADS = new AtomicInteger();
+        private final int thread = THREADS.incrementAndGet();
+        private int counter;
+
+        String nextEmail() {
+            return "reg" + thread + "n" + (counter++) + "@gmail.com";
+        }
+
+        @TearDown(Level.Trial)
+        public void report(DatabaseState database) {
+            if (thread == 1) {
+                log.info("Customer email filter: [{}]", database.context.getCustomerService().getEmailFilterStats());
+            }
+        }
+    }
+
+    @Benchmark
+    public LoginResult<Customer> login(DatabaseState database) {
+        BenchmarkContext context = database.context;
+        return context.getCustomerService()
+                .login(context.customerEmail(database.randomRow()), BenchmarkContext.PASSWORD);
+    }
+
+    @Benchmark
+    public Customer register(DatabaseState database, Registrations registrations) {
+        return database.context.getCustomerService().register(new RegisterDto(
+                "Benchmark", "User", registrations.nextEmail(), BenchmarkContext.PASSWORD));
+    }
+}
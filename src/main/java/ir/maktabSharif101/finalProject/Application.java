@@ -8,6 +8,7 @@ import ir.maktabSharif101.finalProject.utils.CustomException;
 
 public class Application {
     public static void main(String[] args) {
+        ApplicationContext.start();
         MainServicesService mainServicesService = ApplicationContext.getMainServiceService();
         SubServicesService subServiceService = ApplicationContext.getSubServiceService();
         CustomerService customerService = ApplicationContext.getCustomerService();
@@ -67,6 +68,8 @@ public class Application {
             System.out.println("********************************");
             System.out.println(e.getMessage());
             System.out.println("********************************");
+        } finally {
+            ApplicationContext.stop();
         }
     }
 }
@@ -7,6 +7,7 @@ import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.MappedSuperclass;
+import javax.persistence.SequenceGenerator;
 import java.io.Serializable;
 
 @Getter
@@ -17,7 +18,11 @@ import java.io.Serializable;
 @MappedSuperclass
 @FieldDefaults(level = AccessLevel.PRIVATE)
 public class BaseEntity<ID extends Serializable> {
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "entity_id_generator")
+    @SequenceGenerator(name = "entity_id_generator", sequenceName = "hibernate_sequence",
+            allocationSize = ID_ALLOCATION_SIZE)
     private ID id;
 }
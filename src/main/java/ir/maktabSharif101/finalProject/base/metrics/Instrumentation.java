@@ -0,0 +1,116 @@
+package ir.maktabSharif101.finalProject.base.metrics;
+
+import ir.maktabSharif101.finalProject.base.persistence.TransactionTemplate;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Wraps a repository or service in a dynamic proxy of its interface that times every call and
+ * counts the SQL statements it ran.
+ * <p>
+ * Metrics are resolved per {@link Method} once, when the proxy is built, so a call costs two
+ * {@code nanoTime} reads, two thread-local reads and the histogram increment on top of the
+ * reflective dispatch. Calls between methods of the same implementation bypass the proxy and are
+ * counted as part of the outer call; calls into other instrumented components are counted both
+ * there and here. Successful calls are then checked against the registry's statement budget; when
+ * going over it throws, the call runs in a transaction that the check happens inside of, so the
+ * exception rolls back what the call wrote (work committed on other threads or in
+ * {@code REQUIRES_NEW} transactions stays).
+ */
+public final class Instrumentation {
+
+    private Instrumentation() {
+    }
+
+    /**
+     * @param component name the methods are reported under, usually the interface name, which also
+     *                  identifies the entity type (e.g. {@code OrderRepository.findById(Serializable)})
+     */
+    @SuppressWarnings("unchecked")
+    public static <I> I wrap(Class<I> type, I target, String component, MetricsRegistry registry) {
+        Map<Method, MethodMetrics> metrics = new HashMap<>();
+        for (Method method : type.getMethods()) {
+            metrics.put(method, registry.metrics(component + "." + signature(method)));
+        }
+        TransactionTemplate transactionTemplate = registry.getTransactionTemplate();
+        InvocationHandler handler = (proxy, method, args) -> {
+            MethodMetrics methodMetrics = metrics.get(method);
+            if (methodMetrics == null) {
+                return invoke(target, method, args);
+            }
+            if (!methodMetrics.failsOverBudget()) {
+                return measure(target, method, args, methodMetrics);
+            }
+            try {
+                return transactionTemplate.execute(() -> {
+                    try {
+                        return measure(target, method, args, methodMetrics);
+                    } catch (RuntimeException e) {
+                        throw e;
+                    } catch (Throwable e) {
+                        throw new CheckedFailure(e);
+                    }
+                });
+            } catch (CheckedFailure e) {
+                throw e.getCause();
+            }
+        };
+        return (I) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    public static <I> I wrap(Class<I> type, I target, MetricsRegistry registry) {
+        return wrap(type, target, type.getSimpleName(), registry);
+    }
+
+    /**
+     * {@code name(Type,Type)} with the simple names of the parameter types, so overloads get metrics
+     * and budgets of their own.
+     */
+    static String signature(Method method) {
+        return Arrays.stream(method.getParameterTypes())
+                .map(Class::getSimpleName)
+                .collect(Collectors.joining(",", method.getName() + "(", ")"));
+    }
+
+    private static Object measure(Object target, Method method, Object[] args, MethodMetrics methodMetrics)
+            throws Throwable {
+        long statementsBefore = StatementCounter.current();
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = invoke(target, method, args);
+        } catch (Throwable e) {
+            methodMetrics.record(System.nanoTime() - start, StatementCounter.current() - statementsBefore, true);
+            throw e;
+        }
+        long statements = StatementCounter.current() - statementsBefore;
+        methodMetrics.record(System.nanoTime() - start, statements, false);
+        methodMetrics.checkBudget(statements);
+        return result;
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Carries a checked exception or error out of the transaction, which only passes on runtime
+     * exceptions; the transaction is rolled back on the way out.
+     */
+    private static final class CheckedFailure extends RuntimeException {
+        CheckedFailure(Throwable cause) {
+            super(cause);
+        }
+    }
+}
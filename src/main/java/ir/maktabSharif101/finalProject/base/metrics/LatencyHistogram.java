@@ -0,0 +1,149 @@
+package ir.maktabSharif101.finalProject.base.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-memory, log-linear histogram of nanosecond latencies, in the spirit of HdrHistogram.
+ * <p>
+ * Values below 64 get their own bucket; above that every power of two is split into 32 equal
+ * sub-buckets, so any recorded value is reported within about 3% of its true value, from
+ * nanoseconds up to centuries, in 1888 counters (15 KB). Recording is one array increment and
+ * never allocates. Like {@link java.util.concurrent.atomic.LongAdder}, the counters start as a
+ * single array and are split into per-thread stripes only once threads actually collide, so
+ * rarely called methods stay small and hot ones don't serialize on a shared cache line.
+ * Snapshots sum the stripes, so a quantile read concurrently with recording may be off by the
+ * few values recorded meanwhile.
+ */
+public class LatencyHistogram {
+
+    private static final int LINEAR_BUCKETS = 64;
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = LINEAR_BUCKETS + (63 - 6) * SUB_BUCKETS;
+
+    private static final int MAX_STRIPES = Math.min(16,
+            Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1));
+
+    private volatile AtomicLongArray[] stripes = {new AtomicLongArray(BUCKETS)};
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        int index = indexOf(value);
+        AtomicLongArray[] current = stripes;
+        AtomicLongArray counts = current[stripe() & (current.length - 1)];
+        long count = counts.get(index);
+        if (!counts.compareAndSet(index, count, count + 1)) {
+            counts.incrementAndGet(index);
+            grow(current);
+        }
+        long currentMax = max.get();
+        while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+            currentMax = max.get();
+        }
+    }
+
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long total = 0;
+        for (AtomicLongArray counts : stripes) {
+            for (int i = 0; i < BUCKETS; i++) {
+                long count = counts.get(i);
+                copy[i] += count;
+                total += count;
+            }
+        }
+        return new Snapshot(copy, total, max.get());
+    }
+
+    private synchronized void grow(AtomicLongArray[] seen) {
+        if (stripes != seen || seen.length >= MAX_STRIPES) {
+            return;
+        }
+        AtomicLongArray[] grown = Arrays.copyOf(seen, seen.length * 2);
+        for (int i = seen.length; i < grown.length; i++) {
+            grown[i] = new AtomicLongArray(BUCKETS);
+        }
+        stripes = grown;
+    }
+
+    private static int stripe() {
+        long id = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+        return (int) (id >>> 32);
+    }
+
+    static int indexOf(long value) {
+        if (value < LINEAR_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) - SUB_BUCKETS;
+        return LINEAR_BUCKETS + (exponent - 6) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * The midpoint of the values that map to bucket {@code index}.
+     */
+    static long valueOf(int index) {
+        if (index < LINEAR_BUCKETS) {
+            return index;
+        }
+        int exponent = (index - LINEAR_BUCKETS) / SUB_BUCKETS + 6;
+        int subBucket = (index - LINEAR_BUCKETS) % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return ((long) (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS)) + width / 2;
+    }
+
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long total;
+        private final long max;
+
+        private Snapshot(long[] counts, long total, long max) {
+            this.counts = counts;
+            this.total = total;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return total;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * The latency at {@code quantile} (0..1), in nanoseconds; zero if nothing was recorded.
+         */
+        public long valueAt(double quantile) {
+            if (total == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(quantile * total));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(valueOf(i), max);
+                }
+            }
+            return max;
+        }
+
+        public double getMean() {
+            if (total == 0) {
+                return 0;
+            }
+            double sum = 0;
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] != 0) {
+                    sum += (double) counts[i] * valueOf(i);
+                }
+            }
+            return sum / total;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package ir.maktabSharif101.finalProject.base.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Recorders for one method: latency histogram, call and error counts, SQL statements executed,
+ * and calls that went over the method's statement budget.
+ */
+@Slf4j
+public class MethodMetrics {
+
+    private static final long WARN_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final String name;
+    private final int budget;
+    private final QueryBudgets.Mode budgetMode;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder statements = new LongAdder();
+    private final LongAdder overBudget = new LongAdder();
+    private volatile long lastWarning = System.nanoTime() - WARN_INTERVAL_NANOS;
+
+    MethodMetrics(String name, int budget, QueryBudgets.Mode budgetMode) {
+        this.name = name;
+        this.budget = budget;
+        this.budgetMode = budgetMode;
+    }
+
+    public void record(long nanos, long statementCount, boolean failed) {
+        latency.record(nanos);
+        if (statementCount != 0) {
+            statements.add(statementCount);
+        }
+        if (failed) {
+            errors.increment();
+        }
+    }
+
+    /**
+     * Whether an over-budget call throws, in which case the caller has to check the budget before
+     * the call's transaction commits, so the exception rolls the call's work back.
+     */
+    public boolean failsOverBudget() {
+        return budgetMode == QueryBudgets.Mode.FAIL && budget != QueryBudgets.UNLIMITED;
+    }
+
+    /**
+     * Called after a successful call; warns at most once a minute per method, or throws in
+     * {@link QueryBudgets.Mode#FAIL} mode (see {@link #failsOverBudget()}).
+     */
+    public void checkBudget(long statementCount) {
+        if (budget == QueryBudgets.UNLIMITED || statementCount <= budget) {
+            return;
+        }
+        overBudget.increment();
+        if (budgetMode == QueryBudgets.Mode.FAIL) {
+            throw new QueryBudgetExceededException(name, budget, statementCount);
+        }
+        long now = System.nanoTime();
+        if (now - lastWarning >= WARN_INTERVAL_NANOS) {
+            lastWarning = now;
+            log.warn("[{}] ran [{}] SQL statements, budget is [{}] ([{}] calls over budget so far)",
+                    name, statementCount, budget, overBudget.sum());
+        }
+    }
+
+    public MethodStats snapshot() {
+        LatencyHistogram.Snapshot snapshot = latency.snapshot();
+        return new MethodStats(name, snapshot.getCount(), errors.sum(), statements.sum(), overBudget.sum(),
+                snapshot.getMean() / 1000, snapshot.valueAt(0.5) / 1000.0, snapshot.valueAt(0.99) / 1000.0,
+                snapshot.valueAt(0.999) / 1000.0, snapshot.getMax() / 1000.0);
+    }
+}
@@ -0,0 +1,19 @@
+package ir.maktabSharif101.finalProject.base.metrics;
+
+/**
+ * Point-in-time numbers for one instrumented method. Latencies are in microseconds.
+ */
+public record MethodStats(String name, long calls, long errors, long statements, long overBudget,
+                          double meanMicros, double p50Micros, double p99Micros, double p999Micros, double maxMicros) {
+
+    public double statementsPerCall() {
+        return calls == 0 ? 0 : (double) statements / calls;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-60s calls=%d errors=%d sql/call=%.1f over-budget=%d mean=%.1fus p50=%.1fus"
+                        + " p99=%.1fus p99.9=%.1fus max=%.1fus", name, calls, errors, statementsPerCall(), overBudget,
+                meanMicros, p50Micros, p99Micros, p999Micros, maxMicros);
+    }
+}
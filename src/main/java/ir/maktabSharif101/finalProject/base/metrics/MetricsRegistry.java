@@ -0,0 +1,101 @@
+package ir.maktabSharif101.finalProject.base.metrics;
+
+import ir.maktabSharif101.finalProject.base.persistence.TransactionTemplate;
+import ir.maktabSharif101.finalProject.base.persistence.UnitOfWork;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds the {@link MethodMetrics} of every instrumented method, keyed by
+ * {@code <component>.<method>(<parameter types>)}, and dumps them to the log on request or
+ * periodically. Methods listed in the {@link QueryBudgets} have their statement counts checked on
+ * every call; in {@link QueryBudgets.Mode#FAIL} mode that happens inside a transaction of the
+ * registry's unit of work, so an over-budget call is rolled back rather than failed after commit.
+ */
+@Slf4j
+public class MetricsRegistry implements AutoCloseable {
+
+    private final ConcurrentHashMap<String, MethodMetrics> metrics = new ConcurrentHashMap<>();
+    private final QueryBudgets budgets;
+    @Getter
+    private final TransactionTemplate transactionTemplate;
+    private volatile ScheduledExecutorService dumper;
+
+    public MetricsRegistry() {
+        this(QueryBudgets.NONE);
+    }
+
+    public MetricsRegistry(QueryBudgets budgets) {
+        this(budgets, null);
+    }
+
+    /**
+     * @param unitOfWork runs budgeted calls in a transaction in {@link QueryBudgets.Mode#FAIL} mode;
+     *                   may be {@code null} in the other modes
+     */
+    public MetricsRegistry(QueryBudgets budgets, UnitOfWork unitOfWork) {
+        if (budgets.getMode() == QueryBudgets.Mode.FAIL && unitOfWork == null) {
+            throw new IllegalArgumentException("FAIL query budgets need a unit of work to roll calls back");
+        }
+        this.budgets = budgets;
+        this.transactionTemplate = unitOfWork == null ? null : new TransactionTemplate(unitOfWork);
+    }
+
+    public MethodMetrics metrics(String name) {
+        return metrics.computeIfAbsent(name, key ->
+                new MethodMetrics(key, budgets.budgetFor(key), budgets.getMode()));
+    }
+
+    /**
+     * Stats of every method called at least once, busiest (by total time) first.
+     */
+    public List<MethodStats> snapshot() {
+        List<MethodStats> stats = new ArrayList<>(metrics.size());
+        for (MethodMetrics methodMetrics : metrics.values()) {
+            MethodStats snapshot = methodMetrics.snapshot();
+            if (snapshot.calls() > 0) {
+                stats.add(snapshot);
+            }
+        }
+        stats.sort(Comparator.comparingDouble((MethodStats s) -> s.meanMicros() * s.calls()).reversed());
+        return stats;
+    }
+
+    public void dump() {
+        List<MethodStats> stats = snapshot();
+        StringBuilder report = new StringBuilder("Method metrics (").append(stats.size()).append(" methods)");
+        for (MethodStats methodStats : stats) {
+            report.append("\n  ").append(methodStats);
+        }
+        log.info(report.toString());
+    }
+
+    public synchronized void startPeriodicDump(Duration interval) {
+        if (dumper != null) {
+            return;
+        }
+        dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumper.scheduleAtFixedRate(this::dump, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (dumper != null) {
+            dumper.shutdown();
+            dumper = null;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package ir.maktabSharif101.finalProject.base.metrics;
+
+import java.util.function.Supplier;
+
+/**
+ * Statement counting around a block of code, for benchmarks and checks that want to pin how many
+ * SQL statements a call may run. Counts come from {@link StatementCounter}, so only statements
+ * run on the calling thread are seen.
+ */
+public final class QueryBudget {
+
+    private QueryBudget() {
+    }
+
+    public static long countStatements(Runnable work) {
+        long before = StatementCounter.current();
+        work.run();
+        return StatementCounter.current() - before;
+    }
+
+    /**
+     * Runs {@code work} and fails with {@link QueryBudgetExceededException} if it ran more than
+     * {@code maxStatements} statements.
+     */
+    public static <R> R atMost(int maxStatements, String what, Supplier<R> work) {
+        long before = StatementCounter.current();
+        R result = work.get();
+        long statements = StatementCounter.current() - before;
+        if (statements > maxStatements) {
+            throw new QueryBudgetExceededException(what, maxStatements, statements);
+        }
+        return result;
+    }
+
+    public static void atMost(int maxStatements, String what, Runnable work) {
+        atMost(maxStatements, what, () -> {
+            work.run();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,20 @@
+package ir.maktabSharif101.finalProject.base.metrics;
+
+import lombok.Getter;
+
+/**
+ * A call ran more SQL statements than its budget allows.
+ */
+@Getter
+public class QueryBudgetExceededException extends RuntimeException {
+    private final String method;
+    private final long budget;
+    private final long statements;
+
+    public QueryBudgetExceededException(String method, long budget, long statements) {
+        super(method + " ran " + statements + " SQL statements, budget is " + budget);
+        this.method = method;
+        this.budget = budget;
+        this.statements = statements;
+    }
+}
@@ -0,0 +1,64 @@
+package ir.maktabSharif101.finalProject.base.metrics;
+
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Per-method statement budgets, keyed like the metrics
+ * ({@code <Interface>.<method>(<parameter types>)}, so overloads are budgeted separately), and
+ * what to do when a call goes over: nothing, log a warning, or throw
+ * {@link QueryBudgetExceededException} and roll the call back.
+ */
+public class QueryBudgets {
+
+    public static final int UNLIMITED = -1;
+    public static final QueryBudgets NONE = new QueryBudgets(Mode.OFF, Map.of());
+
+    public enum Mode {
+        OFF, WARN, FAIL
+    }
+
+    @Getter
+    private final Mode mode;
+    private final Map<String, Integer> budgets;
+
+    public QueryBudgets(Mode mode, Map<String, Integer> budgets) {
+        this.mode = mode;
+        this.budgets = Map.copyOf(budgets);
+    }
+
+    /**
+     * Reads {@code <Interface>.<method>(<parameter types>)=<max statements>} lines from a classpath
+     * resource; parameter types are the simple names of the erased types, comma separated.
+     */
+    public static QueryBudgets load(String resource, Mode mode) {
+        Properties properties = new Properties();
+        try (InputStream in = QueryBudgets.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalArgumentException("Query budget resource " + resource + " not found");
+            }
+            properties.load(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Map<String, Integer> budgets = new HashMap<>();
+        for (String method : properties.stringPropertyNames()) {
+            budgets.put(method, Integer.parseInt(properties.getProperty(method).trim()));
+        }
+        return new QueryBudgets(mode, budgets);
+    }
+
+    public int budgetFor(String method) {
+        return mode == Mode.OFF ? UNLIMITED : budgets.getOrDefault(method, UNLIMITED);
+    }
+
+    public int size() {
+        return budgets.size();
+    }
+}
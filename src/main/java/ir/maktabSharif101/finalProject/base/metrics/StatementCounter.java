@@ -0,0 +1,26 @@
+package ir.maktabSharif101.finalProject.base.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares on each thread. Registered through
+ * {@code hibernate.session_factory.statement_inspector}; Hibernate creates the instance, so the
+ * count lives in a static thread local and is read with {@link #current()}.
+ */
+public class StatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql;
+    }
+
+    /**
+     * Statements prepared on this thread so far; callers take the difference of two readings.
+     */
+    public static long current() {
+        return COUNT.get()[0];
+    }
+}
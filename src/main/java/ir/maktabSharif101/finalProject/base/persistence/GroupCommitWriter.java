@@ -0,0 +1,163 @@
+package ir.maktabSharif101.finalProject.base.persistence;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Funnels writes from many threads into one background writer that stores them in batches.
+ * <p>
+ * {@link #write} blocks until the item's batch has committed, so callers still only return once
+ * their data is durable, but concurrent callers share one transaction and one JDBC batch. The
+ * writer takes whatever is queued, up to {@code maxBatchSize} items, as soon as it is idle; under
+ * load batches fill up on their own and with a single caller each batch holds one item, so there
+ * is no added latency to tune. If a batch fails its items are retried one at a time, so a single
+ * bad item only fails its own caller; an {@link Error} fails the whole batch without a retry, and
+ * every caller in it gets the error rather than waiting on a result that will never come. The queue is bounded: when it is full, {@code write}
+ * blocks, which pushes back on producers.
+ * <p>
+ * {@link #close} lets the writer flush everything queued before it returns. The writer is never
+ * interrupted, since an interrupt in the middle of a flush can break its connection or JDBC call;
+ * it polls the queue with a timeout and notices the close within {@code POLL_MILLIS}. A write
+ * that races with close either gets flushed or fails, it never waits forever.
+ */
+@Slf4j
+public class GroupCommitWriter<T, R> implements AutoCloseable {
+
+    private static final long POLL_MILLIS = 50;
+
+    private final BlockingQueue<Pending<T, R>> queue;
+    private final Function<List<T>, List<R>> writeBatch;
+    private final int maxBatchSize;
+    private final Thread writer;
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder items = new LongAdder();
+    private volatile boolean running = true;
+
+    /**
+     * @param writeBatch stores the given items in one transaction and returns one result per item,
+     *                   in the same order
+     */
+    public GroupCommitWriter(String name, int maxBatchSize, int queueCapacity, Function<List<T>, List<R>> writeBatch) {
+        this.maxBatchSize = maxBatchSize;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.writeBatch = writeBatch;
+        this.writer = new Thread(this::drain, name);
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    public R write(T item) {
+        if (!running) {
+            throw new IllegalStateException("Writer has been closed");
+        }
+        Pending<T, R> pending = new Pending<>(item);
+        try {
+            queue.put(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing a write", e);
+        }
+        if (!running && queue.remove(pending)) {
+            // closed while queueing, and the writer may have drained the queue and stopped already
+            throw new IllegalStateException("Writer has been closed");
+        }
+        try {
+            return pending.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    public long getItemCount() {
+        return items.sum();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Pending<T, R> pending; (pending = queue.poll()) != null; ) {
+            pending.result.completeExceptionally(new IllegalStateException("Writer has been closed"));
+        }
+    }
+
+    private void drain() {
+        List<Pending<T, R>> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending<T, R> first = running ? queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS) : queue.poll();
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+            } catch (InterruptedException e) {
+                continue;
+            }
+            queue.drainTo(batch, maxBatchSize - 1);
+            flush(batch);
+            batch.clear();
+        }
+    }
+
+    private void flush(List<Pending<T, R>> batch) {
+        List<T> values = new ArrayList<>(batch.size());
+        for (Pending<T, R> pending : batch) {
+            values.add(pending.item);
+        }
+        try {
+            List<R> results = writeBatch.apply(values);
+            batches.increment();
+            items.add(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result.complete(results.get(i));
+            }
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                batch.get(0).result.completeExceptionally(e);
+                return;
+            }
+            log.warn("Batch of [{}] failed retrying items one by one", batch.size(), e);
+            for (Pending<T, R> pending : batch) {
+                flush(List.of(pending));
+            }
+        } catch (Throwable e) {
+            // not the fault of one item, so no retry; the writer thread stays up for later batches
+            log.error("Batch of [{}] failed with an error failing all of its items", batch.size(), e);
+            for (Pending<T, R> pending : batch) {
+                pending.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    private static final class Pending<T, R> {
+        private final T item;
+        private final CompletableFuture<R> result = new CompletableFuture<>();
+
+        private Pending(T item) {
+            this.item = item;
+        }
+    }
+}
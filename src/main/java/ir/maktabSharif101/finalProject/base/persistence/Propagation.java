@@ -0,0 +1,12 @@
+package ir.maktabSharif101.finalProject.base.persistence;
+
+public enum Propagation {
+    /**
+     * Join the transaction already running on the current unit of work, or start one.
+     */
+    REQUIRED,
+    /**
+     * Suspend the current unit of work and run in a fresh entity manager and transaction.
+     */
+    REQUIRES_NEW
+}
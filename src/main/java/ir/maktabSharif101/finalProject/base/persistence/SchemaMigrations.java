@@ -0,0 +1,65 @@
+package ir.maktabSharif101.finalProject.base.persistence;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.hibernate.jpa.boot.internal.ParsedPersistenceXmlDescriptor;
+import org.hibernate.jpa.boot.internal.PersistenceXmlParser;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Brings the database up to date from the versioned scripts under {@code db/migration} before
+ * Hibernate starts; Hibernate only validates the result ({@code hibernate.hbm2ddl.auto=validate}).
+ * A database that has tables but no migration history, one built by {@code hbm2ddl.auto=update},
+ * is baselined at version 1 so only the later scripts run against it.
+ */
+@Slf4j
+public final class SchemaMigrations {
+
+    public static final String LOCATION = "classpath:db/migration";
+
+    private static final String URL = "javax.persistence.jdbc.url";
+    private static final String USER = "javax.persistence.jdbc.user";
+    private static final String PASSWORD = "javax.persistence.jdbc.password";
+
+    private SchemaMigrations() {
+    }
+
+    /**
+     * Migrates the database of {@code persistenceUnit}, taking the connection settings from
+     * persistence.xml with {@code overrides} on top, the same way the entity manager factory will.
+     */
+    public static MigrateResult migrate(String persistenceUnit, Map<String, ?> overrides) {
+        Map<Object, Object> properties = new HashMap<>(unitProperties(persistenceUnit));
+        properties.putAll(overrides);
+        return migrate((String) properties.get(URL), (String) properties.get(USER),
+                (String) properties.get(PASSWORD));
+    }
+
+    public static MigrateResult migrate(String url, String user, String password) {
+        long start = System.nanoTime();
+        MigrateResult result = Flyway.configure()
+                .dataSource(url, user, password)
+                .loggers("slf4j")
+                .locations(LOCATION)
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load()
+                .migrate();
+        log.info("Schema at version [{}] after [{}] migrations in [{}] ms", result.targetSchemaVersion,
+                result.migrationsExecuted, (System.nanoTime() - start) / 1_000_000);
+        return result;
+    }
+
+    private static Properties unitProperties(String persistenceUnit) {
+        for (ParsedPersistenceXmlDescriptor unit : PersistenceXmlParser.locatePersistenceUnits(Map.of())) {
+            if (unit.getName().equals(persistenceUnit)) {
+                return unit.getProperties();
+            }
+        }
+        throw new IllegalArgumentException("No persistence unit named " + persistenceUnit);
+    }
+}
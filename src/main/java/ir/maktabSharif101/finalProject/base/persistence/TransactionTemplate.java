@@ -0,0 +1,122 @@
+package ir.maktabSharif101.finalProject.base.persistence;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
+import java.util.function.Supplier;
+
+/**
+ * Runs a piece of work inside a transaction of the current {@link UnitOfWork}.
+ * <p>
+ * Only the call that actually begins a transaction commits or rolls it back; calls that join an
+ * ambient transaction just run their work, and mark it rollback-only if the work fails. If the
+ * outermost work swallows such a failure and returns normally, the transaction is still rolled
+ * back and the caller gets an {@link UnexpectedRollbackException} instead of the result.
+ */
+@RequiredArgsConstructor
+public class TransactionTemplate {
+
+    private final UnitOfWork unitOfWork;
+
+    public <R> R execute(Supplier<R> work) {
+        return execute(Propagation.REQUIRED, false, work);
+    }
+
+    public <R> R executeReadOnly(Supplier<R> work) {
+        return execute(Propagation.REQUIRED, true, work);
+    }
+
+    public void run(Runnable work) {
+        execute(Propagation.REQUIRED, false, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Runs {@code callback} after the current transaction commits; used to keep in-memory state
+     * (caches, indexes) in step with what is actually in the database.
+     */
+    public void afterCommit(Runnable callback) {
+        unitOfWork.afterCommit(callback);
+    }
+
+    /**
+     * Runs {@code callback} if the current transaction rolls back, including when an outer caller's
+     * transaction that this work joined is the one rolled back; used to give back in-memory state
+     * (e.g. calendar bookings) taken for the transaction. Dropped on commit.
+     */
+    public void afterRollback(Runnable callback) {
+        unitOfWork.afterRollback(callback);
+    }
+
+    public <R> R execute(Propagation propagation, boolean readOnly, Supplier<R> work) {
+        if (propagation == Propagation.REQUIRES_NEW) {
+            UnitOfWork.Scope suspended = unitOfWork.suspend();
+            try {
+                return unitOfWork.call(entityManager -> inNewTransaction(entityManager, readOnly, work));
+            } finally {
+                unitOfWork.resume(suspended);
+            }
+        }
+        return unitOfWork.call(entityManager -> {
+            EntityTransaction transaction = entityManager.getTransaction();
+            if (!transaction.isActive()) {
+                return inNewTransaction(entityManager, readOnly, work);
+            }
+            try {
+                return work.get();
+            } catch (RuntimeException e) {
+                transaction.setRollbackOnly();
+                throw e;
+            }
+        });
+    }
+
+    private void runAfterCommit() {
+        unitOfWork.drainAfterRollback();
+        UnitOfWork.runAll(unitOfWork.drainAfterCommit(), "After-commit");
+    }
+
+    private void rollback(EntityTransaction transaction) {
+        unitOfWork.drainAfterCommit();
+        if (transaction.isActive()) {
+            transaction.rollback();
+        }
+        UnitOfWork.runAll(unitOfWork.drainAfterRollback(), "After-rollback");
+    }
+
+    private <R> R inNewTransaction(EntityManager entityManager, boolean readOnly, Supplier<R> work) {
+        EntityTransaction transaction = entityManager.getTransaction();
+        Session session = entityManager.unwrap(Session.class);
+        FlushMode flushMode = session.getHibernateFlushMode();
+        if (readOnly) {
+            session.setDefaultReadOnly(true);
+            session.setHibernateFlushMode(FlushMode.MANUAL);
+        }
+        transaction.begin();
+        try {
+            R result = work.get();
+            if (transaction.getRollbackOnly()) {
+                rollback(transaction);
+                throw new UnexpectedRollbackException(
+                        "Transaction was marked rollback-only by a joined call and has been rolled back");
+            }
+            transaction.commit();
+            unitOfWork.recordCommit();
+            runAfterCommit();
+            return result;
+        } catch (RuntimeException e) {
+            rollback(transaction);
+            throw e;
+        } finally {
+            if (readOnly) {
+                session.setDefaultReadOnly(false);
+                session.setHibernateFlushMode(flushMode);
+            }
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package ir.maktabSharif101.finalProject.base.persistence;
+
+/**
+ * The work of a transaction returned normally, but a joined call had marked the transaction
+ * rollback-only, so nothing it did was committed. Deliberately not a {@code PersistenceException},
+ * so the service-level handlers that log and swallow those don't hide it.
+ */
+public class UnexpectedRollbackException extends RuntimeException {
+    public UnexpectedRollbackException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,172 @@
+package ir.maktabSharif101.finalProject.base.persistence;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Binds one {@link EntityManager} to the calling thread for the duration of an operation.
+ * <p>
+ * The outermost {@code call}/{@code run} opens a fresh entity manager from the factory, nested
+ * calls on the same thread join it, and when the outermost call returns the persistence context
+ * is cleared and closed. Entities handed back to the caller are therefore detached.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class UnitOfWork {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final ThreadLocal<Scope> current = new ThreadLocal<>();
+    private final LongAdder commits = new LongAdder();
+
+    public <R> R call(Function<EntityManager, R> work) {
+        Scope scope = current.get();
+        if (scope != null) {
+            return work.apply(scope.entityManager);
+        }
+        scope = new Scope(entityManagerFactory.createEntityManager());
+        current.set(scope);
+        try {
+            return work.apply(scope.entityManager);
+        } finally {
+            current.remove();
+            close(scope);
+        }
+    }
+
+    public void run(Consumer<EntityManager> work) {
+        call(entityManager -> {
+            work.accept(entityManager);
+            return null;
+        });
+    }
+
+    public boolean isActive() {
+        return current.get() != null;
+    }
+
+    /**
+     * Unbinds the current scope, if any, so the next {@code call} starts a fresh one.
+     * The returned value must be handed back to {@link #resume(Scope)}.
+     */
+    Scope suspend() {
+        Scope scope = current.get();
+        current.remove();
+        return scope;
+    }
+
+    void resume(Scope scope) {
+        if (scope != null) {
+            current.set(scope);
+        }
+    }
+
+    /**
+     * Queues {@code callback} to run once the transaction of the current scope commits, or runs it
+     * right away when no transaction is active. Callbacks are dropped if the transaction rolls back.
+     */
+    void afterCommit(Runnable callback) {
+        Scope scope = current.get();
+        if (scope == null || !scope.entityManager.getTransaction().isActive()) {
+            callback.run();
+            return;
+        }
+        scope.afterCommit.add(callback);
+    }
+
+    List<Runnable> drainAfterCommit() {
+        Scope scope = current.get();
+        if (scope == null || scope.afterCommit.isEmpty()) {
+            return List.of();
+        }
+        List<Runnable> callbacks = new ArrayList<>(scope.afterCommit);
+        scope.afterCommit.clear();
+        return callbacks;
+    }
+
+    /**
+     * Queues {@code callback} to run if the transaction of the current scope rolls back, whoever
+     * rolls it back; used to undo in-memory state taken for the transaction. Callbacks are dropped
+     * when the transaction commits, and ignored when no transaction is active.
+     */
+    void afterRollback(Runnable callback) {
+        Scope scope = current.get();
+        if (scope == null || !scope.entityManager.getTransaction().isActive()) {
+            return;
+        }
+        scope.afterRollback.add(callback);
+    }
+
+    List<Runnable> drainAfterRollback() {
+        Scope scope = current.get();
+        return scope == null ? List.of() : drainAfterRollback(scope);
+    }
+
+    private static List<Runnable> drainAfterRollback(Scope scope) {
+        if (scope.afterRollback.isEmpty()) {
+            return List.of();
+        }
+        List<Runnable> callbacks = new ArrayList<>(scope.afterRollback);
+        scope.afterRollback.clear();
+        return callbacks;
+    }
+
+    /**
+     * Runs the callbacks of a rolled back transaction, logging rather than propagating failures so
+     * they can't hide the reason for the rollback.
+     */
+    static void runAll(List<Runnable> callbacks, String what) {
+        for (Runnable callback : callbacks) {
+            try {
+                callback.run();
+            } catch (RuntimeException e) {
+                log.error("{} callback failed", what, e);
+            }
+        }
+    }
+
+    void recordCommit() {
+        commits.increment();
+    }
+
+    public long getCommitCount() {
+        return commits.sum();
+    }
+
+    public EntityManagerFactory getEntityManagerFactory() {
+        return entityManagerFactory;
+    }
+
+    static final class Scope {
+        private final EntityManager entityManager;
+        private final List<Runnable> afterCommit = new ArrayList<>();
+        private final List<Runnable> afterRollback = new ArrayList<>();
+
+        private Scope(EntityManager entityManager) {
+            this.entityManager = entityManager;
+        }
+    }
+
+    private void close(Scope scope) {
+        EntityManager entityManager = scope.entityManager;
+        try {
+            EntityTransaction transaction = entityManager.getTransaction();
+            if (transaction.isActive()) {
+                log.warn("Unit of work ended with an open transaction rolling it back");
+                transaction.rollback();
+                runAll(drainAfterRollback(scope), "After-rollback");
+            }
+            entityManager.clear();
+        } finally {
+            entityManager.close();
+        }
+    }
+}
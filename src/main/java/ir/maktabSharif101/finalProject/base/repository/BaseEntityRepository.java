@@ -3,22 +3,46 @@ package ir.maktabSharif101.finalProject.base.repository;
 import ir.maktabSharif101.finalProject.base.entity.BaseEntity;
 
 import java.io.Serializable;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 @SuppressWarnings("unused")
 public interface BaseEntityRepository<T extends BaseEntity<ID>,ID extends Serializable> {
 
+    int MAX_PAGE_SIZE = 1000;
+
+    /**
+     * Persists a new entity and returns it, or merges one that has an id and returns the managed
+     * copy. Keep using the returned instance: the argument keeps its old version.
+     */
     T save(T t);
+
+    /**
+     * Saves every entity in one transaction using JDBC batching. The persistence context is
+     * flushed and cleared every batch, so entities loaded earlier in the same unit of work
+     * become detached. Returns the saved instances in order, like {@link #save}.
+     */
+    List<T> saveAll(Collection<T> entities);
     List<T> findAll();
+
+    /**
+     * Keyset page ordered by id: at most {@code pageSize} (capped at {@link #MAX_PAGE_SIZE})
+     * entities whose id is greater than {@code lastSeenId}. Pass {@code null} for the first page.
+     */
+    List<T> findPage(ID lastSeenId, int pageSize);
+
+    /**
+     * Streams every entity ordered by id through a forward-only cursor. Rows are detached once
+     * the stream moves past them, and the stream is closed when {@code action} returns.
+     */
+    <R> R streamAll(Function<Stream<T>, R> action);
     long count();
     Optional<T> findById(ID id);
     void deleteAll();
     void deleteById(ID id);
     boolean existsById(ID id);
 
-    void beginTransaction();
-    void commitTransaction();
-    void rollbackTransaction();
-
 }
\ No newline at end of file
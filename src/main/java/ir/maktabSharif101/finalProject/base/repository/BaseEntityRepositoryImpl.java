@@ -1,102 +1,199 @@
 package ir.maktabSharif101.finalProject.base.repository;
 
 import ir.maktabSharif101.finalProject.base.entity.BaseEntity;
-import lombok.RequiredArgsConstructor;
+import ir.maktabSharif101.finalProject.base.persistence.TransactionTemplate;
+import ir.maktabSharif101.finalProject.base.persistence.UnitOfWork;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
 
-import javax.persistence.EntityManager;
-import javax.persistence.EntityTransaction;
 import javax.persistence.TypedQuery;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-@RequiredArgsConstructor
 @SuppressWarnings("unused")
 public abstract class BaseEntityRepositoryImpl<T extends BaseEntity<ID>, ID extends Serializable>
         implements BaseEntityRepository<T, ID> {
 
-    protected final EntityManager entityManager;
+    protected static final int STREAM_FETCH_SIZE = 500;
+    private static final int DEFAULT_BATCH_SIZE = 50;
+
+    protected final UnitOfWork unitOfWork;
+    protected final TransactionTemplate transactionTemplate;
+    protected final QueryRegistry queries;
+    private final int batchSize;
+
+    private final String findAllQuery;
+    private final String findFirstPageQuery;
+    private final String findPageQuery;
+    private final String countQuery;
+    private final String existsByIdQuery;
+    private final String deleteAllQuery;
+
+    protected BaseEntityRepositoryImpl(UnitOfWork unitOfWork) {
+        this.unitOfWork = unitOfWork;
+        this.transactionTemplate = new TransactionTemplate(unitOfWork);
+        Object configured = unitOfWork.getEntityManagerFactory().getProperties().get("hibernate.jdbc.batch_size");
+        this.batchSize = configured == null ? DEFAULT_BATCH_SIZE : Integer.parseInt(configured.toString());
+        this.queries = new QueryRegistry(unitOfWork.getEntityManagerFactory(), getEntityClass());
+        this.findAllQuery = queries.register("findAll", "from {entity}");
+        this.findFirstPageQuery = queries.register("findFirstPage", "from {entity} t order by t.id");
+        this.findPageQuery = queries.register("findPage",
+                "from {entity} t where t.id > :lastSeenId order by t.id");
+        this.countQuery = queries.register("count", "select count (t) from {entity} t");
+        this.existsByIdQuery = queries.register("existsById", "select count (t) from {entity} t where t.id = :id");
+        this.deleteAllQuery = queries.register("deleteAll", "delete from {entity}");
+    }
 
     @Override
     public T save(T t) {
-        beginTransaction();
-        if (t.getId() == null) {
-            entityManager.persist(t);
-        } else {
-            entityManager.merge(t);
-        }
-        commitTransaction();
-        return t;
+        return unitOfWork.call(entityManager -> transactionTemplate.execute(() -> {
+            if (t.getId() == null) {
+                entityManager.persist(t);
+                return t;
+            }
+            return entityManager.merge(t);
+        }));
+    }
+
+    @Override
+    public List<T> saveAll(Collection<T> entities) {
+        return unitOfWork.call(entityManager -> transactionTemplate.execute(() -> {
+            List<T> saved = new ArrayList<>(entities.size());
+            for (T t : entities) {
+                if (t.getId() == null) {
+                    entityManager.persist(t);
+                    saved.add(t);
+                } else {
+                    saved.add(entityManager.merge(t));
+                }
+                if (saved.size() % batchSize == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+            return saved;
+        }));
     }
 
     @Override
     public List<T> findAll() {
-        TypedQuery<T> query = entityManager.createQuery("from " +
-                getEntityClass().getSimpleName(), getEntityClass());
-        return query.getResultList();
+        return unitOfWork.call(entityManager ->
+                entityManager.createNamedQuery(findAllQuery, getEntityClass()).getResultList());
     }
 
+    @Override
+    public List<T> findPage(ID lastSeenId, int pageSize) {
+        int limit = Math.min(Math.max(pageSize, 1), MAX_PAGE_SIZE);
+        return unitOfWork.call(entityManager -> {
+            TypedQuery<T> query;
+            if (lastSeenId == null) {
+                query = entityManager.createNamedQuery(findFirstPageQuery, getEntityClass());
+            } else {
+                query = entityManager.createNamedQuery(findPageQuery, getEntityClass());
+                query.setParameter("lastSeenId", lastSeenId);
+            }
+            return query.setMaxResults(limit).getResultList();
+        });
+    }
+
+    @Override
+    public <R> R streamAll(Function<Stream<T>, R> action) {
+        boolean ownsContext = !unitOfWork.isActive();
+        return unitOfWork.call(entityManager -> transactionTemplate.executeReadOnly(() -> {
+            Session session = entityManager.unwrap(Session.class);
+            ScrollableResults results = session.createNamedQuery(findFirstPageQuery, getEntityClass())
+                    .setFetchSize(STREAM_FETCH_SIZE)
+                    .setReadOnly(true)
+                    .scroll(ScrollMode.FORWARD_ONLY);
+            try (Stream<T> stream = StreamSupport.stream(
+                    new DetachingSpliterator(session, results, ownsContext), false)) {
+                return action.apply(stream);
+            } finally {
+                results.close();
+            }
+        }));
+    }
 
     @Override
     public long count() {
-        return entityManager.createQuery("select count (t) from " +
-                getEntityClass().getSimpleName() + " t", Long.class).getSingleResult();
+        return unitOfWork.call(entityManager ->
+                entityManager.createNamedQuery(countQuery, Long.class).getSingleResult());
     }
 
     @Override
     public Optional<T> findById(ID id) {
-        return Optional.ofNullable(
+        return unitOfWork.call(entityManager -> Optional.ofNullable(
                 entityManager.find(getEntityClass(), id)
-        );
+        ));
     }
 
     @Override
     public void deleteAll() {
-        beginTransaction();
-        entityManager.createQuery("delete from " + getEntityClass().getSimpleName()).executeUpdate();
-        commitTransaction();
+        unitOfWork.run(entityManager -> transactionTemplate.run(() ->
+                entityManager.createNamedQuery(deleteAllQuery).executeUpdate()
+        ));
     }
 
     @Override
     public void deleteById(ID id) {
-        beginTransaction();
-        Optional<T> optional = findById(id);
-        optional.ifPresent(entityManager::remove);
-        commitTransaction();
+        unitOfWork.run(entityManager -> transactionTemplate.run(() -> {
+            Optional<T> optional = findById(id);
+            optional.ifPresent(entityManager::remove);
+        }));
     }
 
     @Override
     public boolean existsById(ID id) {
-        TypedQuery<Long> query = entityManager.createQuery("select count (t) from " +
-                getEntityClass().getSimpleName() + " t where t.id = :id", Long.class);
-
-        query.setParameter("id", id);
-        return query.getSingleResult() > 0;
+        return unitOfWork.call(entityManager -> {
+            TypedQuery<Long> query = entityManager.createNamedQuery(existsByIdQuery, Long.class);
+            query.setParameter("id", id);
+            return query.getSingleResult() > 0;
+        });
     }
 
-    @Override
-    public void beginTransaction() {
-        EntityTransaction transaction = entityManager.getTransaction();
-        if (!transaction.isActive()) {
-            transaction.begin();
-        }
-    }
+    protected abstract Class<T> getEntityClass();
 
-    @Override
-    public void commitTransaction() {
-        EntityTransaction transaction = entityManager.getTransaction();
-        if (transaction.isActive()) {
-            transaction.commit();
+    /**
+     * Hands out one row at a time and detaches it once the consumer is done with it. When the
+     * stream owns its persistence context it is also cleared every fetch, which drops the eagerly
+     * loaded associations the per-row detach leaves behind.
+     */
+    private class DetachingSpliterator extends Spliterators.AbstractSpliterator<T> {
+        private final Session session;
+        private final ScrollableResults results;
+        private final boolean clearContext;
+        private int rows;
+
+        DetachingSpliterator(Session session, ScrollableResults results, boolean clearContext) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.session = session;
+            this.results = results;
+            this.clearContext = clearContext;
         }
-    }
 
-    @Override
-    public void rollbackTransaction() {
-        EntityTransaction transaction = entityManager.getTransaction();
-        if (transaction.isActive()) {
-            transaction.rollback();
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (!results.next()) {
+                return false;
+            }
+            T entity = getEntityClass().cast(results.get(0));
+            action.accept(entity);
+            if (clearContext && ++rows % STREAM_FETCH_SIZE == 0) {
+                session.clear();
+            } else {
+                session.detach(entity);
+            }
+            return true;
         }
     }
-
-    protected abstract Class<T> getEntityClass();
 }
@@ -0,0 +1,38 @@
+package ir.maktabSharif101.finalProject.base.repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Named queries of one entity. Each is registered on the entity manager factory once, when the
+ * repository is built, so a call looks its query up by a constant name instead of concatenating
+ * the JPQL and hashing a fresh string into Hibernate's plan cache. A query that doesn't parse
+ * fails at startup rather than on first use.
+ * <p>
+ * Names are {@code <Entity>.<query>}; {@code {entity}} in the JPQL stands for the entity name.
+ */
+public final class QueryRegistry {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final String entityName;
+
+    public QueryRegistry(EntityManagerFactory entityManagerFactory, Class<?> entityClass) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.entityName = entityClass.getSimpleName();
+    }
+
+    /**
+     * Registers {@code jpql} and returns the name to pass to {@code createNamedQuery}.
+     */
+    public String register(String query, String jpql) {
+        String name = entityName + "." + query;
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            entityManagerFactory.addNamedQuery(name,
+                    entityManager.createQuery(jpql.replace("{entity}", entityName)));
+        } finally {
+            entityManager.close();
+        }
+        return name;
+    }
+}
@@ -3,12 +3,18 @@ package ir.maktabSharif101.finalProject.base.service;
 import ir.maktabSharif101.finalProject.base.entity.BaseEntity;
 
 import java.io.Serializable;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 public interface BaseEntityService<T extends BaseEntity<ID>, ID extends Serializable> {
     T save(T t);
+    List<T> saveAll(Collection<T> entities);
     List<T> findAll();
+    List<T> findPage(ID lastSeenId, int pageSize);
+    <R> R streamAll(Function<Stream<T>, R> action);
     long count();
     Optional<T> findById(ID id);
     void deleteAll();
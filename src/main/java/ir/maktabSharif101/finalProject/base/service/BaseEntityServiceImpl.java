@@ -1,29 +1,55 @@
 package ir.maktabSharif101.finalProject.base.service;
 import ir.maktabSharif101.finalProject.base.entity.BaseEntity;
+import ir.maktabSharif101.finalProject.base.persistence.TransactionTemplate;
+import ir.maktabSharif101.finalProject.base.persistence.UnitOfWork;
 import ir.maktabSharif101.finalProject.base.repository.BaseEntityRepository;
-import lombok.RequiredArgsConstructor;
 
 import java.io.Serializable;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
-@RequiredArgsConstructor
 public abstract class BaseEntityServiceImpl<T extends BaseEntity<ID>, ID extends Serializable,
         R extends BaseEntityRepository<T, ID>>
         implements BaseEntityService<T, ID> {
 
     protected final R baseRepository;
+    protected final UnitOfWork unitOfWork;
+    protected final TransactionTemplate transactionTemplate;
+
+    protected BaseEntityServiceImpl(R baseRepository, UnitOfWork unitOfWork) {
+        this.baseRepository = baseRepository;
+        this.unitOfWork = unitOfWork;
+        this.transactionTemplate = new TransactionTemplate(unitOfWork);
+    }
 
     @Override
     public T save(T t) {
         return baseRepository.save(t);
     }
 
+    @Override
+    public List<T> saveAll(Collection<T> entities) {
+        return baseRepository.saveAll(entities);
+    }
+
     @Override
     public List<T> findAll() {
         return baseRepository.findAll();
     }
 
+    @Override
+    public List<T> findPage(ID lastSeenId, int pageSize) {
+        return baseRepository.findPage(lastSeenId, pageSize);
+    }
+
+    @Override
+    public <R> R streamAll(Function<Stream<T>, R> action) {
+        return baseRepository.streamAll(action);
+    }
+
     @Override
     public long count() {
         return baseRepository.count();
@@ -2,6 +2,7 @@ package ir.maktabSharif101.finalProject.entity;
 
 import lombok.*;
 
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
@@ -15,7 +16,12 @@ import java.util.List;
 @Entity
 @Table(name = "customer")
 public class Customer extends User {
-    private double balance = 0;
+    /**
+     * Minor units, as of the last ledger snapshot; the ledger holds the running balance. Only the
+     * snapshot writes it, so saving an entity loaded earlier can't put an old balance back.
+     */
+    @Column(updatable = false)
+    private long balance = 0;
     @OneToMany(mappedBy = "customer")
     private List<Order> orders;
 
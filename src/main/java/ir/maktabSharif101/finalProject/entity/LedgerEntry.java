@@ -0,0 +1,30 @@
+package ir.maktabSharif101.finalProject.entity;
+
+import ir.maktabSharif101.finalProject.base.entity.BaseEntity;
+import ir.maktabSharif101.finalProject.entity.enums.LedgerAccountType;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One posting to a customer or technician account. Entries are only ever inserted; an account's
+ * balance is the sum of its amounts, in minor units (see {@code Ledger}).
+ */
+@Getter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Immutable
+@Table(name = "ledger_entry")
+public class LedgerEntry extends BaseEntity<Long> {
+
+    @Enumerated(EnumType.STRING)
+    private LedgerAccountType accountType;
+    private long accountId;
+    private long amount;
+    private String description;
+    private LocalDateTime postedAt;
+}
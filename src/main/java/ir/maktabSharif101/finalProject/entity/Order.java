@@ -32,4 +32,17 @@ public class Order extends BaseEntity<Long> {
     private List<Suggestion> suggestions= new ArrayList<>();
     @ManyToOne
     private SubServices subServices;
+    /**
+     * Whose suggestion the customer accepted; null until then.
+     */
+    @ManyToOne
+    private Technician technician;
+    /**
+     * The window the technician committed to, from the accepted suggestion; null until then.
+     */
+    private LocalDateTime scheduledStart;
+    private LocalDateTime scheduledEnd;
+    @Version
+    @Column(columnDefinition = "bigint default 0")
+    private Long version;
 }
@@ -0,0 +1,45 @@
+package ir.maktabSharif101.finalProject.entity;
+
+import ir.maktabSharif101.finalProject.base.entity.BaseEntity;
+import ir.maktabSharif101.finalProject.entity.enums.EventType;
+import lombok.*;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A change waiting to be relayed to subscribers. Written in the same transaction as the change
+ * itself and deleted once delivered; {@link #seq} gives the delivery order.
+ */
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "outbox_event")
+public class OutboxEvent extends BaseEntity<Long> {
+
+    private String aggregateType;
+    private Long aggregateId;
+    @Enumerated(EnumType.STRING)
+    private EventType eventType;
+    private String payload;
+    private LocalDateTime createdAt;
+    /**
+     * Assigned by the database on insert, in insert order, whichever process or thread wrote the
+     * event. Ids can't order events: they come from pooled blocks handed out per session factory.
+     * Not read back after the insert, so null on an event that was just recorded.
+     */
+    @Column(insertable = false, updatable = false, columnDefinition = "bigserial")
+    private Long seq;
+
+    public OutboxEvent(String aggregateType, Long aggregateId, EventType eventType, String payload,
+                       LocalDateTime createdAt) {
+        this.aggregateType = aggregateType;
+        this.aggregateId = aggregateId;
+        this.eventType = eventType;
+        this.payload = payload;
+        this.createdAt = createdAt;
+    }
+}
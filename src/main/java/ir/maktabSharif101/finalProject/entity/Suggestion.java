@@ -1,11 +1,16 @@
 package ir.maktabSharif101.finalProject.entity;
 
 import ir.maktabSharif101.finalProject.base.entity.BaseEntity;
+import ir.maktabSharif101.finalProject.entity.converter.JobDurationConverter;
 import lombok.*;
 
+import javax.persistence.Column;
+import javax.persistence.Convert;
 import javax.persistence.Entity;
 import javax.persistence.ManyToOne;
 import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import java.time.Duration;
 import java.time.LocalTime;
 import java.util.Date;
 
@@ -15,13 +20,16 @@ import java.util.Date;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "suggestion")
+@Table(name = "suggestion", uniqueConstraints = @UniqueConstraint(name = "uk_suggestion_technician_order",
+        columnNames = {"technician_id", "order_id"}))
 public class Suggestion extends BaseEntity<Long> {
 
     private Date suggestionDate;
     private double suggestedPrice;
     private LocalTime suggestedTime;
-    private String Duration;
+    @Column(name = "Duration")
+    @Convert(converter = JobDurationConverter.class)
+    private Duration duration;
 
     @ManyToOne
     private Technician technician;
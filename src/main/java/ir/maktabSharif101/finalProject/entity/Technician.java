@@ -17,11 +17,25 @@ import java.util.List;
 public class Technician extends User {
     @Enumerated(EnumType.STRING)
     private TechnicianStatus status;
+    /**
+     * Rating aggregate: the mean ({@code ratingSum / ratingCount}) and an exponentially decayed
+     * recent score. Only the single-statement update in {@code TechnicianRepository#addRating}
+     * changes these, so saving an entity loaded earlier can't roll a rating back.
+     */
+    @Column(updatable = false)
     private double score;
-    private double balance;
-
-    @Column(name = "image_data", columnDefinition = "bytea")
-    private byte[] imageData;
+    @Column(updatable = false)
+    private long ratingCount;
+    @Column(updatable = false)
+    private double ratingSum;
+    @Column(updatable = false)
+    private double recentScore;
+    /**
+     * Minor units, as of the last ledger snapshot; the ledger holds the running balance. Only the
+     * snapshot writes it, so saving an entity loaded earlier can't put an old balance back.
+     */
+    @Column(updatable = false)
+    private long balance;
 
     @ManyToMany
     @JoinTable(
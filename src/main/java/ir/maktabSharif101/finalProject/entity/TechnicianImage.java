@@ -0,0 +1,25 @@
+package ir.maktabSharif101.finalProject.entity;
+
+import ir.maktabSharif101.finalProject.base.entity.BaseEntity;
+import lombok.*;
+
+import javax.persistence.*;
+
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "technician_image")
+public class TechnicianImage extends BaseEntity<Long> {
+
+    @OneToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "technician_id", unique = true, nullable = false)
+    @ToString.Exclude
+    private Technician technician;
+
+    @Column(name = "image_data", columnDefinition = "bytea")
+    @ToString.Exclude
+    private byte[] imageData;
+}
@@ -22,6 +22,7 @@ public abstract class User extends BaseEntity<Long> {
     @Column(unique = true)
     private String emailAddress;
     @NotNull
+    @ToString.Exclude
     private String password;
     private LocalDateTime registerDate= LocalDateTime.now();
 
@@ -0,0 +1,34 @@
+package ir.maktabSharif101.finalProject.entity.converter;
+
+import ir.maktabSharif101.finalProject.utils.JobDurations;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+import java.time.Duration;
+
+/**
+ * Keeps a job duration in its varchar column in the {@link JobDurations} format. Text that was
+ * stored before durations were typed and can't be read comes back as null.
+ */
+@Slf4j
+@Converter
+public class JobDurationConverter implements AttributeConverter<Duration, String> {
+
+    @Override
+    public String convertToDatabaseColumn(Duration duration) {
+        return duration == null ? null : JobDurations.format(duration);
+    }
+
+    @Override
+    public Duration convertToEntityAttribute(String text) {
+        if (text == null) {
+            return null;
+        }
+        Duration duration = JobDurations.parse(text).orElse(null);
+        if (duration == null) {
+            log.warn("Can't read [{}] as a job duration", text);
+        }
+        return duration;
+    }
+}
@@ -0,0 +1,5 @@
+package ir.maktabSharif101.finalProject.entity.enums;
+
+public enum EventType {
+    ORDER_SUBMITTED,ORDER_STATUS_CHANGED,SUGGESTION_SUBMITTED,TECHNICIAN_CONFIRMED,ORDER_RATED
+}
@@ -0,0 +1,5 @@
+package ir.maktabSharif101.finalProject.entity.enums;
+
+public enum LedgerAccountType {
+    CUSTOMER,TECHNICIAN
+}
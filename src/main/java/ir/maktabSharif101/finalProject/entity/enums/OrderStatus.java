@@ -1,5 +1,21 @@
 package ir.maktabSharif101.finalProject.entity.enums;
 
 public enum OrderStatus {
-    AWAITING_TECHNICIAN_SUGGESTION,AWAITING_TECHNICIAN,AWAITING_TECHNICIAN_ARRIVAL,STARTED,FINISHED,PAID
+    AWAITING_TECHNICIAN_SUGGESTION,AWAITING_TECHNICIAN,AWAITING_TECHNICIAN_ARRIVAL,STARTED,FINISHED,PAID;
+
+    /**
+     * An order only moves forward through the lifecycle, one step at a time. The one exception is
+     * AWAITING_TECHNICIAN, which may fall back to AWAITING_TECHNICIAN_SUGGESTION when the customer
+     * turns every offer down. AWAITING_TECHNICIAN to AWAITING_TECHNICIAN_ARRIVAL is not a plain
+     * status change: it assigns and books a technician, so only accepting a suggestion makes it.
+     */
+    public boolean canMoveTo(OrderStatus next) {
+        if (this == AWAITING_TECHNICIAN && next == AWAITING_TECHNICIAN_SUGGESTION) {
+            return true;
+        }
+        if (this == AWAITING_TECHNICIAN && next == AWAITING_TECHNICIAN_ARRIVAL) {
+            return false;
+        }
+        return next.ordinal() == ordinal() + 1;
+    }
 }
@@ -0,0 +1,5 @@
+package ir.maktabSharif101.finalProject.entity.enums;
+
+public enum UserRole {
+    CUSTOMER,TECHNICIAN,MANAGER
+}
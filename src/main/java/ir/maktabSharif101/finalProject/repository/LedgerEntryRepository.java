@@ -0,0 +1,22 @@
+package ir.maktabSharif101.finalProject.repository;
+
+import ir.maktabSharif101.finalProject.base.repository.BaseEntityRepository;
+import ir.maktabSharif101.finalProject.entity.LedgerEntry;
+import ir.maktabSharif101.finalProject.entity.enums.LedgerAccountType;
+
+import java.util.Map;
+
+public interface LedgerEntryRepository extends BaseEntityRepository<LedgerEntry,Long> {
+    /**
+     * Account id to the sum of its entries, for every account of the type that has any.
+     */
+    Map<Long, Long> sumByAccount(LedgerAccountType accountType);
+
+    long sumForAccount(LedgerAccountType accountType, long accountId);
+
+    /**
+     * Writes account id to balance into the {@code balance} column of the customer or technician
+     * table, in one JDBC batch.
+     */
+    void updateBalances(LedgerAccountType accountType, Map<Long, Long> balances);
+}
@@ -2,6 +2,95 @@ package ir.maktabSharif101.finalProject.repository;
 
 import ir.maktabSharif101.finalProject.base.repository.BaseEntityRepository;
 import ir.maktabSharif101.finalProject.entity.Order;
+import ir.maktabSharif101.finalProject.entity.enums.OrderStatus;
+import ir.maktabSharif101.finalProject.service.dto.OrderDetails;
+import ir.maktabSharif101.finalProject.service.dto.OrderState;
+import ir.maktabSharif101.finalProject.service.dto.OrderSummary;
+import ir.maktabSharif101.finalProject.service.dto.RatingAggregate;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 public interface OrderRepository extends BaseEntityRepository<Order,Long> {
+    /**
+     * Moves the given orders from {@code from} to {@code to}; orders in any other status are left
+     * alone. Returns how many rows changed.
+     */
+    int updateStatus(Collection<Long> orderIds, OrderStatus from, OrderStatus to);
+
+    Optional<OrderState> findState(Long orderId);
+
+    /**
+     * The price the customer owes for the order: the accepted suggestion's, once there is one.
+     */
+    Optional<Double> findPrice(Long orderId);
+
+    /**
+     * Locks the given orders' rows until the current transaction ends, in id order, and returns
+     * their statuses; orders that don't exist are left out. Must run inside a transaction.
+     */
+    Map<Long, OrderStatus> lockStatuses(Collection<Long> orderIds);
+
+    /**
+     * Sets the status to {@code to} and bumps the version, but only if the row still has
+     * {@code expected}'s status and version. Returns false if someone else changed it first.
+     */
+    boolean compareAndSetStatus(OrderState expected, OrderStatus to);
+
+    /**
+     * A customer's orders, newest first: at most {@code pageSize} (capped at {@link #MAX_PAGE_SIZE})
+     * orders whose id is below {@code lastSeenId}. Pass {@code null} for the first page. Runs two
+     * queries (the page, then its suggestion counts); results are plain records and never enter
+     * the persistence context.
+     */
+    List<OrderSummary> findSummariesByCustomer(Long customerId, Long lastSeenId, int pageSize);
+
+    /**
+     * Orders for a sub service in the given status, oldest first, paged by id like
+     * {@link #findPage}.
+     */
+    List<OrderSummary> findSummariesBySubService(Long subServiceId, OrderStatus status, Long lastSeenId,
+                                                 int pageSize);
+
+    Optional<OrderDetails> findDetails(Long orderId);
+
+    /**
+     * The order's date and time, if it is the customer's and currently in {@code status}.
+     */
+    Optional<LocalDateTime> findDateAndTime(long orderId, long customerId, OrderStatus status);
+
+    /**
+     * Gives the customer's AWAITING_TECHNICIAN order to the technician at {@code price} for
+     * [start, end) and moves it to AWAITING_TECHNICIAN_ARRIVAL, in one conditional update. Returns
+     * false if the order is not the customer's or is no longer waiting for a technician.
+     */
+    boolean assignTechnician(long orderId, long customerId, long technicianId, double price,
+                             LocalDateTime start, LocalDateTime end);
+
+    /**
+     * Streams the scheduled window of every order that has a technician and ends after
+     * {@code endingAfter}, without loading entities.
+     */
+    void forEachBooking(LocalDateTime endingAfter, BookingConsumer action);
+
+    /**
+     * Stores the customer's points and comment on their FINISHED or PAID order if it has no rating
+     * yet, in one conditional update, and returns the technician the rating is for. Empty if
+     * nothing was rated.
+     */
+    Optional<Long> rate(long orderId, long customerId, double point, String comment);
+
+    /**
+     * The ratings of the technicians with ids in {@code [fromTechnicianId, toTechnicianId]},
+     * computed from their rated orders; technicians without any are left out.
+     */
+    List<RatingAggregate> aggregateRatings(long fromTechnicianId, long toTechnicianId);
+
+    @FunctionalInterface
+    interface BookingConsumer {
+        void accept(long technicianId, LocalDateTime start, LocalDateTime end);
+    }
 }
@@ -0,0 +1,22 @@
+package ir.maktabSharif101.finalProject.repository;
+
+import ir.maktabSharif101.finalProject.base.repository.BaseEntityRepository;
+import ir.maktabSharif101.finalProject.entity.OutboxEvent;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface OutboxEventRepository extends BaseEntityRepository<OutboxEvent,Long> {
+    /**
+     * The {@code limit} oldest pending events, in the order they were written ({@code seq}).
+     */
+    List<OutboxEvent> findOldest(int limit);
+
+    int deleteByIds(Collection<Long> ids);
+
+    long countPending();
+
+    Optional<LocalDateTime> findOldestCreatedAt();
+}
@@ -2,6 +2,30 @@ package ir.maktabSharif101.finalProject.repository;
 
 import ir.maktabSharif101.finalProject.base.repository.BaseEntityRepository;
 import ir.maktabSharif101.finalProject.entity.Suggestion;
+import ir.maktabSharif101.finalProject.service.dto.SuggestionOffer;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 public interface SuggestionRepository extends BaseEntityRepository<Suggestion,Long> {
+    /**
+     * A new suggestion pointing at the given technician and order without loading either; it must
+     * be saved within the same unit of work.
+     */
+    Suggestion newSuggestion(Long technicianId, Long orderId);
+    List<SuggestionOffer> findTopOffers(Long orderId, int limit);
+
+    /**
+     * For each of the given orders that already has a suggestion from one of the given
+     * technicians, the ids of those technicians.
+     */
+    Map<Long, Set<Long>> findBidders(Collection<Long> orderIds, Collection<Long> technicianIds);
+
+    /**
+     * The suggestion as an offer, if it was made on {@code orderId}.
+     */
+    Optional<SuggestionOffer> findOffer(Long orderId, Long suggestionId);
 }
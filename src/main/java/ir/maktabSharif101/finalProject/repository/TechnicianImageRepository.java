@@ -0,0 +1,17 @@
+package ir.maktabSharif101.finalProject.repository;
+
+import ir.maktabSharif101.finalProject.base.repository.BaseEntityRepository;
+import ir.maktabSharif101.finalProject.entity.TechnicianImage;
+
+import java.io.OutputStream;
+import java.util.Optional;
+
+public interface TechnicianImageRepository extends BaseEntityRepository<TechnicianImage, Long> {
+    Optional<byte[]> findImageDataByTechnicianId(Long technicianId);
+
+    /**
+     * Copies the technician's photo into {@code target} from the JDBC result set's binary stream,
+     * without building a {@code byte[]} of it. Returns false if the technician has no photo.
+     */
+    boolean copyImageData(Long technicianId, OutputStream target);
+}
@@ -1,8 +1,43 @@
 package ir.maktabSharif101.finalProject.repository;
 
 import ir.maktabSharif101.finalProject.entity.Technician;
+import ir.maktabSharif101.finalProject.entity.enums.TechnicianStatus;
 import ir.maktabSharif101.finalProject.repository.base.BaseUserRepository;
+import ir.maktabSharif101.finalProject.service.dto.RatingAggregate;
+
+import java.util.List;
+import java.util.Optional;
 
 public interface TechnicianRepository extends BaseUserRepository<Technician> {
+    boolean addSubService(Long technicianId, Long subServiceId);
+
+    /**
+     * The technician's status, read with a row lock held until the current transaction ends, so a
+     * concurrent status change either waits for the caller or is already visible to it.
+     */
+    Optional<TechnicianStatus> lockStatus(Long technicianId);
+    boolean removeSubService(Long technicianId, Long subServiceId);
+    void forEachSubServiceLink(SubServiceLinkConsumer action);
+
+    /**
+     * Adds one rating in a single update: the count and sum go up, the mean is recomputed from them
+     * and the recent score moves {@code recentWeight} of the way towards {@code point}.
+     */
+    boolean addRating(long technicianId, double point, double recentWeight);
+
+    /**
+     * Stored rating aggregates, ordered by technician id and paged like {@link #findPage}.
+     */
+    List<RatingAggregate> findRatingAggregates(Long lastSeenId, int pageSize);
+
+    /**
+     * Overwrites a technician's count, sum and mean with {@code actual}, but only if they still
+     * hold {@code expected}. Returns false if a rating landed in between.
+     */
+    boolean correctRating(RatingAggregate expected, RatingAggregate actual);
 
+    @FunctionalInterface
+    interface SubServiceLinkConsumer {
+        void accept(long subServiceId, long technicianId, TechnicianStatus status);
+    }
 }
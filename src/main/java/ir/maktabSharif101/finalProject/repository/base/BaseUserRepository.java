@@ -4,9 +4,11 @@ import ir.maktabSharif101.finalProject.base.repository.BaseEntityRepository;
 import ir.maktabSharif101.finalProject.entity.User;
 
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface BaseUserRepository<T extends User> extends BaseEntityRepository<T,Long> {
     boolean existsByEmailAddress(String emailAddress);
     Optional<T> findByEmailAddress(String emailAddress);
-    boolean existsByEmailAndPass(String emailAddress, String password);
+    void forEachEmailAddress(Consumer<String> action);
+    boolean updatePassword(Long id, String expectedPassword, String newPassword);
 }
@@ -1,50 +1,80 @@
 package ir.maktabSharif101.finalProject.repository.base;
 
+import ir.maktabSharif101.finalProject.base.persistence.UnitOfWork;
 import ir.maktabSharif101.finalProject.base.repository.BaseEntityRepositoryImpl;
-import ir.maktabSharif101.finalProject.entity.MainServices;
 import ir.maktabSharif101.finalProject.entity.User;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
 
-import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public abstract class BaseUserRepositoryImpl<T extends User> extends BaseEntityRepositoryImpl<T, Long> implements
         BaseUserRepository<T> {
-    public BaseUserRepositoryImpl(EntityManager entityManager) {
-        super(entityManager);
+    private final String existsByEmailAddressQuery;
+    private final String findByEmailAddressQuery;
+    private final String emailAddressesQuery;
+    private final String updatePasswordQuery;
+
+    public BaseUserRepositoryImpl(UnitOfWork unitOfWork) {
+        super(unitOfWork);
+        this.existsByEmailAddressQuery = queries.register("existsByEmailAddress",
+                "select count(s) from {entity} s where s.emailAddress = :email");
+        this.findByEmailAddressQuery = queries.register("findByEmailAddress",
+                "select s from {entity} s where s.emailAddress = :email");
+        this.emailAddressesQuery = queries.register("emailAddresses", "select s.emailAddress from {entity} s");
+        this.updatePasswordQuery = queries.register("updatePassword", "update {entity} s set s.password = :newPassword"
+                + " where s.id = :id and s.password = :expectedPassword");
     }
 
     @Override
     public boolean existsByEmailAddress(String emailAddress) {
-        TypedQuery<Long> query = entityManager.createQuery(
-                "select count(s) from " + getEntityClass().getSimpleName() + " s where s.emailAddress = :email",
-                Long.class
-        );
-        query.setParameter("email", emailAddress);
-        return query.getSingleResult() > 0;
+        return unitOfWork.call(entityManager -> {
+            TypedQuery<Long> query = entityManager.createNamedQuery(existsByEmailAddressQuery, Long.class);
+            query.setParameter("email", emailAddress);
+            return query.getSingleResult() > 0;
+        });
     }
 
     @Override
     public Optional<T> findByEmailAddress(String emailAddress) {
-        TypedQuery<T> query = entityManager.createQuery(
-                "select s from " + getEntityClass().getSimpleName() + " s where s.emailAddress = :email",
-                getEntityClass()
-        );
-        query.setParameter("email", emailAddress);
-        List<T> resultList = query.getResultList();
-        return resultList.stream().findFirst();
+        return unitOfWork.call(entityManager -> {
+            TypedQuery<T> query = entityManager.createNamedQuery(findByEmailAddressQuery, getEntityClass());
+            query.setParameter("email", emailAddress);
+            List<T> resultList = query.getResultList();
+            return resultList.stream().findFirst();
+        });
+    }
+
+    @Override
+    public void forEachEmailAddress(Consumer<String> action) {
+        unitOfWork.run(entityManager -> transactionTemplate.executeReadOnly(() -> {
+            ScrollableResults results = entityManager.unwrap(Session.class)
+                    .createNamedQuery(emailAddressesQuery, String.class)
+                    .setFetchSize(STREAM_FETCH_SIZE)
+                    .setReadOnly(true)
+                    .scroll(ScrollMode.FORWARD_ONLY);
+            try {
+                while (results.next()) {
+                    action.accept((String) results.get(0));
+                }
+            } finally {
+                results.close();
+            }
+            return null;
+        }));
     }
 
     @Override
-    public boolean existsByEmailAndPass(String emailAddress, String password) {
-        TypedQuery<Long> query = entityManager.createQuery(
-                "select count(s) from " + getEntityClass().getSimpleName() + " s where s.emailAddress = :email" +
-                        " and s.password = :password",
-                Long.class
-        );
-        query.setParameter("email", emailAddress);
-        query.setParameter("password", password);
-        return query.getSingleResult() > 0;
+    public boolean updatePassword(Long id, String expectedPassword, String newPassword) {
+        return unitOfWork.call(entityManager -> transactionTemplate.execute(() -> entityManager
+                .createNamedQuery(updatePasswordQuery)
+                .setParameter("newPassword", newPassword)
+                .setParameter("id", id)
+                .setParameter("expectedPassword", expectedPassword)
+                .executeUpdate() > 0));
     }
 }
@@ -0,0 +1,71 @@
+package ir.maktabSharif101.finalProject.repository.impl;
+
+import ir.maktabSharif101.finalProject.base.persistence.UnitOfWork;
+import ir.maktabSharif101.finalProject.base.repository.BaseEntityRepositoryImpl;
+import ir.maktabSharif101.finalProject.entity.LedgerEntry;
+import ir.maktabSharif101.finalProject.entity.enums.LedgerAccountType;
+import ir.maktabSharif101.finalProject.repository.LedgerEntryRepository;
+import org.hibernate.Session;
+
+import java.sql.PreparedStatement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class LedgerEntryRepositoryImpl extends BaseEntityRepositoryImpl<LedgerEntry,Long>
+        implements LedgerEntryRepository {
+    public LedgerEntryRepositoryImpl(UnitOfWork unitOfWork) {
+        super(unitOfWork);
+    }
+
+    @Override
+    protected Class<LedgerEntry> getEntityClass() {
+        return LedgerEntry.class;
+    }
+
+    @Override
+    public Map<Long, Long> sumByAccount(LedgerAccountType accountType) {
+        return unitOfWork.call(entityManager -> {
+            List<Object[]> rows = entityManager.createQuery(
+                            "select e.accountId, sum(e.amount) from LedgerEntry e" +
+                                    " where e.accountType = :accountType group by e.accountId", Object[].class)
+                    .setParameter("accountType", accountType)
+                    .getResultList();
+            Map<Long, Long> sums = new HashMap<>(rows.size() * 2);
+            for (Object[] row : rows) {
+                sums.put((Long) row[0], (Long) row[1]);
+            }
+            return sums;
+        });
+    }
+
+    @Override
+    public long sumForAccount(LedgerAccountType accountType, long accountId) {
+        return unitOfWork.call(entityManager -> entityManager.createQuery(
+                        "select coalesce(sum(e.amount), 0) from LedgerEntry e" +
+                                " where e.accountType = :accountType and e.accountId = :accountId", Long.class)
+                .setParameter("accountType", accountType)
+                .setParameter("accountId", accountId)
+                .getSingleResult());
+    }
+
+    @Override
+    public void updateBalances(LedgerAccountType accountType, Map<Long, Long> balances) {
+        String table = switch (accountType) {
+            case CUSTOMER -> "customer";
+            case TECHNICIAN -> "technician";
+        };
+        unitOfWork.run(entityManager -> transactionTemplate.run(() -> entityManager.unwrap(Session.class)
+                .doWork(connection -> {
+                    try (PreparedStatement statement = connection.prepareStatement(
+                            "update " + table + " set balance = ? where id = ?")) {
+                        for (Map.Entry<Long, Long> balance : balances.entrySet()) {
+                            statement.setLong(1, balance.getValue());
+                            statement.setLong(2, balance.getKey());
+                            statement.addBatch();
+                        }
+                        statement.executeBatch();
+                    }
+                })));
+    }
+}
@@ -1,17 +1,24 @@
 package ir.maktabSharif101.finalProject.repository.impl;
 
+import ir.maktabSharif101.finalProject.base.persistence.UnitOfWork;
 import ir.maktabSharif101.finalProject.base.repository.BaseEntityRepositoryImpl;
 import ir.maktabSharif101.finalProject.entity.MainServices;
 import ir.maktabSharif101.finalProject.repository.MainServicesRepository;
+import org.hibernate.jpa.QueryHints;
 
-import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
 import java.util.List;
 import java.util.Optional;
 
 public class MainServicesRepositoryImpl extends BaseEntityRepositoryImpl<MainServices, Long> implements MainServicesRepository {
-    public MainServicesRepositoryImpl(EntityManager entityManager) {
-        super(entityManager);
+    private final String findByNameQuery;
+    private final String existsByNameQuery;
+
+    public MainServicesRepositoryImpl(UnitOfWork unitOfWork) {
+        super(unitOfWork);
+        this.findByNameQuery = queries.register("findByName", "select s from {entity} s where s.name = :name");
+        this.existsByNameQuery = queries.register("existsByName",
+                "select count(s) from {entity} s where s.name = :name");
     }
 
     @Override
@@ -21,22 +28,29 @@ public class MainServicesRepositoryImpl extends BaseEntityRepositoryImpl<MainSer
 
     @Override
     public Optional<MainServices> findByName(String mainServiceName) {
-        TypedQuery<MainServices> query = entityManager.createQuery(
-                "select s from MainServices s where s.name = :name",
-                getEntityClass()
-        );
-        query.setParameter("name", mainServiceName);
-        List<MainServices> resultList = query.getResultList();
-        return resultList.stream().findFirst();
+        return unitOfWork.call(entityManager -> {
+            TypedQuery<MainServices> query = entityManager.createNamedQuery(findByNameQuery, getEntityClass());
+            query.setParameter("name", mainServiceName);
+            List<MainServices> resultList = query.getResultList();
+            return resultList.stream().findFirst();
+        });
     }
 
     @Override
     public boolean existsByName(String mainServiceName) {
-        TypedQuery<Long> query = entityManager.createQuery(
-                "select count(s) from MainServices s where s.name = :name",
-                Long.class
-        );
-        query.setParameter("name", mainServiceName);
-        return query.getSingleResult() > 0;
+        return unitOfWork.call(entityManager -> {
+            TypedQuery<Long> query = entityManager.createNamedQuery(existsByNameQuery, Long.class);
+            query.setParameter("name", mainServiceName);
+            return query.getSingleResult() > 0;
+        });
+    }
+
+    @Override
+    public List<MainServices> findAllWithSubServices() {
+        return unitOfWork.call(entityManager -> entityManager.createQuery(
+                        "select distinct m from MainServices m left join fetch m.subServices order by m.id",
+                        getEntityClass())
+                .setHint(QueryHints.HINT_PASS_DISTINCT_THROUGH, false)
+                .getResultList());
     }
 }
@@ -1,14 +1,13 @@
 package ir.maktabSharif101.finalProject.repository.impl;
 
+import ir.maktabSharif101.finalProject.base.persistence.UnitOfWork;
 import ir.maktabSharif101.finalProject.entity.Manager;
 import ir.maktabSharif101.finalProject.repository.ManagerRepository;
 import ir.maktabSharif101.finalProject.repository.base.BaseUserRepositoryImpl;
 
-import javax.persistence.EntityManager;
-
 public class ManagerRepositoryImpl extends BaseUserRepositoryImpl<Manager> implements ManagerRepository {
-    public ManagerRepositoryImpl(EntityManager entityManager) {
-        super(entityManager);
+    public ManagerRepositoryImpl(UnitOfWork unitOfWork) {
+        super(unitOfWork);
     }
 
     @Override
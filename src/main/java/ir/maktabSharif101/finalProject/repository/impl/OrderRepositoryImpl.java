@@ -1,23 +1,265 @@
 package ir.maktabSharif101.finalProject.repository.impl;
 
+import ir.maktabSharif101.finalProject.base.persistence.UnitOfWork;
 import ir.maktabSharif101.finalProject.base.repository.BaseEntityRepositoryImpl;
 import ir.maktabSharif101.finalProject.entity.Order;
+import ir.maktabSharif101.finalProject.entity.Technician;
+import ir.maktabSharif101.finalProject.entity.enums.OrderStatus;
 import ir.maktabSharif101.finalProject.repository.OrderRepository;
+import ir.maktabSharif101.finalProject.service.dto.OrderDetails;
+import ir.maktabSharif101.finalProject.service.dto.OrderState;
+import ir.maktabSharif101.finalProject.service.dto.OrderSummary;
+import ir.maktabSharif101.finalProject.service.dto.RatingAggregate;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
 
 import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 
 public class OrderRepositoryImpl extends BaseEntityRepositoryImpl<Order,Long> implements OrderRepository {
-    public OrderRepositoryImpl(EntityManager entityManager) {
-        super(entityManager);
+    private static final String SUMMARY_SELECT =
+            "select o.id, o.orderStatus, o.dateAndTime, o.price, ss.id, ss.name from Order o join o.subServices ss";
+
+    public OrderRepositoryImpl(UnitOfWork unitOfWork) {
+        super(unitOfWork);
     }
 
     @Override
     protected Class<Order> getEntityClass() {
         return Order.class;
     }
-}
 
+    @Override
+    public int updateStatus(Collection<Long> orderIds, OrderStatus from, OrderStatus to) {
+        return unitOfWork.call(entityManager -> transactionTemplate.execute(() -> entityManager.createQuery(
+                        "update Order o set o.orderStatus = :to, o.version = o.version + 1" +
+                                " where o.id in :ids and o.orderStatus = :from")
+                .setParameter("to", to)
+                .setParameter("ids", orderIds)
+                .setParameter("from", from)
+                .executeUpdate()));
+    }
+
+    @Override
+    public Optional<OrderState> findState(Long orderId) {
+        return unitOfWork.call(entityManager -> entityManager.createQuery(
+                        "select new ir.maktabSharif101.finalProject.service.dto.OrderState(" +
+                                "o.id, o.orderStatus, o.version, o.customer.id, o.technician.id)" +
+                                " from Order o where o.id = :id", OrderState.class)
+                .setParameter("id", orderId)
+                .getResultStream()
+                .findFirst());
+    }
+
+    @Override
+    public Optional<Double> findPrice(Long orderId) {
+        return unitOfWork.call(entityManager -> entityManager.createQuery(
+                        "select o.price from Order o where o.id = :id", Double.class)
+                .setParameter("id", orderId)
+                .getResultStream()
+                .findFirst());
+    }
+
+    @Override
+    public Map<Long, OrderStatus> lockStatuses(Collection<Long> orderIds) {
+        return unitOfWork.call(entityManager -> {
+            @SuppressWarnings("unchecked")
+            List<Object[]> rows = entityManager.createNativeQuery(
+                            "select id, orderStatus from orders where id in (:ids) order by id for update")
+                    .setParameter("ids", orderIds)
+                    .getResultList();
+            Map<Long, OrderStatus> statuses = new HashMap<>(rows.size() * 2);
+            for (Object[] row : rows) {
+                statuses.put(((Number) row[0]).longValue(),
+                        row[1] == null ? null : OrderStatus.valueOf(row[1].toString()));
+            }
+            return statuses;
+        });
+    }
 
+    @Override
+    public boolean compareAndSetStatus(OrderState expected, OrderStatus to) {
+        return unitOfWork.call(entityManager -> transactionTemplate.execute(() -> entityManager.createQuery(
+                        "update Order o set o.orderStatus = :to, o.version = o.version + 1" +
+                                " where o.id = :id and o.orderStatus = :from and o.version = :version")
+                .setParameter("to", to)
+                .setParameter("id", expected.orderId())
+                .setParameter("from", expected.status())
+                .setParameter("version", expected.version())
+                .executeUpdate() == 1));
+    }
 
+    @Override
+    public List<OrderSummary> findSummariesByCustomer(Long customerId, Long lastSeenId, int pageSize) {
+        int limit = Math.min(Math.max(pageSize, 1), MAX_PAGE_SIZE);
+        return unitOfWork.call(entityManager -> {
+            TypedQuery<Object[]> query = entityManager.createQuery(SUMMARY_SELECT +
+                    " where o.customer.id = :customer" +
+                    (lastSeenId == null ? "" : " and o.id < :lastSeenId") +
+                    " order by o.id desc", Object[].class);
+            query.setParameter("customer", customerId);
+            if (lastSeenId != null) {
+                query.setParameter("lastSeenId", lastSeenId);
+            }
+            return toSummaries(entityManager, query.setMaxResults(limit).getResultList());
+        });
+    }
 
+    @Override
+    public List<OrderSummary> findSummariesBySubService(Long subServiceId, OrderStatus status, Long lastSeenId,
+                                                        int pageSize) {
+        int limit = Math.min(Math.max(pageSize, 1), MAX_PAGE_SIZE);
+        return unitOfWork.call(entityManager -> {
+            TypedQuery<Object[]> query = entityManager.createQuery(SUMMARY_SELECT +
+                    " where ss.id = :subService and o.orderStatus = :status" +
+                    (lastSeenId == null ? "" : " and o.id > :lastSeenId") +
+                    " order by o.id", Object[].class);
+            query.setParameter("subService", subServiceId);
+            query.setParameter("status", status);
+            if (lastSeenId != null) {
+                query.setParameter("lastSeenId", lastSeenId);
+            }
+            return toSummaries(entityManager, query.setMaxResults(limit).getResultList());
+        });
+    }
 
+    @Override
+    public Optional<OrderDetails> findDetails(Long orderId) {
+        return unitOfWork.call(entityManager -> entityManager.createQuery(
+                        "select new ir.maktabSharif101.finalProject.service.dto.OrderDetails(" +
+                                "o.id, o.orderStatus, o.jobInfo, o.dateAndTime, o.Address, o.price, o.comment," +
+                                " o.point, c.id, c.firstname, c.lastname, ss.id, ss.name, ss.baseWage," +
+                                " (select count(s) from Suggestion s where s.order = o)," +
+                                " (select min(s.suggestedPrice) from Suggestion s where s.order = o))" +
+                                " from Order o join o.customer c join o.subServices ss where o.id = :id",
+                        OrderDetails.class)
+                .setParameter("id", orderId)
+                .getResultStream()
+                .findFirst());
+    }
+
+    @Override
+    public Optional<LocalDateTime> findDateAndTime(long orderId, long customerId, OrderStatus status) {
+        return unitOfWork.call(entityManager -> entityManager.createQuery(
+                        "select o.dateAndTime from Order o" +
+                                " where o.id = :id and o.customer.id = :customer and o.orderStatus = :status",
+                        LocalDateTime.class)
+                .setParameter("id", orderId)
+                .setParameter("customer", customerId)
+                .setParameter("status", status)
+                .getResultStream()
+                .filter(Objects::nonNull)
+                .findFirst());
+    }
+
+    @Override
+    public boolean assignTechnician(long orderId, long customerId, long technicianId, double price,
+                                    LocalDateTime start, LocalDateTime end) {
+        return unitOfWork.call(entityManager -> transactionTemplate.execute(() -> entityManager.createQuery(
+                        "update Order o set o.technician = :technician, o.price = :price, o.orderStatus = :to," +
+                                " o.scheduledStart = :start, o.scheduledEnd = :end, o.version = o.version + 1" +
+                                " where o.id = :id and o.customer.id = :customer and o.orderStatus = :from")
+                .setParameter("technician", entityManager.getReference(Technician.class, technicianId))
+                .setParameter("price", price)
+                .setParameter("to", OrderStatus.AWAITING_TECHNICIAN_ARRIVAL)
+                .setParameter("start", start)
+                .setParameter("end", end)
+                .setParameter("id", orderId)
+                .setParameter("customer", customerId)
+                .setParameter("from", OrderStatus.AWAITING_TECHNICIAN)
+                .executeUpdate() == 1));
+    }
+
+    @Override
+    public void forEachBooking(LocalDateTime endingAfter, BookingConsumer action) {
+        unitOfWork.run(entityManager -> transactionTemplate.executeReadOnly(() -> {
+            ScrollableResults results = entityManager.unwrap(Session.class).createQuery(
+                            "select o.technician.id, o.scheduledStart, o.scheduledEnd from Order o" +
+                                    " where o.technician is not null and o.scheduledEnd > :after")
+                    .setParameter("after", endingAfter)
+                    .setFetchSize(STREAM_FETCH_SIZE)
+                    .setReadOnly(true)
+                    .scroll(ScrollMode.FORWARD_ONLY);
+            try {
+                while (results.next()) {
+                    action.accept(((Number) results.get(0)).longValue(), (LocalDateTime) results.get(1),
+                            (LocalDateTime) results.get(2));
+                }
+            } finally {
+                results.close();
+            }
+            return null;
+        }));
+    }
+
+    @Override
+    public Optional<Long> rate(long orderId, long customerId, double point, String comment) {
+        return unitOfWork.call(entityManager -> transactionTemplate.execute(() -> {
+            int rated = entityManager.createQuery(
+                            "update Order o set o.point = :point, o.comment = :comment, o.version = o.version + 1" +
+                                    " where o.id = :id and o.customer.id = :customer and o.orderStatus in :done" +
+                                    " and o.point = 0 and o.technician is not null")
+                    .setParameter("point", point)
+                    .setParameter("comment", comment)
+                    .setParameter("id", orderId)
+                    .setParameter("customer", customerId)
+                    .setParameter("done", List.of(OrderStatus.FINISHED, OrderStatus.PAID))
+                    .executeUpdate();
+            if (rated == 0) {
+                return Optional.empty();
+            }
+            return Optional.of(entityManager.createQuery(
+                            "select o.technician.id from Order o where o.id = :id", Long.class)
+                    .setParameter("id", orderId)
+                    .getSingleResult());
+        }));
+    }
+
+    @Override
+    public List<RatingAggregate> aggregateRatings(long fromTechnicianId, long toTechnicianId) {
+        return unitOfWork.call(entityManager -> entityManager.createQuery(
+                        "select new ir.maktabSharif101.finalProject.service.dto.RatingAggregate(" +
+                                "o.technician.id, count(o), sum(o.point)) from Order o" +
+                                " where o.technician.id between :from and :to and o.point > 0" +
+                                " group by o.technician.id", RatingAggregate.class)
+                .setParameter("from", fromTechnicianId)
+                .setParameter("to", toTechnicianId)
+                .getResultList());
+    }
+
+    /**
+     * Adds suggestion counts to a page of summary rows with one grouped query over just that
+     * page. A correlated count in the select list would be evaluated for every matching order
+     * before the limit is applied on databases that don't defer it.
+     */
+    private List<OrderSummary> toSummaries(EntityManager entityManager, List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        List<Long> orderIds = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            orderIds.add((Long) row[0]);
+        }
+        Map<Long, Long> suggestionCounts = new HashMap<>();
+        entityManager.createQuery("select s.order.id, count(s) from Suggestion s" +
+                        " where s.order.id in :orders group by s.order.id", Object[].class)
+                .setParameter("orders", orderIds)
+                .getResultList()
+                .forEach(count -> suggestionCounts.put((Long) count[0], (Long) count[1]));
+        List<OrderSummary> summaries = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            summaries.add(new OrderSummary((Long) row[0], (OrderStatus) row[1], (LocalDateTime) row[2],
+                    (Double) row[3], (Long) row[4], (String) row[5], suggestionCounts.getOrDefault((Long) row[0], 0L)));
+        }
+        return summaries;
+    }
+}
@@ -0,0 +1,53 @@
+package ir.maktabSharif101.finalProject.repository.impl;
+
+import ir.maktabSharif101.finalProject.base.persistence.UnitOfWork;
+import ir.maktabSharif101.finalProject.base.repository.BaseEntityRepositoryImpl;
+import ir.maktabSharif101.finalProject.entity.OutboxEvent;
+import ir.maktabSharif101.finalProject.repository.OutboxEventRepository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public class OutboxEventRepositoryImpl extends BaseEntityRepositoryImpl<OutboxEvent,Long>
+        implements OutboxEventRepository {
+    public OutboxEventRepositoryImpl(UnitOfWork unitOfWork) {
+        super(unitOfWork);
+    }
+
+    @Override
+    protected Class<OutboxEvent> getEntityClass() {
+        return OutboxEvent.class;
+    }
+
+    @Override
+    public List<OutboxEvent> findOldest(int limit) {
+        return unitOfWork.call(entityManager -> entityManager.createQuery(
+                        "from OutboxEvent e order by e.seq", OutboxEvent.class)
+                .setMaxResults(limit)
+                .getResultList());
+    }
+
+    @Override
+    public int deleteByIds(Collection<Long> ids) {
+        return unitOfWork.call(entityManager -> transactionTemplate.execute(() -> entityManager.createQuery(
+                        "delete from OutboxEvent e where e.id in :ids")
+                .setParameter("ids", ids)
+                .executeUpdate()));
+    }
+
+    @Override
+    public long countPending() {
+        return unitOfWork.call(entityManager -> entityManager.createQuery(
+                        "select count(e) from OutboxEvent e", Long.class)
+                .getSingleResult());
+    }
+
+    @Override
+    public Optional<LocalDateTime> findOldestCreatedAt() {
+        return unitOfWork.call(entityManager -> Optional.ofNullable(entityManager.createQuery(
+                        "select min(e.createdAt) from OutboxEvent e", LocalDateTime.class)
+                .getSingleResult()));
+    }
+}
@@ -1,17 +1,23 @@
 package ir.maktabSharif101.finalProject.repository.impl;
 
+import ir.maktabSharif101.finalProject.base.persistence.UnitOfWork;
 import ir.maktabSharif101.finalProject.base.repository.BaseEntityRepositoryImpl;
 import ir.maktabSharif101.finalProject.entity.SubServices;
 import ir.maktabSharif101.finalProject.repository.SubServicesRepository;
 
-import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
 import java.util.List;
 import java.util.Optional;
 
 public class SubServicesRepositoryImpl extends BaseEntityRepositoryImpl<SubServices, Long> implements SubServicesRepository {
-    public SubServicesRepositoryImpl(EntityManager entityManager) {
-        super(entityManager);
+    private final String findByNameQuery;
+    private final String existsByNameQuery;
+
+    public SubServicesRepositoryImpl(UnitOfWork unitOfWork) {
+        super(unitOfWork);
+        this.findByNameQuery = queries.register("findByName", "select s from {entity} s where s.name = :name");
+        this.existsByNameQuery = queries.register("existsByName",
+                "select count(s) from {entity} s where s.name = :name");
     }
 
     @Override
@@ -21,22 +27,20 @@ public class SubServicesRepositoryImpl extends BaseEntityRepositoryImpl<SubServi
 
     @Override
     public Optional<SubServices> findByName(String subServiceName) {
-        TypedQuery<SubServices> query = entityManager.createQuery(
-                "select s from SubServices s where s.name = :name",
-                getEntityClass()
-        );
-        query.setParameter("name", subServiceName);
-        List<SubServices> resultList = query.getResultList();
-        return resultList.stream().findFirst();
+        return unitOfWork.call(entityManager -> {
+            TypedQuery<SubServices> query = entityManager.createNamedQuery(findByNameQuery, getEntityClass());
+            query.setParameter("name", subServiceName);
+            List<SubServices> resultList = query.getResultList();
+            return resultList.stream().findFirst();
+        });
     }
 
     @Override
     public boolean existsByName(String subServiceName) {
-        TypedQuery<Long> query = entityManager.createQuery(
-                "select count(s) from SubServices s where s.name = :name",
-                Long.class
-        );
-        query.setParameter("name", subServiceName);
-        return query.getSingleResult() > 0;
+        return unitOfWork.call(entityManager -> {
+            TypedQuery<Long> query = entityManager.createNamedQuery(existsByNameQuery, Long.class);
+            query.setParameter("name", subServiceName);
+            return query.getSingleResult() > 0;
+        });
     }
 }
@@ -1,18 +1,81 @@
 package ir.maktabSharif101.finalProject.repository.impl;
 
+import ir.maktabSharif101.finalProject.base.persistence.UnitOfWork;
 import ir.maktabSharif101.finalProject.base.repository.BaseEntityRepositoryImpl;
+import ir.maktabSharif101.finalProject.entity.Order;
 import ir.maktabSharif101.finalProject.entity.Suggestion;
+import ir.maktabSharif101.finalProject.entity.Technician;
 import ir.maktabSharif101.finalProject.repository.SuggestionRepository;
+import ir.maktabSharif101.finalProject.service.dto.SuggestionOffer;
 
-import javax.persistence.EntityManager;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 public class SuggestionRepositoryImpl extends BaseEntityRepositoryImpl<Suggestion,Long> implements SuggestionRepository {
-    public SuggestionRepositoryImpl(EntityManager entityManager) {
-        super(entityManager);
+    public SuggestionRepositoryImpl(UnitOfWork unitOfWork) {
+        super(unitOfWork);
     }
 
     @Override
     protected Class<Suggestion> getEntityClass() {
         return Suggestion.class;
     }
+
+    @Override
+    public Suggestion newSuggestion(Long technicianId, Long orderId) {
+        return unitOfWork.call(entityManager -> {
+            Suggestion suggestion = new Suggestion();
+            suggestion.setTechnician(entityManager.getReference(Technician.class, technicianId));
+            suggestion.setOrder(entityManager.getReference(Order.class, orderId));
+            return suggestion;
+        });
+    }
+
+    private static final String OFFER_SELECT =
+            "select new ir.maktabSharif101.finalProject.service.dto.SuggestionOffer(s.id, t.id, t.score," +
+                    " s.suggestedPrice, s.suggestedTime, s.duration, s.suggestionDate)" +
+                    " from Suggestion s join s.technician t";
+
+    @Override
+    public List<SuggestionOffer> findTopOffers(Long orderId, int limit) {
+        return unitOfWork.call(entityManager -> entityManager.createQuery(OFFER_SELECT +
+                                " where s.order.id = :order" +
+                                " order by s.suggestedPrice asc, t.score desc, s.suggestionDate asc, s.id asc",
+                        SuggestionOffer.class)
+                .setParameter("order", orderId)
+                .setMaxResults(limit)
+                .getResultList());
+    }
+
+    @Override
+    public Map<Long, Set<Long>> findBidders(Collection<Long> orderIds, Collection<Long> technicianIds) {
+        return unitOfWork.call(entityManager -> {
+            Map<Long, Set<Long>> bidders = new HashMap<>();
+            for (Object[] row : entityManager.createQuery(
+                            "select s.order.id, s.technician.id from Suggestion s" +
+                                    " where s.order.id in :orders and s.technician.id in :technicians", Object[].class)
+                    .setParameter("orders", orderIds)
+                    .setParameter("technicians", technicianIds)
+                    .getResultList()) {
+                bidders.computeIfAbsent((Long) row[0], orderId -> new HashSet<>()).add((Long) row[1]);
+            }
+            return bidders;
+        });
+    }
+
+    @Override
+    public Optional<SuggestionOffer> findOffer(Long orderId, Long suggestionId) {
+        return unitOfWork.call(entityManager -> entityManager.createQuery(OFFER_SELECT +
+                        " where s.id = :suggestion and s.order.id = :order", SuggestionOffer.class)
+                .setParameter("suggestion", suggestionId)
+                .setParameter("order", orderId)
+                .getResultList()
+                .stream()
+                .findFirst());
+    }
 }
@@ -0,0 +1,66 @@
+package ir.maktabSharif101.finalProject.repository.impl;
+
+import ir.maktabSharif101.finalProject.base.persistence.UnitOfWork;
+import ir.maktabSharif101.finalProject.base.repository.BaseEntityRepositoryImpl;
+import ir.maktabSharif101.finalProject.entity.TechnicianImage;
+import ir.maktabSharif101.finalProject.repository.TechnicianImageRepository;
+import org.hibernate.Session;
+
+import javax.persistence.TypedQuery;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Optional;
+
+public class TechnicianImageRepositoryImpl extends BaseEntityRepositoryImpl<TechnicianImage, Long>
+        implements TechnicianImageRepository {
+    public TechnicianImageRepositoryImpl(UnitOfWork unitOfWork) {
+        super(unitOfWork);
+    }
+
+    @Override
+    protected Class<TechnicianImage> getEntityClass() {
+        return TechnicianImage.class;
+    }
+
+    @Override
+    public Optional<byte[]> findImageDataByTechnicianId(Long technicianId) {
+        return unitOfWork.call(entityManager -> {
+            TypedQuery<byte[]> query = entityManager.createQuery(
+                    "select i.imageData from TechnicianImage i where i.technician.id = :technicianId",
+                    byte[].class
+            );
+            query.setParameter("technicianId", technicianId);
+            List<byte[]> resultList = query.getResultList();
+            return resultList.stream().findFirst();
+        });
+    }
+
+    @Override
+    public boolean copyImageData(Long technicianId, OutputStream target) {
+        return unitOfWork.call(entityManager -> entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "select image_data from technician_image where technician_id = ?")) {
+                statement.setLong(1, technicianId);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    if (!resultSet.next()) {
+                        return false;
+                    }
+                    try (InputStream imageData = resultSet.getBinaryStream(1)) {
+                        if (imageData == null) {
+                            return false;
+                        }
+                        imageData.transferTo(target);
+                        return true;
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }));
+    }
+}
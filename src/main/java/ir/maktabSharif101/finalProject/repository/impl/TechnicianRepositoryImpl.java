@@ -1,18 +1,126 @@
 package ir.maktabSharif101.finalProject.repository.impl;
 
+import ir.maktabSharif101.finalProject.base.persistence.UnitOfWork;
 import ir.maktabSharif101.finalProject.entity.Technician;
+import ir.maktabSharif101.finalProject.entity.enums.TechnicianStatus;
 import ir.maktabSharif101.finalProject.repository.TechnicianRepository;
 import ir.maktabSharif101.finalProject.repository.base.BaseUserRepositoryImpl;
+import ir.maktabSharif101.finalProject.service.dto.RatingAggregate;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
 
-import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.List;
+import java.util.Optional;
 
 public class TechnicianRepositoryImpl extends BaseUserRepositoryImpl<Technician> implements TechnicianRepository {
-    public TechnicianRepositoryImpl(EntityManager entityManager) {
-        super(entityManager);
+    public TechnicianRepositoryImpl(UnitOfWork unitOfWork) {
+        super(unitOfWork);
     }
 
     @Override
     protected Class<Technician> getEntityClass() {
         return Technician.class;
     }
+
+    @Override
+    public boolean addSubService(Long technicianId, Long subServiceId) {
+        return unitOfWork.call(entityManager -> transactionTemplate.execute(() -> entityManager.createNativeQuery(
+                        "insert into Technician_SubServices (Technician_id, SubService_id)" +
+                                " values (:technician, :subService) on conflict do nothing")
+                .setParameter("technician", technicianId)
+                .setParameter("subService", subServiceId)
+                .executeUpdate() > 0));
+    }
+
+    @Override
+    public Optional<TechnicianStatus> lockStatus(Long technicianId) {
+        return unitOfWork.call(entityManager -> transactionTemplate.execute(() -> {
+            List<?> rows = entityManager.createNativeQuery("select status from technician where id = :id for update")
+                    .setParameter("id", technicianId)
+                    .getResultList();
+            return rows.isEmpty() || rows.get(0) == null
+                    ? Optional.<TechnicianStatus>empty()
+                    : Optional.of(TechnicianStatus.valueOf(rows.get(0).toString()));
+        }));
+    }
+
+    @Override
+    public boolean removeSubService(Long technicianId, Long subServiceId) {
+        return unitOfWork.call(entityManager -> transactionTemplate.execute(() -> entityManager.createNativeQuery(
+                        "delete from Technician_SubServices where Technician_id = :technician" +
+                                " and SubService_id = :subService")
+                .setParameter("technician", technicianId)
+                .setParameter("subService", subServiceId)
+                .executeUpdate() > 0));
+    }
+
+    @Override
+    public void forEachSubServiceLink(SubServiceLinkConsumer action) {
+        unitOfWork.run(entityManager -> transactionTemplate.executeReadOnly(() -> {
+            ScrollableResults results = entityManager.unwrap(Session.class).createNativeQuery(
+                            "select ts.SubService_id, ts.Technician_id, t.status from Technician_SubServices ts" +
+                                    " join technician t on t.id = ts.Technician_id")
+                    .setFetchSize(STREAM_FETCH_SIZE)
+                    .setReadOnly(true)
+                    .scroll(ScrollMode.FORWARD_ONLY);
+            try {
+                while (results.next()) {
+                    Object status = results.get(2);
+                    action.accept(((Number) results.get(0)).longValue(), ((Number) results.get(1)).longValue(),
+                            status == null ? TechnicianStatus.NEW : TechnicianStatus.valueOf(status.toString()));
+                }
+            } finally {
+                results.close();
+            }
+            return null;
+        }));
+    }
+
+    @Override
+    public boolean addRating(long technicianId, double point, double recentWeight) {
+        return unitOfWork.call(entityManager -> transactionTemplate.execute(() -> entityManager.createQuery(
+                        "update Technician t set t.ratingCount = t.ratingCount + 1," +
+                                " t.ratingSum = t.ratingSum + :point," +
+                                " t.score = (t.ratingSum + :point) / (t.ratingCount + 1)," +
+                                " t.recentScore = t.recentScore" +
+                                " + (case when t.ratingCount = 0 then 1.0 else :weight end) * (:point - t.recentScore)" +
+                                " where t.id = :id")
+                .setParameter("point", point)
+                .setParameter("weight", recentWeight)
+                .setParameter("id", technicianId)
+                .executeUpdate() == 1));
+    }
+
+    @Override
+    public List<RatingAggregate> findRatingAggregates(Long lastSeenId, int pageSize) {
+        int limit = Math.min(Math.max(pageSize, 1), MAX_PAGE_SIZE);
+        return unitOfWork.call(entityManager -> {
+            TypedQuery<RatingAggregate> query = entityManager.createQuery(
+                    "select new ir.maktabSharif101.finalProject.service.dto.RatingAggregate(" +
+                            "t.id, t.ratingCount, t.ratingSum) from Technician t" +
+                            (lastSeenId == null ? "" : " where t.id > :lastSeenId") +
+                            " order by t.id", RatingAggregate.class);
+            if (lastSeenId != null) {
+                query.setParameter("lastSeenId", lastSeenId);
+            }
+            return query.setMaxResults(limit).getResultList();
+        });
+    }
+
+    @Override
+    public boolean correctRating(RatingAggregate expected, RatingAggregate actual) {
+        return unitOfWork.call(entityManager -> transactionTemplate.execute(() -> entityManager.createQuery(
+                        "update Technician t set t.ratingCount = :count, t.ratingSum = :sum, t.score = :mean" +
+                                " where t.id = :id and t.ratingCount = :expectedCount" +
+                                " and t.ratingSum = :expectedSum")
+                .setParameter("count", actual.count())
+                .setParameter("sum", actual.sum())
+                .setParameter("mean", actual.mean())
+                .setParameter("id", expected.technicianId())
+                .setParameter("expectedCount", expected.count())
+                .setParameter("expectedSum", expected.sum())
+                .executeUpdate() == 1));
+    }
 }
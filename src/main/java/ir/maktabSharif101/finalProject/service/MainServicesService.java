@@ -1,13 +1,30 @@
 package ir.maktabSharif101.finalProject.service;
 
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import ir.maktabSharif101.finalProject.base.service.BaseEntityService;
 import ir.maktabSharif101.finalProject.entity.MainServices;
+import ir.maktabSharif101.finalProject.service.catalog.CatalogSnapshot;
 
 import java.util.Optional;
 
 public interface MainServicesService extends BaseEntityService<MainServices,Long> {
     void addService(String serviceName);
+    /**
+     * Served from the catalog cache: a new detached copy on every call, without its sub services.
+     */
     Optional<MainServices> findByName(String MainServiceName);
     boolean existsByName(String MainServiceName);
+    CacheStats getCacheStats();
+
+    /**
+     * The whole catalog tree, loaded with one query on first use and replaced whenever a
+     * catalog change commits.
+     */
+    CatalogSnapshot getCatalogSnapshot();
+
+    /**
+     * Rebuilds the snapshot from the database; a no-op until someone has asked for one.
+     */
+    void refreshCatalogSnapshot();
 }
 
@@ -2,8 +2,66 @@ package ir.maktabSharif101.finalProject.service;
 
 import ir.maktabSharif101.finalProject.base.service.BaseEntityService;
 import ir.maktabSharif101.finalProject.entity.Order;
+import ir.maktabSharif101.finalProject.entity.enums.OrderStatus;
+import ir.maktabSharif101.finalProject.service.dto.OrderDetails;
+import ir.maktabSharif101.finalProject.service.dto.OrderState;
+import ir.maktabSharif101.finalProject.service.dto.OrderSummary;
 import ir.maktabSharif101.finalProject.service.dto.OrderSubmitDto;
+import ir.maktabSharif101.finalProject.utils.SessionToken;
+
+import java.util.List;
+import java.util.Optional;
 
 public interface OrderService extends BaseEntityService<Order,Long> {
     void submitOrder(Long customerId, OrderSubmitDto orderSubmitDto);
+
+    /**
+     * Moves the order from {@code from} to {@code to} with a conditional update, retrying if only
+     * its version changed underneath. Fails with {@code OrderStatusChanged} if another actor
+     * moved it first. The order's customer may only send it back to
+     * AWAITING_TECHNICIAN_SUGGESTION after turning every offer down, its technician only start and
+     * finish the job; anyone else gets {@code TransitionNotAllowed}. Handing the order to a
+     * technician goes through {@link #acceptSuggestion} and paying for it through
+     * {@link #payOrder} instead.
+     */
+    OrderState changeStatus(SessionToken session, Long orderId, OrderStatus from, OrderStatus to);
+
+    /**
+     * The customer pays for their FINISHED order: in one transaction the order moves to PAID and
+     * its price is transferred from the customer's ledger account to the technician's.
+     */
+    OrderState payOrder(Long customerId, Long orderId);
+
+    /**
+     * A page of the customer's order history, newest first; pass the last order id of the
+     * previous page, or {@code null}, as {@code lastSeenId}.
+     */
+    List<OrderSummary> findOrderHistory(Long customerId, Long lastSeenId, int pageSize);
+
+    /**
+     * A page of the orders for a sub service in the given status, oldest first.
+     */
+    List<OrderSummary> findOrdersForSubService(Long subServiceId, OrderStatus status, Long lastSeenId, int pageSize);
+
+    Optional<OrderDetails> findOrderDetails(Long orderId);
+
+    /**
+     * The customer picks a suggestion on their AWAITING_TECHNICIAN order: the order goes to the
+     * suggestion's technician at the suggested price and moves to AWAITING_TECHNICIAN_ARRIVAL. The
+     * suggested time on the order's date, for the suggested duration, is booked in the technician
+     * calendar; fails with {@code TechnicianBusy} if it overlaps one of the technician's jobs. The
+     * booking is released if the transaction rolls back, also when it is the caller's.
+     */
+    void acceptSuggestion(Long customerId, Long orderId, Long suggestionId);
+
+    /**
+     * Reloads the technician calendar from the orders whose scheduled window hasn't ended.
+     */
+    void rebuildCalendar();
+
+    /**
+     * The customer rates their FINISHED or PAID order, once, with {@code point} from 1 to 5. The
+     * technician's rating aggregate takes it in the same transaction with a single update.
+     */
+    void rateOrder(Long customerId, Long orderId, int point, String comment);
 }
@@ -1,5 +1,6 @@
 package ir.maktabSharif101.finalProject.service;
 
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import ir.maktabSharif101.finalProject.base.service.BaseEntityService;
 import ir.maktabSharif101.finalProject.entity.SubServices;
 
@@ -7,8 +8,13 @@ import java.util.Optional;
 
 public interface SubServicesService extends BaseEntityService<SubServices,Long> {
     void addService(String subServiceName,double baseWage, String description,String mainServiceName);
+    /**
+     * Served from the catalog cache: a new detached copy on every call, with its main service but
+     * without its technician and order collections. Changing it changes nothing until it is saved.
+     */
     Optional<SubServices> findByName(String subServiceName);
     boolean existsByName(String subServiceName);
+    CacheStats getCacheStats();
     void editBaseWage(Long serviceId,double newWage);
     void editDescription(Long serviceId,String newDescription);
     void addToSubService(Long technicianId, Long serviceId);
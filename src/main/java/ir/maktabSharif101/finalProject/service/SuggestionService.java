@@ -2,6 +2,20 @@ package ir.maktabSharif101.finalProject.service;
 
 import ir.maktabSharif101.finalProject.base.service.BaseEntityService;
 import ir.maktabSharif101.finalProject.entity.Suggestion;
+import ir.maktabSharif101.finalProject.service.dto.SuggestionOffer;
+import ir.maktabSharif101.finalProject.service.dto.SuggestionSubmitDto;
+
+import java.util.List;
 
 public interface SuggestionService extends BaseEntityService<Suggestion,Long> {
+    /**
+     * Places a technician's bid on an order that is still collecting suggestions. Returns once the
+     * bid is stored; concurrent bids are written together in one batch.
+     */
+    Suggestion submitSuggestion(Long technicianId, SuggestionSubmitDto suggestionSubmitDto);
+
+    /**
+     * The best offers on an order, cheapest first, served from memory.
+     */
+    List<SuggestionOffer> findBestOffers(Long orderId);
 }
@@ -2,10 +2,62 @@ package ir.maktabSharif101.finalProject.service;
 
 
 import ir.maktabSharif101.finalProject.entity.Technician;
+import ir.maktabSharif101.finalProject.entity.enums.TechnicianStatus;
 import ir.maktabSharif101.finalProject.service.base.BaseUserService;
 import ir.maktabSharif101.finalProject.service.dto.RegisterDto;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.ReadableByteChannel;
+import java.time.LocalDateTime;
+import java.util.function.LongConsumer;
+
 public interface TechnicianService extends BaseUserService<Technician> {
     Technician register (RegisterDto registerDto,String imageAddress);
+    Technician register (RegisterDto registerDto, InputStream image);
+    Technician register (RegisterDto registerDto, ReadableByteChannel image, long imageSize);
     void confirmTechnician(Long technicianId);
+
+    /**
+     * The technician's photo, read into memory first; photos are at most 300 KB.
+     *
+     * @deprecated holds the whole photo in memory; use {@link #loadImage(Long, OutputStream)}, which
+     * streams it from the database to the target
+     */
+    @Deprecated
+    InputStream loadImage(Long technicianId);
+
+    /**
+     * Writes the technician's photo to {@code target} straight from the database result set.
+     */
+    void loadImage(Long technicianId, OutputStream target);
+
+    boolean servesSubService(long technicianId, long subServiceId);
+    int countTechnicians(long subServiceId, TechnicianStatus status);
+
+    /**
+     * Hands the id of every technician with {@code status} serving {@code subServiceId} to
+     * {@code action}, straight from the in-memory matching index.
+     */
+    void forEachTechnician(long subServiceId, TechnicianStatus status, LongConsumer action);
+
+    /**
+     * True if the technician has no job in [start, end), from the in-memory calendar.
+     */
+    boolean isAvailable(long technicianId, LocalDateTime start, LocalDateTime end);
+
+    /**
+     * Hands the id of every confirmed technician serving {@code subServiceId} who has no job in
+     * [start, end) to {@code action}; one calendar lookup per technician, no queries.
+     */
+    void forEachAvailableTechnician(long subServiceId, LocalDateTime start, LocalDateTime end, LongConsumer action);
+
+    void linkSubService(Technician technician, Long subServiceId);
+    void unlinkSubService(Long technicianId, Long subServiceId);
+
+    /**
+     * Reloads the matching index from the technician/sub service join table. It is also built
+     * on first use.
+     */
+    void rebuildMatchingIndex();
 }
@@ -0,0 +1,212 @@
+package ir.maktabSharif101.finalProject.service.availability;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory answer to "is technician T free for [start, end)".
+ * <p>
+ * Every technician with bookings has one immutable {@link Schedule}: the booked windows in epoch
+ * minutes, as two sorted arrays of starts and ends that never overlap. A window is free when the
+ * last booking starting before its end has ended by its start, one binary search. Readers never
+ * lock; {@link #book} swaps a technician's schedule atomically, so two jobs racing for the same
+ * slot can't both get it. Bookings that have ended are dropped the next time the technician books.
+ * <p>
+ * The calendar only knows what this process booked or loaded in {@link #replace}.
+ */
+public class TechnicianCalendar {
+
+    private static final Schedule EMPTY = new Schedule(new long[0], new long[0]);
+
+    private final Map<Long, Schedule> schedules = new ConcurrentHashMap<>();
+
+    public static long toEpochMinute(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    /**
+     * Like {@link #toEpochMinute} but rounded up, for the end of a window.
+     */
+    public static long toEndMinute(LocalDateTime end) {
+        return Math.floorDiv(end.toEpochSecond(ZoneOffset.UTC) + 59, 60);
+    }
+
+    public boolean isFree(long technicianId, LocalDateTime start, LocalDateTime end) {
+        return isFree(technicianId, toEpochMinute(start), toEndMinute(end));
+    }
+
+    /**
+     * Same as {@link #isFree(long, LocalDateTime, LocalDateTime)} with epoch minutes.
+     */
+    public boolean isFree(long technicianId, long start, long end) {
+        Schedule schedule = schedules.get(technicianId);
+        return schedule == null || schedule.isFree(start, end);
+    }
+
+    /**
+     * Books [start, end) for the technician if it is free; returns false and changes nothing if it
+     * overlaps a booking.
+     */
+    public boolean book(long technicianId, LocalDateTime start, LocalDateTime end) {
+        long from = toEpochMinute(start);
+        long to = toEndMinute(end);
+        long now = toEpochMinute(LocalDateTime.now());
+        boolean[] booked = new boolean[1];
+        schedules.compute(technicianId, (id, schedule) -> {
+            Schedule current = schedule == null ? EMPTY : schedule;
+            if (!current.isFree(from, to)) {
+                return schedule;
+            }
+            booked[0] = true;
+            return current.with(from, to, now);
+        });
+        return booked[0];
+    }
+
+    /**
+     * Frees a window booked with exactly these bounds; anything else is left alone.
+     */
+    public void release(long technicianId, LocalDateTime start, LocalDateTime end) {
+        long from = toEpochMinute(start);
+        long to = toEndMinute(end);
+        schedules.computeIfPresent(technicianId, (id, schedule) -> schedule.without(from, to));
+    }
+
+    /**
+     * Replaces the whole calendar with the bookings collected in {@code builder}. Meant for
+     * startup: a booking made while it runs can be lost.
+     */
+    public synchronized void replace(Builder builder) {
+        Map<Long, Schedule> built = builder.build();
+        schedules.keySet().retainAll(built.keySet());
+        schedules.putAll(built);
+    }
+
+    public int getTechnicianCount() {
+        return schedules.size();
+    }
+
+    private static void checkWindow(long start, long end) {
+        if (end <= start) {
+            throw new IllegalArgumentException("Window [" + start + ", " + end + ") is empty");
+        }
+    }
+
+    private static final class Schedule {
+        private final long[] starts;
+        private final long[] ends;
+
+        private Schedule(long[] starts, long[] ends) {
+            this.starts = starts;
+            this.ends = ends;
+        }
+
+        private boolean isFree(long start, long end) {
+            checkWindow(start, end);
+            int index = Arrays.binarySearch(starts, end);
+            // the last booking that starts before the window ends
+            int before = (index >= 0 ? index : -index - 1) - 1;
+            return before < 0 || ends[before] <= start;
+        }
+
+        /**
+         * This schedule plus [start, end), without the bookings that ended by {@code now}.
+         */
+        private Schedule with(long start, long end, long now) {
+            int insertAt = -Arrays.binarySearch(starts, start) - 1;
+            int keepFrom = firstEndingAfter(now);
+            if (keepFrom > insertAt) {
+                keepFrom = insertAt;
+            }
+            int length = starts.length - keepFrom + 1;
+            long[] newStarts = new long[length];
+            long[] newEnds = new long[length];
+            int head = insertAt - keepFrom;
+            System.arraycopy(starts, keepFrom, newStarts, 0, head);
+            System.arraycopy(ends, keepFrom, newEnds, 0, head);
+            newStarts[head] = start;
+            newEnds[head] = end;
+            System.arraycopy(starts, insertAt, newStarts, head + 1, starts.length - insertAt);
+            System.arraycopy(ends, insertAt, newEnds, head + 1, ends.length - insertAt);
+            return new Schedule(newStarts, newEnds);
+        }
+
+        /**
+         * This schedule without [start, end); null once nothing is left.
+         */
+        private Schedule without(long start, long end) {
+            int index = Arrays.binarySearch(starts, start);
+            if (index < 0 || ends[index] != end) {
+                return this;
+            }
+            if (starts.length == 1) {
+                return null;
+            }
+            long[] newStarts = new long[starts.length - 1];
+            long[] newEnds = new long[ends.length - 1];
+            System.arraycopy(starts, 0, newStarts, 0, index);
+            System.arraycopy(ends, 0, newEnds, 0, index);
+            System.arraycopy(starts, index + 1, newStarts, index, starts.length - index - 1);
+            System.arraycopy(ends, index + 1, newEnds, index, ends.length - index - 1);
+            return new Schedule(newStarts, newEnds);
+        }
+
+        /**
+         * Ends are sorted too, since bookings don't overlap.
+         */
+        private int firstEndingAfter(long time) {
+            int index = Arrays.binarySearch(ends, time);
+            return index >= 0 ? index + 1 : -index - 1;
+        }
+    }
+
+    /**
+     * Collects (technician, start, end) bookings for a full rebuild, in any order. Bookings of one
+     * technician that overlap are merged into one window.
+     */
+    public static final class Builder {
+        private final Map<Long, List<long[]>> bookings = new HashMap<>();
+        private int size;
+
+        public void add(long technicianId, LocalDateTime start, LocalDateTime end) {
+            long from = toEpochMinute(start);
+            long to = toEndMinute(end);
+            if (to <= from) {
+                return;
+            }
+            bookings.computeIfAbsent(technicianId, id -> new ArrayList<>()).add(new long[]{from, to});
+            size++;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        private Map<Long, Schedule> build() {
+            Map<Long, Schedule> built = new HashMap<>(bookings.size() * 2);
+            bookings.forEach((technicianId, windows) -> {
+                windows.sort((a, b) -> Long.compare(a[0], b[0]));
+                long[] starts = new long[windows.size()];
+                long[] ends = new long[windows.size()];
+                int count = 0;
+                for (long[] window : windows) {
+                    if (count > 0 && window[0] < ends[count - 1]) {
+                        ends[count - 1] = Math.max(ends[count - 1], window[1]);
+                    } else {
+                        starts[count] = window[0];
+                        ends[count] = window[1];
+                        count++;
+                    }
+                }
+                built.put(technicianId, new Schedule(Arrays.copyOf(starts, count), Arrays.copyOf(ends, count)));
+            });
+            return built;
+        }
+    }
+}
@@ -2,16 +2,35 @@ package ir.maktabSharif101.finalProject.service.base;
 
 import ir.maktabSharif101.finalProject.base.service.BaseEntityService;
 import ir.maktabSharif101.finalProject.entity.User;
+import ir.maktabSharif101.finalProject.utils.SessionToken;
 
 import java.util.Optional;
 
 public interface BaseUserService<T extends User> extends BaseEntityService<T, Long> {
     boolean existsByEmailAddress(String emailAddress);
 
+    /**
+     * Loads every email address of this user table into the in-memory filter; until it has run,
+     * {@code existsByEmailAddress} always asks the database.
+     */
+    void warmEmailFilter();
+
+    EmailFilterStats getEmailFilterStats();
+
     Optional<T> findByEmailAddress(String emailAddress);
 
-    T login(String emailAddress, String password);
+    /**
+     * Checks the credentials and returns the user with a signed session token, which
+     * {@link #verifySession} can check later without touching the database.
+     */
+    LoginResult<T> login(String emailAddress, String password);
+
+    SessionToken verifySession(String token);
 
+    /**
+     * Stores the new password's hash; once that has committed, every session token issued to the
+     * user before is revoked.
+     */
     void editPassword(Long userId, String newPassword);
 
 }
\ No newline at end of file
@@ -1,26 +1,138 @@
 package ir.maktabSharif101.finalProject.service.base;
 
+import ir.maktabSharif101.finalProject.base.persistence.UnitOfWork;
 import ir.maktabSharif101.finalProject.base.service.BaseEntityServiceImpl;
 import ir.maktabSharif101.finalProject.entity.User;
+import ir.maktabSharif101.finalProject.entity.enums.UserRole;
 import ir.maktabSharif101.finalProject.repository.base.BaseUserRepository;
+import ir.maktabSharif101.finalProject.utils.BloomFilter;
 import ir.maktabSharif101.finalProject.utils.CustomException;
+import ir.maktabSharif101.finalProject.utils.PasswordHasher;
+import ir.maktabSharif101.finalProject.utils.SessionToken;
+import ir.maktabSharif101.finalProject.utils.SessionTokens;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 
 import javax.persistence.PersistenceException;
+import java.sql.SQLException;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
 @Slf4j
 public abstract class BaseUserServiceImpl<T extends User, R extends BaseUserRepository<T>>
         extends BaseEntityServiceImpl<T, Long, R> implements BaseUserService<T> {
-    public BaseUserServiceImpl(R baseRepository) {
-        super(baseRepository);
+    private static final double EMAIL_FILTER_FPP = 0.01;
+    private static final long MIN_EMAIL_FILTER_CAPACITY = 100_000;
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    private volatile BloomFilter emailFilter;
+    private volatile BloomFilter warmingEmailFilter;
+    private final LongAdder emailChecks = new LongAdder();
+    private final LongAdder skippedEmailQueries = new LongAdder();
+    private final LongAdder emailFalsePositives = new LongAdder();
+
+    protected final PasswordHasher passwordHasher;
+    protected final SessionTokens sessionTokens;
+    private volatile String dummyHash;
+
+    public BaseUserServiceImpl(R baseRepository, UnitOfWork unitOfWork, PasswordHasher passwordHasher,
+                               SessionTokens sessionTokens) {
+        super(baseRepository, unitOfWork);
+        this.passwordHasher = passwordHasher;
+        this.sessionTokens = sessionTokens;
     }
 
+    protected abstract UserRole getUserRole();
+
     @Override
     public boolean existsByEmailAddress(String emailAddress) {
         log.info("trying to check if [{}] exists", emailAddress);
-        return baseRepository.existsByEmailAddress(emailAddress);
+        BloomFilter filter = emailFilter;
+        if (filter == null || emailAddress == null) {
+            return baseRepository.existsByEmailAddress(emailAddress);
+        }
+        emailChecks.increment();
+        if (!filter.mightContain(emailAddress)) {
+            skippedEmailQueries.increment();
+            return false;
+        }
+        boolean exists = baseRepository.existsByEmailAddress(emailAddress);
+        if (!exists) {
+            emailFalsePositives.increment();
+        }
+        return exists;
+    }
+
+    @Override
+    public synchronized void warmEmailFilter() {
+        long capacity = Math.max(MIN_EMAIL_FILTER_CAPACITY, baseRepository.count() * 2);
+        BloomFilter filter = new BloomFilter(capacity, EMAIL_FILTER_FPP);
+        // registrations committing while the table is scanned land in the new filter as well
+        warmingEmailFilter = filter;
+        try {
+            baseRepository.forEachEmailAddress(emailAddress -> {
+                if (emailAddress != null) {
+                    filter.put(emailAddress);
+                }
+            });
+            emailFilter = filter;
+        } finally {
+            warmingEmailFilter = null;
+        }
+        log.info("Email filter warmed with [{}] addresses using [{}] bytes", filter.getInsertions(),
+                filter.getMemoryBytes());
+    }
+
+    @Override
+    public EmailFilterStats getEmailFilterStats() {
+        BloomFilter filter = emailFilter;
+        return new EmailFilterStats(emailChecks.sum(), skippedEmailQueries.sum(), emailFalsePositives.sum(),
+                filter == null ? 0 : filter.expectedFpp(),
+                filter == null ? 0 : filter.getInsertions(),
+                filter == null ? 0 : filter.getMemoryBytes());
+    }
+
+    /**
+     * Runs the insert of a new user in a transaction, adds the email to the filter once it commits
+     * and turns a unique-constraint violation (a duplicate the filter let through) into
+     * {@code DuplicateEmailAddress}.
+     */
+    protected <X> X insertNewUser(String emailAddress, Supplier<X> insert) {
+        try {
+            return transactionTemplate.execute(() -> {
+                X inserted = insert.get();
+                transactionTemplate.afterCommit(() -> emailRegistered(emailAddress));
+                return inserted;
+            });
+        } catch (PersistenceException e) {
+            if (isUniqueViolation(e)) {
+                log.error("[{}] already exists in the database throwing exception", emailAddress);
+                throw new CustomException("DuplicateEmailAddress", "Email address already exists in the database");
+            }
+            throw e;
+        }
+    }
+
+    private void emailRegistered(String emailAddress) {
+        BloomFilter filter = emailFilter;
+        if (filter != null) {
+            filter.put(emailAddress);
+        }
+        BloomFilter warming = warmingEmailFilter;
+        if (warming != null) {
+            warming.put(emailAddress);
+        }
+    }
+
+    private static boolean isUniqueViolation(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException && UNIQUE_VIOLATION.equals(((SQLException) cause).getSQLState())) {
+                return true;
+            }
+        }
+        return false;
     }
 
     @Override
@@ -30,37 +142,69 @@ public abstract class BaseUserServiceImpl<T extends User, R extends BaseUserRepo
     }
 
     @Override
-    public T login(String emailAddress, String password) {
-        log.info("Logging in with this data [email:{}, password{}]", emailAddress, password);
-        if (baseRepository.existsByEmailAndPass(emailAddress, password)) {
-            T user = findByEmailAddress(emailAddress).orElse(null);
-            if (user == null) {
-                throw new CustomException("UserNotFound", "We can't find the user");
+    public LoginResult<T> login(String emailAddress, String password) {
+        log.info("Logging in with [{}]", emailAddress);
+        Optional<T> found = baseRepository.findByEmailAddress(emailAddress);
+        if (found.isEmpty()) {
+            // spend the same time as a wrong password so unknown addresses can't be told apart
+            passwordHasher.verify(password, dummyHash());
+            throw new CustomException("UserNotFound", "Check email or password");
+        }
+        T user = found.get();
+        if (!passwordHasher.verify(password, user.getPassword())) {
+            throw new CustomException("UserNotFound", "Check email or password");
+        }
+        if (passwordHasher.needsRehash(user.getPassword())) {
+            String rehashed = passwordHasher.hash(password);
+            if (baseRepository.updatePassword(user.getId(), user.getPassword(), rehashed)) {
+                log.info("Upgraded the stored password of [{}]", user.getEmailAddress());
+                user.setPassword(rehashed);
             }
-            log.info("[{}] successfully longed in", user.getEmailAddress());
-            return user;
         }
-        throw new CustomException("UserNotFound", "Check email or password");
+        log.info("[{}] successfully longed in", user.getEmailAddress());
+        return new LoginResult<>(user, sessionTokens.issue(user.getId(), getUserRole()));
     }
 
     @Override
-    public void editPassword(Long userId, String newPassword) {
+    public SessionToken verifySession(String token) {
+        SessionToken session = sessionTokens.verify(token);
+        if (session.role() != getUserRole()) {
+            log.error("Token of a [{}] used as [{}] throwing exception", session.role(), getUserRole());
+            throw new CustomException("InvalidToken", "Session token is not valid");
+        }
+        return session;
+    }
 
-        T t = baseRepository.findById(userId).orElseThrow(
-                () -> new CustomException("UserNotFound", "We can't find the user"));
-        log.info("[{}] is trying to change password from [{}] to [{}]",
-                t.getEmailAddress(), t.getPassword(), newPassword);
-        if (!StringUtils.isBlank(newPassword)){
-            try {
-                t.setPassword(newPassword);
-                baseRepository.save(t);
-            } catch (PersistenceException e) {
-                System.out.println(e.getMessage());
-            }
-        }else {
+    @Override
+    public void editPassword(Long userId, String newPassword) {
+        if (StringUtils.isBlank(newPassword)) {
             log.error("Password is empty throwing exception");
             throw new CustomException("invalidPassword","Password must not be blank");
         }
+        String hashed = passwordHasher.hash(newPassword);
+        try {
+            transactionTemplate.run(() -> {
+                T t = baseRepository.findById(userId).orElseThrow(
+                        () -> new CustomException("UserNotFound", "We can't find the user"));
+                log.info("[{}] is changing password", t.getEmailAddress());
+                t.setPassword(hashed);
+                baseRepository.save(t);
+                // old tokens stay valid until the new hash is actually stored
+                transactionTemplate.afterCommit(() -> sessionTokens.revokeAll(userId));
+            });
+        } catch (PersistenceException e) {
+            log.error("Changing the password of user [{}] failed throwing exception", userId, e);
+            throw new CustomException("PasswordNotChanged", "We could not change your password, please try again",
+                    e);
+        }
+    }
 
+    private String dummyHash() {
+        String hash = dummyHash;
+        if (hash == null) {
+            hash = passwordHasher.hash(UUID.randomUUID().toString());
+            dummyHash = hash;
+        }
+        return hash;
     }
 }
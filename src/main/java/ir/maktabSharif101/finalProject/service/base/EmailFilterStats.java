@@ -0,0 +1,19 @@
+package ir.maktabSharif101.finalProject.service.base;
+
+/**
+ * Counters of the email-presence filter in front of {@code existsByEmailAddress}.
+ * <p>
+ * {@code skippedQueries} are checks the filter answered "absent" on its own; {@code falsePositives}
+ * are checks it passed on to the database that turned out to be absent anyway.
+ */
+public record EmailFilterStats(long checks, long skippedQueries, long falsePositives,
+                               double expectedFpp, long insertions, long memoryBytes) {
+
+    /**
+     * Share of absent emails that still cost a database query.
+     */
+    public double observedFpp() {
+        long absent = skippedQueries + falsePositives;
+        return absent == 0 ? 0 : (double) falsePositives / absent;
+    }
+}
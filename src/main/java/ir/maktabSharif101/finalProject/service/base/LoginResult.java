@@ -0,0 +1,10 @@
+package ir.maktabSharif101.finalProject.service.base;
+
+import ir.maktabSharif101.finalProject.entity.User;
+
+/**
+ * What a successful login hands back: the user and a signed session token for them, which
+ * {@code verifySession} checks on later calls without touching the database.
+ */
+public record LoginResult<T extends User>(T user, String token) {
+}
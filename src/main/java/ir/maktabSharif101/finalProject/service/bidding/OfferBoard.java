@@ -0,0 +1,59 @@
+package ir.maktabSharif101.finalProject.service.bidding;
+
+import ir.maktabSharif101.finalProject.service.dto.SuggestionOffer;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The best {@code capacity} offers on one order: cheapest first, then higher technician score,
+ * then earlier submission. Offers are inserted under the board's lock and published as a new
+ * array, so {@link #top()} never blocks and never sees a half-updated ranking.
+ */
+public class OfferBoard {
+
+    static final Comparator<SuggestionOffer> RANKING = Comparator
+            .comparingDouble(SuggestionOffer::price)
+            .thenComparing(Comparator.comparingDouble(SuggestionOffer::technicianScore).reversed())
+            .thenComparing(SuggestionOffer::submittedAt)
+            .thenComparingLong(SuggestionOffer::suggestionId);
+
+    private final int capacity;
+    private volatile SuggestionOffer[] offers;
+
+    OfferBoard(int capacity, List<SuggestionOffer> initial) {
+        this.capacity = capacity;
+        SuggestionOffer[] sorted = initial.toArray(new SuggestionOffer[0]);
+        Arrays.sort(sorted, RANKING);
+        this.offers = sorted.length > capacity ? Arrays.copyOf(sorted, capacity) : sorted;
+    }
+
+    /**
+     * Adds {@code offer} if it ranks among the best; returns whether it did.
+     */
+    synchronized boolean offer(SuggestionOffer offer) {
+        SuggestionOffer[] current = offers;
+        if (current.length == capacity && RANKING.compare(offer, current[capacity - 1]) >= 0) {
+            return false;
+        }
+        for (SuggestionOffer existing : current) {
+            if (existing.suggestionId() == offer.suggestionId()) {
+                return false;
+            }
+        }
+        int position = Arrays.binarySearch(current, offer, RANKING);
+        int insertAt = position >= 0 ? position : -position - 1;
+        int length = Math.min(capacity, current.length + 1);
+        SuggestionOffer[] updated = new SuggestionOffer[length];
+        System.arraycopy(current, 0, updated, 0, insertAt);
+        updated[insertAt] = offer;
+        System.arraycopy(current, insertAt, updated, insertAt + 1, length - insertAt - 1);
+        offers = updated;
+        return true;
+    }
+
+    public List<SuggestionOffer> top() {
+        return List.of(offers);
+    }
+}
@@ -0,0 +1,54 @@
+package ir.maktabSharif101.finalProject.service.bidding;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import ir.maktabSharif101.finalProject.service.dto.SuggestionOffer;
+
+import java.util.List;
+import java.util.function.LongFunction;
+
+/**
+ * Per-order {@link OfferBoard}s for the orders currently being bid on.
+ * <p>
+ * Boards live in a bounded Caffeine cache. A board that is missing (never built, or evicted)
+ * is rebuilt from the database through {@code loader}, which must return the best
+ * {@code boardSize} stored offers of the order. Offers are added only after their suggestion has
+ * committed; an offer that the loader already returned is ignored, so the two never double up.
+ */
+public class SuggestionRanking {
+
+    private final int boardSize;
+    private final LongFunction<List<SuggestionOffer>> loader;
+    private final Cache<Long, OfferBoard> boards;
+
+    public SuggestionRanking(int boardSize, long maximumOrders, LongFunction<List<SuggestionOffer>> loader) {
+        this.boardSize = boardSize;
+        this.loader = loader;
+        this.boards = Caffeine.newBuilder().maximumSize(maximumOrders).recordStats().build();
+    }
+
+    public void offer(long orderId, SuggestionOffer offer) {
+        board(orderId).offer(offer);
+    }
+
+    public List<SuggestionOffer> top(long orderId) {
+        return board(orderId).top();
+    }
+
+    public void evict(long orderId) {
+        boards.invalidate(orderId);
+    }
+
+    public int getBoardSize() {
+        return boardSize;
+    }
+
+    public CacheStats stats() {
+        return boards.stats();
+    }
+
+    private OfferBoard board(long orderId) {
+        return boards.get(orderId, id -> new OfferBoard(boardSize, loader.apply(id)));
+    }
+}
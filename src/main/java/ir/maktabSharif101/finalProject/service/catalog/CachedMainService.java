@@ -0,0 +1,21 @@
+package ir.maktabSharif101.finalProject.service.catalog;
+
+import ir.maktabSharif101.finalProject.entity.MainServices;
+
+/**
+ * A main service as {@link CatalogCache} keeps it, without its sub services.
+ */
+public record CachedMainService(Long id, String name) implements CatalogEntry<MainServices> {
+
+    public static CachedMainService of(MainServices mainServices) {
+        return new CachedMainService(mainServices.getId(), mainServices.getName());
+    }
+
+    @Override
+    public MainServices toEntity() {
+        MainServices mainServices = new MainServices();
+        mainServices.setId(id);
+        mainServices.setName(name);
+        return mainServices;
+    }
+}
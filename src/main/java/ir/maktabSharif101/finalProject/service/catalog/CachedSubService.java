@@ -0,0 +1,29 @@
+package ir.maktabSharif101.finalProject.service.catalog;
+
+import ir.maktabSharif101.finalProject.entity.MainServices;
+import ir.maktabSharif101.finalProject.entity.SubServices;
+
+/**
+ * A sub service as {@link CatalogCache} keeps it: its own columns and its main service's id and
+ * name, without the technician and order collections.
+ */
+public record CachedSubService(Long id, String name, double baseWage, String description,
+                               CachedMainService mainService) implements CatalogEntry<SubServices> {
+
+    public static CachedSubService of(SubServices subServices) {
+        MainServices mainServices = subServices.getMainServices();
+        return new CachedSubService(subServices.getId(), subServices.getName(), subServices.getBaseWage(),
+                subServices.getDescription(), mainServices == null ? null : CachedMainService.of(mainServices));
+    }
+
+    @Override
+    public SubServices toEntity() {
+        SubServices subServices = new SubServices();
+        subServices.setId(id);
+        subServices.setName(name);
+        subServices.setBaseWage(baseWage);
+        subServices.setDescription(description);
+        subServices.setMainServices(mainService == null ? null : mainService.toEntity());
+        return subServices;
+    }
+}
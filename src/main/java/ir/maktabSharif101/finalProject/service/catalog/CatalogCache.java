@@ -0,0 +1,86 @@
+package ir.maktabSharif101.finalProject.service.catalog;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import ir.maktabSharif101.finalProject.base.entity.BaseEntity;
+import ir.maktabSharif101.finalProject.base.persistence.UnitOfWork;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Read-through cache for catalog entities (main and sub services), by id and by name.
+ * <p>
+ * Both maps are bounded and evicted by W-TinyLFU. Misses are cached too, so repeated
+ * {@code existsByName} checks for a free name don't reach the database either. Entries are
+ * never refreshed on their own: every catalog mutation must call one of the {@code invalidate}
+ * methods once it commits.
+ * <p>
+ * Entries are immutable {@link CatalogEntry} values and every lookup hands out a fresh entity
+ * built from one, so callers may change what they get. Only loads made outside any unit of work
+ * fill the cache: those read committed rows through an entity manager of their own, while a
+ * caller's unit of work may hold changes that are not committed yet, or never will be. Inside one,
+ * hits are still served and misses are read through without being stored.
+ */
+public class CatalogCache<T extends BaseEntity<Long>, V extends CatalogEntry<T>> {
+
+    private final UnitOfWork unitOfWork;
+    private final Function<T, V> toEntry;
+    private final Cache<Long, Optional<V>> byId;
+    private final Cache<String, Optional<V>> byName;
+
+    public CatalogCache(UnitOfWork unitOfWork, long maximumSize, Function<T, V> toEntry) {
+        this.unitOfWork = unitOfWork;
+        this.toEntry = toEntry;
+        this.byId = Caffeine.newBuilder().maximumSize(maximumSize).recordStats().build();
+        this.byName = Caffeine.newBuilder().maximumSize(maximumSize).recordStats().build();
+    }
+
+    public Optional<T> findById(Long id, Function<Long, Optional<T>> loader) {
+        return find(byId, id, loader);
+    }
+
+    public Optional<T> findByName(String name, Function<String, Optional<T>> loader) {
+        return find(byName, name, loader);
+    }
+
+    private <K> Optional<T> find(Cache<K, Optional<V>> cache, K key, Function<K, Optional<T>> loader) {
+        Optional<V> entry;
+        if (unitOfWork.isActive()) {
+            entry = cache.getIfPresent(key);
+            if (entry == null) {
+                entry = loader.apply(key).map(toEntry);
+            }
+        } else {
+            entry = cache.get(key, missing -> loader.apply(missing).map(toEntry));
+        }
+        return entry.map(CatalogEntry::toEntity);
+    }
+
+    /**
+     * Drops the entry for {@code id}, the entry for {@code name}, and any name entry that still
+     * points at {@code id} (the entity may have been renamed).
+     */
+    public void invalidate(Long id, String name) {
+        if (name != null) {
+            byName.invalidate(name);
+        }
+        if (id != null) {
+            byId.invalidate(id);
+            byName.asMap().values().removeIf(cached -> cached.isPresent() && id.equals(cached.get().id()));
+        }
+    }
+
+    public void invalidateAll() {
+        byId.invalidateAll();
+        byName.invalidateAll();
+    }
+
+    /**
+     * Hit, miss and eviction counts of both lookups combined.
+     */
+    public CacheStats stats() {
+        return byId.stats().plus(byName.stats());
+    }
+}
@@ -0,0 +1,11 @@
+package ir.maktabSharif101.finalProject.service.catalog;
+
+/**
+ * The immutable form a catalog entity is cached in. {@link #toEntity} builds a new detached
+ * entity every time, so whatever a caller does to it never reaches the cache.
+ */
+public interface CatalogEntry<T> {
+    Long id();
+
+    T toEntity();
+}
@@ -0,0 +1,167 @@
+package ir.maktabSharif101.finalProject.service.catalog;
+
+import ir.maktabSharif101.finalProject.entity.MainServices;
+import ir.maktabSharif101.finalProject.entity.SubServices;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable copy of the whole MainServices → SubServices tree.
+ * <p>
+ * Main services are stored ordered by id, and the sub services of each main service sit next to
+ * each other (also ordered by id), so the children of main service {@code m} are the indexes
+ * {@code firstSubService(m)} (inclusive) to {@code endSubService(m)} (exclusive). Lookups by id
+ * are binary searches, lookups by name hit a read-only map, and every accessor takes and returns
+ * indexes or plain values, so reading a snapshot never allocates and needs no locking.
+ * Lookups return {@link #NOT_FOUND} for unknown ids and names.
+ */
+public final class CatalogSnapshot {
+
+    public static final int NOT_FOUND = -1;
+
+    private final long[] mainIds;
+    private final String[] mainNames;
+    private final int[] firstChild;
+
+    private final long[] subIds;
+    private final String[] subNames;
+    private final double[] subBaseWages;
+    private final String[] subDescriptions;
+    private final int[] subParents;
+
+    private final long[] sortedSubIds;
+    private final int[] sortedSubIndexes;
+
+    private final Map<String, Integer> mainIndexByName;
+    private final Map<String, Integer> subIndexByName;
+
+    private CatalogSnapshot(List<MainServices> mainServices) {
+        List<MainServices> mains = new ArrayList<>(mainServices);
+        mains.sort(Comparator.comparing(MainServices::getId));
+        int subCount = mains.stream().mapToInt(main -> main.getSubServices().size()).sum();
+
+        mainIds = new long[mains.size()];
+        mainNames = new String[mains.size()];
+        firstChild = new int[mains.size() + 1];
+        subIds = new long[subCount];
+        subNames = new String[subCount];
+        subBaseWages = new double[subCount];
+        subDescriptions = new String[subCount];
+        subParents = new int[subCount];
+        Map<String, Integer> mainsByName = new HashMap<>();
+        Map<String, Integer> subsByName = new HashMap<>();
+
+        int next = 0;
+        for (int m = 0; m < mains.size(); m++) {
+            MainServices main = mains.get(m);
+            mainIds[m] = main.getId();
+            mainNames[m] = main.getName();
+            if (main.getName() != null) {
+                mainsByName.put(main.getName(), m);
+            }
+            firstChild[m] = next;
+            List<SubServices> children = new ArrayList<>(main.getSubServices());
+            children.sort(Comparator.comparing(SubServices::getId));
+            for (SubServices child : children) {
+                subIds[next] = child.getId();
+                subNames[next] = child.getName();
+                subBaseWages[next] = child.getBaseWage();
+                subDescriptions[next] = child.getDescription();
+                subParents[next] = m;
+                if (child.getName() != null) {
+                    subsByName.put(child.getName(), next);
+                }
+                next++;
+            }
+        }
+        firstChild[mains.size()] = next;
+
+        Integer[] order = new Integer[subCount];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, Comparator.comparingLong(i -> subIds[i]));
+        sortedSubIds = new long[subCount];
+        sortedSubIndexes = new int[subCount];
+        for (int i = 0; i < subCount; i++) {
+            sortedSubIds[i] = subIds[order[i]];
+            sortedSubIndexes[i] = order[i];
+        }
+
+        mainIndexByName = Collections.unmodifiableMap(mainsByName);
+        subIndexByName = Collections.unmodifiableMap(subsByName);
+    }
+
+    /**
+     * Copies the given main services and their (already loaded) sub services.
+     */
+    public static CatalogSnapshot of(List<MainServices> mainServices) {
+        return new CatalogSnapshot(mainServices);
+    }
+
+    public int mainServiceCount() {
+        return mainIds.length;
+    }
+
+    public int subServiceCount() {
+        return subIds.length;
+    }
+
+    public int indexOfMainService(long id) {
+        int index = Arrays.binarySearch(mainIds, id);
+        return index >= 0 ? index : NOT_FOUND;
+    }
+
+    public int indexOfMainService(String name) {
+        return mainIndexByName.getOrDefault(name, NOT_FOUND);
+    }
+
+    public int indexOfSubService(long id) {
+        int index = Arrays.binarySearch(sortedSubIds, id);
+        return index >= 0 ? sortedSubIndexes[index] : NOT_FOUND;
+    }
+
+    public int indexOfSubService(String name) {
+        return subIndexByName.getOrDefault(name, NOT_FOUND);
+    }
+
+    public long mainServiceId(int mainIndex) {
+        return mainIds[mainIndex];
+    }
+
+    public String mainServiceName(int mainIndex) {
+        return mainNames[mainIndex];
+    }
+
+    public int firstSubService(int mainIndex) {
+        return firstChild[mainIndex];
+    }
+
+    public int endSubService(int mainIndex) {
+        return firstChild[mainIndex + 1];
+    }
+
+    public long subServiceId(int subIndex) {
+        return subIds[subIndex];
+    }
+
+    public String subServiceName(int subIndex) {
+        return subNames[subIndex];
+    }
+
+    public double subServiceBaseWage(int subIndex) {
+        return subBaseWages[subIndex];
+    }
+
+    public String subServiceDescription(int subIndex) {
+        return subDescriptions[subIndex];
+    }
+
+    public int mainServiceOf(int subIndex) {
+        return subParents[subIndex];
+    }
+}
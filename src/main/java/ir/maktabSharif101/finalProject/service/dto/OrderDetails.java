@@ -0,0 +1,16 @@
+package ir.maktabSharif101.finalProject.service.dto;
+
+import ir.maktabSharif101.finalProject.entity.enums.OrderStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Everything the order page shows, from one query. {@code bestOfferPrice} is null while there
+ * are no suggestions.
+ */
+public record OrderDetails(long orderId, OrderStatus status, String jobInfo, LocalDateTime dateAndTime,
+                           String address, double price, String comment, double point,
+                           long customerId, String customerFirstname, String customerLastname,
+                           long subServiceId, String subServiceName, double baseWage,
+                           long suggestionCount, Double bestOfferPrice) {
+}
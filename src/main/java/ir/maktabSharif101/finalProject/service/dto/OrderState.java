@@ -0,0 +1,10 @@
+package ir.maktabSharif101.finalProject.service.dto;
+
+import ir.maktabSharif101.finalProject.entity.enums.OrderStatus;
+
+/**
+ * The part of an order a status transition depends on, read without loading the entity: where it
+ * is, and who may move it. {@code technicianId} is null until a suggestion is accepted.
+ */
+public record OrderState(long orderId, OrderStatus status, long version, long customerId, Long technicianId) {
+}
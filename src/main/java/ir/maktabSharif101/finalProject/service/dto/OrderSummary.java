@@ -0,0 +1,12 @@
+package ir.maktabSharif101.finalProject.service.dto;
+
+import ir.maktabSharif101.finalProject.entity.enums.OrderStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * One line of an order list: enough to show and pick an order, read straight from the columns.
+ */
+public record OrderSummary(long orderId, OrderStatus status, LocalDateTime dateAndTime, double price,
+                           long subServiceId, String subServiceName, long suggestionCount) {
+}
@@ -0,0 +1,11 @@
+package ir.maktabSharif101.finalProject.service.dto;
+
+/**
+ * How many ratings a technician has and what they add up to.
+ */
+public record RatingAggregate(long technicianId, long count, double sum) {
+
+    public double mean() {
+        return count == 0 ? 0 : sum / count;
+    }
+}
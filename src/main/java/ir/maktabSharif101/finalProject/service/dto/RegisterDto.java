@@ -30,6 +30,7 @@ public class RegisterDto implements Serializable {
     @NotBlank(message = "password must not be empty")
     @Pattern(regexp = "^(?=.*[a-zA-Z])(?=.*[0-9])[a-zA-Z0-9]+$"
             , message = "password must be a combination of letters and numbers")
+    @ToString.Exclude
     String password;
 
 }
\ No newline at end of file
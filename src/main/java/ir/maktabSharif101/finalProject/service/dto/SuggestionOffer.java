@@ -0,0 +1,22 @@
+package ir.maktabSharif101.finalProject.service.dto;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.util.Date;
+
+/**
+ * One technician's bid on an order, as shown to the customer choosing between offers. The
+ * duration is null for old bids whose free-text duration couldn't be read.
+ */
+public record SuggestionOffer(long suggestionId, long technicianId, double technicianScore, double price,
+                              LocalTime suggestedTime, Duration duration, Instant submittedAt) {
+
+    /**
+     * Used by the JPQL constructor expression, which hands over the entity's {@link Date}.
+     */
+    public SuggestionOffer(long suggestionId, long technicianId, double technicianScore, double price,
+                           LocalTime suggestedTime, Duration duration, Date submittedAt) {
+        this(suggestionId, technicianId, technicianScore, price, suggestedTime, duration, submittedAt.toInstant());
+    }
+}
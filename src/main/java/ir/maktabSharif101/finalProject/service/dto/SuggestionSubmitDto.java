@@ -0,0 +1,32 @@
+package ir.maktabSharif101.finalProject.service.dto;
+
+import ir.maktabSharif101.finalProject.utils.JobDurations;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class SuggestionSubmitDto {
+
+    @NotNull(message = "you must specify the order")
+    Long orderId;
+
+    @Positive(message = "Suggested price must be positive")
+    double suggestedPrice;
+
+    @NotBlank(message = "Time must be specified")
+    @Pattern(regexp = "^([01]\\d|2[0-3]):([0-5]\\d)$",message = "The correct time format is (HH:MM)")
+    String suggestedTime;
+
+    @NotBlank(message = "Duration must be specified")
+    @Pattern(regexp = JobDurations.PATTERN, message = "The correct duration format is like 2h, 45m or 1h30m")
+    String duration;
+}
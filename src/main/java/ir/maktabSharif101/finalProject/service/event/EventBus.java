@@ -0,0 +1,37 @@
+package ir.maktabSharif101.finalProject.service.event;
+
+import ir.maktabSharif101.finalProject.entity.OutboxEvent;
+import ir.maktabSharif101.finalProject.entity.enums.EventType;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-process subscribers for outbox events. Delivery is synchronous on the relay thread and
+ * at-least-once, so subscribers must tolerate seeing an event twice; an exception thrown by a
+ * subscriber makes the relay retry that event (for every subscriber) later.
+ */
+public class EventBus {
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    public void subscribe(EventType eventType, Consumer<OutboxEvent> subscriber) {
+        subscriptions.add(new Subscription(eventType, subscriber));
+    }
+
+    public void subscribeAll(Consumer<OutboxEvent> subscriber) {
+        subscriptions.add(new Subscription(null, subscriber));
+    }
+
+    void publish(OutboxEvent event) {
+        for (Subscription subscription : subscriptions) {
+            if (subscription.eventType == null || subscription.eventType == event.getEventType()) {
+                subscription.subscriber.accept(event);
+            }
+        }
+    }
+
+    private record Subscription(EventType eventType, Consumer<OutboxEvent> subscriber) {
+    }
+}
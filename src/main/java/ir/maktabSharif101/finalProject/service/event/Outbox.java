@@ -0,0 +1,34 @@
+package ir.maktabSharif101.finalProject.service.event;
+
+import ir.maktabSharif101.finalProject.base.persistence.TransactionTemplate;
+import ir.maktabSharif101.finalProject.base.persistence.UnitOfWork;
+import ir.maktabSharif101.finalProject.entity.OutboxEvent;
+import ir.maktabSharif101.finalProject.entity.enums.EventType;
+import ir.maktabSharif101.finalProject.repository.OutboxEventRepository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Records events in the outbox table. {@link #record} joins the caller's transaction, so an event
+ * exists exactly when the change it describes committed; the relay is woken after the commit.
+ */
+public class Outbox {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxRelay relay;
+
+    public Outbox(OutboxEventRepository outboxEventRepository, UnitOfWork unitOfWork, OutboxRelay relay) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.transactionTemplate = new TransactionTemplate(unitOfWork);
+        this.relay = relay;
+    }
+
+    public void record(String aggregateType, long aggregateId, EventType eventType, String payload) {
+        OutboxEvent event = new OutboxEvent(aggregateType, aggregateId, eventType, payload, LocalDateTime.now());
+        transactionTemplate.run(() -> {
+            outboxEventRepository.save(event);
+            transactionTemplate.afterCommit(relay::wakeUp);
+        });
+    }
+}
@@ -0,0 +1,9 @@
+package ir.maktabSharif101.finalProject.service.event;
+
+import java.time.Duration;
+
+/**
+ * How far subscribers are behind: events written but not yet delivered, and the age of the oldest.
+ */
+public record OutboxLag(long pendingEvents, Duration oldestPendingAge, long deliveredEvents, long failedDeliveries) {
+}
@@ -0,0 +1,130 @@
+package ir.maktabSharif101.finalProject.service.event;
+
+import ir.maktabSharif101.finalProject.entity.OutboxEvent;
+import ir.maktabSharif101.finalProject.repository.OutboxEventRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drains the outbox table to the {@link EventBus} on one background thread.
+ * <p>
+ * Events are read in {@code seq} order in batches, delivered, and only then deleted, so a crash
+ * between delivery and delete redelivers them (at-least-once). The database assigns {@code seq} on
+ * insert, so unlike the pooled ids it follows the order events were written in, across threads and
+ * processes; because a single thread delivers in that order, events of one aggregate arrive in
+ * the order they were written. When a subscriber
+ * throws, the relay deletes what it delivered before that event and retries from it after
+ * {@code pollInterval}; nothing later is delivered first, which keeps the per-aggregate order at
+ * the cost of holding everything behind a failing event. The relay is woken after every commit
+ * that wrote an event and also polls, to pick up events written by other processes.
+ */
+@Slf4j
+public class OutboxRelay implements AutoCloseable {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final EventBus eventBus;
+    private final int batchSize;
+    private final Duration pollInterval;
+    private final Semaphore signal = new Semaphore(0);
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository, EventBus eventBus, int batchSize,
+                       Duration pollInterval) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.eventBus = eventBus;
+        this.batchSize = batchSize;
+        this.pollInterval = pollInterval;
+        this.thread = new Thread(this::run, "outbox-relay");
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    void wakeUp() {
+        if (signal.availablePermits() == 0) {
+            signal.release();
+        }
+    }
+
+    /**
+     * Delivers one batch; returns true if it was full and delivered cleanly, i.e. more may be waiting.
+     */
+    boolean relayBatch() {
+        List<OutboxEvent> batch = outboxEventRepository.findOldest(batchSize);
+        List<Long> deliveredIds = new ArrayList<>(batch.size());
+        boolean failed = false;
+        for (OutboxEvent event : batch) {
+            try {
+                eventBus.publish(event);
+            } catch (RuntimeException e) {
+                failures.increment();
+                log.error("Delivering outbox event [{}] failed, retrying later", event.getId(), e);
+                failed = true;
+                break;
+            }
+            deliveredIds.add(event.getId());
+        }
+        if (!deliveredIds.isEmpty()) {
+            outboxEventRepository.deleteByIds(deliveredIds);
+            delivered.add(deliveredIds.size());
+        }
+        return !failed && batch.size() == batchSize;
+    }
+
+    public OutboxLag getLag() {
+        Duration age = outboxEventRepository.findOldestCreatedAt()
+                .map(oldest -> Duration.between(oldest, LocalDateTime.now()))
+                .orElse(Duration.ZERO);
+        return new OutboxLag(outboxEventRepository.countPending(), age, delivered.sum(), failures.sum());
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        signal.release();
+        try {
+            thread.join(pollInterval.toMillis() * 2 + 1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                if (relayBatch()) {
+                    continue;
+                }
+                signal.tryAcquire(pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+                signal.drainPermits();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Outbox relay failed, retrying after [{}]", pollInterval, e);
+                sleepQuietly();
+            }
+        }
+    }
+
+    private void sleepQuietly() {
+        try {
+            TimeUnit.MILLISECONDS.sleep(pollInterval.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
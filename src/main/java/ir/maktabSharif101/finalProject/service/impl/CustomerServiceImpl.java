@@ -1,12 +1,16 @@
 package ir.maktabSharif101.finalProject.service.impl;
 
 
+import ir.maktabSharif101.finalProject.base.persistence.UnitOfWork;
 import ir.maktabSharif101.finalProject.entity.Customer;
+import ir.maktabSharif101.finalProject.entity.enums.UserRole;
 import ir.maktabSharif101.finalProject.repository.CustomerRepository;
 import ir.maktabSharif101.finalProject.service.CustomerService;
 import ir.maktabSharif101.finalProject.service.base.BaseUserServiceImpl;
 import ir.maktabSharif101.finalProject.service.dto.RegisterDto;
 import ir.maktabSharif101.finalProject.utils.CustomException;
+import ir.maktabSharif101.finalProject.utils.PasswordHasher;
+import ir.maktabSharif101.finalProject.utils.SessionTokens;
 
 import javax.persistence.PersistenceException;
 
@@ -20,11 +24,17 @@ public class CustomerServiceImpl extends BaseUserServiceImpl<Customer, CustomerR
 
     private final Validator validator;
 
-    public CustomerServiceImpl(CustomerRepository baseRepository, Validator validator) {
-        super(baseRepository);
+    public CustomerServiceImpl(CustomerRepository baseRepository, UnitOfWork unitOfWork,
+                               PasswordHasher passwordHasher, SessionTokens sessionTokens, Validator validator) {
+        super(baseRepository, unitOfWork, passwordHasher, sessionTokens);
         this.validator = validator;
     }
 
+    @Override
+    protected UserRole getUserRole() {
+        return UserRole.CUSTOMER;
+    }
+
     @Override
     public Customer register(RegisterDto registerDto) {
         log.info("Registering with this data [{}]", registerDto);
@@ -35,10 +45,10 @@ public class CustomerServiceImpl extends BaseUserServiceImpl<Customer, CustomerR
             Customer customer = mapDtoValues(registerDto);
             try {
                 log.info("Connecting to [{}]",baseRepository);
-                return baseRepository.save(customer);
+                return insertNewUser(customer.getEmailAddress(), () -> baseRepository.save(customer));
             } catch (PersistenceException e) {
-                log.error("PersistenceException occurred printing ... ");
-                System.out.println(e.getMessage());
+                log.error("Registering [{}] failed throwing exception", registerDto.getEmailAddress(), e);
+                throw new CustomException("RegistrationFailed", "We could not register you, please try again", e);
             }
         }
         String violationMessages = getViolationMessages(violations);
@@ -68,7 +78,7 @@ public class CustomerServiceImpl extends BaseUserServiceImpl<Customer, CustomerR
         customer.setFirstname(registerDto.getFirstname());
         customer.setLastname(registerDto.getLastname());
         customer.setEmailAddress(registerDto.getEmailAddress());
-        customer.setPassword(registerDto.getPassword());
+        customer.setPassword(passwordHasher.hash(registerDto.getPassword()));
         return customer;
     }
 
@@ -1,21 +1,36 @@
 package ir.maktabSharif101.finalProject.service.impl;
 
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import ir.maktabSharif101.finalProject.base.persistence.Propagation;
+import ir.maktabSharif101.finalProject.base.persistence.UnitOfWork;
 import ir.maktabSharif101.finalProject.base.service.BaseEntityServiceImpl;
 import ir.maktabSharif101.finalProject.entity.MainServices;
 import ir.maktabSharif101.finalProject.repository.MainServicesRepository;
 import ir.maktabSharif101.finalProject.service.MainServicesService;
+import ir.maktabSharif101.finalProject.service.catalog.CachedMainService;
+import ir.maktabSharif101.finalProject.service.catalog.CatalogCache;
+import ir.maktabSharif101.finalProject.service.catalog.CatalogSnapshot;
 import ir.maktabSharif101.finalProject.utils.CustomException;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 
 import javax.persistence.PersistenceException;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Slf4j
 public class MainServicesServiceImpl extends BaseEntityServiceImpl<MainServices, Long, MainServicesRepository>
         implements MainServicesService {
-    public MainServicesServiceImpl(MainServicesRepository baseRepository) {
-        super(baseRepository);
+    private static final long CACHE_SIZE = 10_000;
+
+    private final CatalogCache<MainServices, CachedMainService> catalogCache;
+    private final AtomicReference<CatalogSnapshot> catalogSnapshot = new AtomicReference<>();
+
+    public MainServicesServiceImpl(MainServicesRepository baseRepository, UnitOfWork unitOfWork) {
+        super(baseRepository, unitOfWork);
+        this.catalogCache = new CatalogCache<>(unitOfWork, CACHE_SIZE, CachedMainService::of);
     }
 
     @Override
@@ -25,23 +40,100 @@ public class MainServicesServiceImpl extends BaseEntityServiceImpl<MainServices,
         try {
             MainServices mainServices = setValues(serviceName);
             log.info("Connecting to [{}]",baseRepository);
-            baseRepository.save(mainServices);
+            save(mainServices);
         } catch (PersistenceException e) {
-            log.error("PersistenceException occurred printing ... ");
-            System.out.println(e.getMessage());
+            log.error("Saving service [{}] failed throwing exception", serviceName, e);
+            throw new CustomException("ServiceNotSaved", "We could not save the service, please try again", e);
         }
     }
 
     @Override
     public Optional<MainServices> findByName(String mainServiceName) {
         log.info("trying to find [{}]",mainServiceName);
-        return baseRepository.findByName(mainServiceName);
+        return catalogCache.findByName(mainServiceName, baseRepository::findByName);
     }
 
     @Override
     public boolean existsByName(String mainServiceName) {
         log.info("trying to check if [{}] exists",mainServiceName);
-        return baseRepository.existsByName(mainServiceName);
+        return catalogCache.findByName(mainServiceName, baseRepository::findByName).isPresent();
+    }
+
+    @Override
+    public Optional<MainServices> findById(Long id) {
+        return catalogCache.findById(id, baseRepository::findById);
+    }
+
+    @Override
+    public MainServices save(MainServices mainServices) {
+        MainServices saved = super.save(mainServices);
+        transactionTemplate.afterCommit(() -> catalogChanged(saved.getId(), saved.getName()));
+        return saved;
+    }
+
+    @Override
+    public List<MainServices> saveAll(Collection<MainServices> entities) {
+        List<MainServices> saved = super.saveAll(entities);
+        transactionTemplate.afterCommit(() -> catalogChanged(null, null));
+        return saved;
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        super.deleteById(id);
+        transactionTemplate.afterCommit(() -> catalogChanged(id, null));
+    }
+
+    @Override
+    public void deleteAll() {
+        super.deleteAll();
+        transactionTemplate.afterCommit(() -> catalogChanged(null, null));
+    }
+
+    @Override
+    public CacheStats getCacheStats() {
+        return catalogCache.stats();
+    }
+
+    @Override
+    public CatalogSnapshot getCatalogSnapshot() {
+        CatalogSnapshot snapshot = catalogSnapshot.get();
+        if (snapshot != null) {
+            return snapshot;
+        }
+        synchronized (catalogSnapshot) {
+            snapshot = catalogSnapshot.get();
+            return snapshot != null ? snapshot : buildCatalogSnapshot();
+        }
+    }
+
+    @Override
+    public void refreshCatalogSnapshot() {
+        synchronized (catalogSnapshot) {
+            if (catalogSnapshot.get() != null) {
+                buildCatalogSnapshot();
+            }
+        }
+    }
+
+    private CatalogSnapshot buildCatalogSnapshot() {
+        // a fresh persistence context, so the caller's stale collections can't leak into the tree
+        List<MainServices> mainServices = transactionTemplate.execute(
+                Propagation.REQUIRES_NEW, true, baseRepository::findAllWithSubServices);
+        CatalogSnapshot snapshot = CatalogSnapshot.of(mainServices);
+        catalogSnapshot.set(snapshot);
+        log.info("Catalog snapshot rebuilt with [{}] main and [{}] sub services",
+                snapshot.mainServiceCount(), snapshot.subServiceCount());
+        return snapshot;
+    }
+
+    private void catalogChanged(Long id, String name) {
+        if (id == null && name == null) {
+            catalogCache.invalidateAll();
+        } else {
+            catalogCache.invalidate(id, name);
+        }
+        refreshCatalogSnapshot();
     }
 
     private void checkConditions(String serviceName) {
@@ -1,11 +1,15 @@
 package ir.maktabSharif101.finalProject.service.impl;
 
+import ir.maktabSharif101.finalProject.base.persistence.UnitOfWork;
 import ir.maktabSharif101.finalProject.entity.Manager;
+import ir.maktabSharif101.finalProject.entity.enums.UserRole;
 import ir.maktabSharif101.finalProject.repository.ManagerRepository;
 import ir.maktabSharif101.finalProject.service.ManagerService;
 import ir.maktabSharif101.finalProject.service.base.BaseUserServiceImpl;
 import ir.maktabSharif101.finalProject.service.dto.RegisterDto;
 import ir.maktabSharif101.finalProject.utils.CustomException;
+import ir.maktabSharif101.finalProject.utils.PasswordHasher;
+import ir.maktabSharif101.finalProject.utils.SessionTokens;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Validator;
 import lombok.extern.slf4j.Slf4j;
@@ -19,11 +23,17 @@ public class ManagerServiceImpl extends BaseUserServiceImpl<Manager, ManagerRepo
 
     private final Validator validator;
 
-    public ManagerServiceImpl(ManagerRepository baseRepository, Validator validator) {
-        super(baseRepository);
+    public ManagerServiceImpl(ManagerRepository baseRepository, UnitOfWork unitOfWork,
+                              PasswordHasher passwordHasher, SessionTokens sessionTokens, Validator validator) {
+        super(baseRepository, unitOfWork, passwordHasher, sessionTokens);
         this.validator = validator;
     }
 
+    @Override
+    protected UserRole getUserRole() {
+        return UserRole.MANAGER;
+    }
+
     @Override
     public Manager register(RegisterDto registerDto) {
         log.info("Registering with this data [{}]", registerDto);
@@ -34,9 +44,10 @@ public class ManagerServiceImpl extends BaseUserServiceImpl<Manager, ManagerRepo
             Manager manager = mapDtoValues(registerDto);
             try {
                 log.info("Connecting to [{}]",baseRepository);
-                return baseRepository.save(manager);
+                return insertNewUser(manager.getEmailAddress(), () -> baseRepository.save(manager));
             } catch (PersistenceException e) {
-                System.out.println(e.getMessage());
+                log.error("Registering [{}] failed throwing exception", registerDto.getEmailAddress(), e);
+                throw new CustomException("RegistrationFailed", "We could not register you, please try again", e);
             }
         }
         String violationMessages = getViolationMessages(violations);
@@ -66,7 +77,7 @@ public class ManagerServiceImpl extends BaseUserServiceImpl<Manager, ManagerRepo
         manager.setFirstname(registerDto.getFirstname());
         manager.setLastname(registerDto.getLastname());
         manager.setEmailAddress(registerDto.getEmailAddress());
-        manager.setPassword(registerDto.getPassword());
+        manager.setPassword(passwordHasher.hash(registerDto.getPassword()));
         return manager;
     }
 }
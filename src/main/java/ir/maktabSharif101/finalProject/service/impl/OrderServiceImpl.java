@@ -1,42 +1,85 @@
 package ir.maktabSharif101.finalProject.service.impl;
 
+import ir.maktabSharif101.finalProject.base.persistence.UnitOfWork;
 import ir.maktabSharif101.finalProject.base.service.BaseEntityServiceImpl;
 import ir.maktabSharif101.finalProject.entity.Customer;
 import ir.maktabSharif101.finalProject.entity.Order;
 import ir.maktabSharif101.finalProject.entity.SubServices;
+import ir.maktabSharif101.finalProject.entity.enums.EventType;
+import ir.maktabSharif101.finalProject.entity.enums.LedgerAccountType;
 import ir.maktabSharif101.finalProject.entity.enums.OrderStatus;
 import ir.maktabSharif101.finalProject.repository.OrderRepository;
+import ir.maktabSharif101.finalProject.repository.SuggestionRepository;
+import ir.maktabSharif101.finalProject.repository.TechnicianRepository;
 import ir.maktabSharif101.finalProject.service.CustomerService;
 import ir.maktabSharif101.finalProject.service.OrderService;
 import ir.maktabSharif101.finalProject.service.SubServicesService;
+import ir.maktabSharif101.finalProject.service.availability.TechnicianCalendar;
+import ir.maktabSharif101.finalProject.service.dto.OrderDetails;
+import ir.maktabSharif101.finalProject.service.dto.OrderState;
+import ir.maktabSharif101.finalProject.service.dto.OrderSummary;
 import ir.maktabSharif101.finalProject.service.dto.OrderSubmitDto;
+import ir.maktabSharif101.finalProject.service.dto.SuggestionOffer;
+import ir.maktabSharif101.finalProject.service.event.Outbox;
+import ir.maktabSharif101.finalProject.service.ledger.Ledger;
+import ir.maktabSharif101.finalProject.service.order.OrderStateMachine;
+import ir.maktabSharif101.finalProject.service.order.RetryPolicy;
 import ir.maktabSharif101.finalProject.utils.CustomException;
+import ir.maktabSharif101.finalProject.utils.SessionToken;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Validator;
 import lombok.extern.slf4j.Slf4j;
 
 import javax.persistence.PersistenceException;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 
 @Slf4j
 public class OrderServiceImpl extends BaseEntityServiceImpl<Order, Long, OrderRepository>
         implements OrderService {
 
+    private static final int MIN_POINT = 1;
+    private static final int MAX_POINT = 5;
+    private static final int MAX_COMMENT_LENGTH = 255;
+    /**
+     * How far one rating moves a technician's recent score towards itself.
+     */
+    private static final double RECENT_SCORE_WEIGHT = 0.2;
+    /**
+     * Booked for old suggestions whose free-text duration couldn't be read.
+     */
+    private static final Duration DEFAULT_JOB_DURATION = Duration.ofHours(1);
+
     private final SubServicesService subServicesService;
     private final CustomerService customerService;
+    private final SuggestionRepository suggestionRepository;
+    private final TechnicianRepository technicianRepository;
     private final Validator validator;
+    private final Outbox outbox;
+    private final TechnicianCalendar calendar;
+    private final Ledger ledger;
+    private final OrderStateMachine stateMachine;
 
-
-    public OrderServiceImpl(OrderRepository baseRepository, SubServicesService subServicesService,
-                            CustomerService customerService, Validator validator) {
-        super(baseRepository);
+    public OrderServiceImpl(OrderRepository baseRepository, UnitOfWork unitOfWork,
+                            SubServicesService subServicesService, CustomerService customerService,
+                            SuggestionRepository suggestionRepository, TechnicianRepository technicianRepository,
+                            Outbox outbox, TechnicianCalendar calendar, Ledger ledger, Validator validator) {
+        super(baseRepository, unitOfWork);
         this.subServicesService = subServicesService;
         this.customerService = customerService;
+        this.suggestionRepository = suggestionRepository;
+        this.technicianRepository = technicianRepository;
         this.validator = validator;
+        this.outbox = outbox;
+        this.calendar = calendar;
+        this.ledger = ledger;
+        this.stateMachine = new OrderStateMachine(unitOfWork, baseRepository, outbox, RetryPolicy.DEFAULT);
     }
 
     @Override
@@ -45,36 +88,146 @@ public class OrderServiceImpl extends BaseEntityServiceImpl<Order, Long, OrderRe
         Set<ConstraintViolation<OrderSubmitDto>> violations = validator.validate(orderSubmitDto);
         if (violations.isEmpty()) {
             log.info("Information is validated - commencing registration");
-            SubServices subServices = subServicesService.findById(orderSubmitDto.getSubServiceId()).orElseThrow(() ->
-                    new CustomException("SubServiceNotFound", "We can not find the sub service"));
+            try {
+                transactionTemplate.run(() -> {
+                    SubServices subServices = subServicesService.findById(orderSubmitDto.getSubServiceId()).orElseThrow(() ->
+                            new CustomException("SubServiceNotFound", "We can not find the sub service"));
 
-            Customer customer = customerService.findById(customerId).orElseThrow(
-                    () -> new CustomException("CustomerNotFound", "We can not find this customer"));
+                    Customer customer = customerService.findById(customerId).orElseThrow(
+                            () -> new CustomException("CustomerNotFound", "We can not find this customer"));
 
-            checkCondition(orderSubmitDto, subServices);
-            Order order = mapDtoValues(orderSubmitDto);
+                    checkCondition(orderSubmitDto, subServices);
+                    Order order = mapDtoValues(orderSubmitDto);
 
-            try {
-                log.info("Connecting to [{}]", baseRepository);
-                baseRepository.beginTransaction();
-                customer.getOrders().add(order);
-                subServices.getOrders().add(order);
-                order.setSubServices(subServices);
-                order.setCustomer(customer);
-                customerService.save(customer);
-                baseRepository.save(order);
-                subServicesService.save(subServices);
-                baseRepository.commitTransaction();
+                    log.info("Connecting to [{}]", baseRepository);
+                    order.setSubServices(subServices);
+                    order.setCustomer(customer);
+                    baseRepository.save(order);
+                    outbox.record("Order", order.getId(), EventType.ORDER_SUBMITTED,
+                            "customerId=" + customerId + ";subServiceId=" + subServices.getId()
+                                    + ";price=" + order.getPrice());
+                });
                 return;
             } catch (PersistenceException e) {
-                baseRepository.rollbackTransaction();
-                System.out.println(e.getMessage());
+                log.error("Saving the order of customer [{}] failed throwing exception", customerId, e);
+                throw new CustomException("OrderNotSaved", "We could not save your order, please try again", e);
             }
         }
         String violationMessages = getViolationMessages(violations);
         throw new CustomException("ValidationException", violationMessages);
     }
 
+    @Override
+    public OrderState changeStatus(SessionToken session, Long orderId, OrderStatus from, OrderStatus to) {
+        log.info("[{}] [{}] is moving order [{}] from [{}] to [{}]", session.role(), session.userId(), orderId, from,
+                to);
+        return stateMachine.transition(orderId, from, to, state -> mayChange(session, state, to));
+    }
+
+    @Override
+    public OrderState payOrder(Long customerId, Long orderId) {
+        log.info("Customer [{}] is paying for order [{}]", customerId, orderId);
+        return transactionTemplate.execute(() -> {
+            long price = Ledger.toMinorUnits(baseRepository.findPrice(orderId).orElseThrow(() ->
+                    new CustomException("OrderNotFound", "We can not find the order")));
+            OrderState paid = stateMachine.transition(orderId, OrderStatus.FINISHED, OrderStatus.PAID,
+                    state -> state.customerId() == customerId && state.technicianId() != null);
+            ledger.transferInTransaction(LedgerAccountType.CUSTOMER, customerId, LedgerAccountType.TECHNICIAN,
+                    paid.technicianId(), price, "order " + orderId);
+            return paid;
+        });
+    }
+
+    @Override
+    public List<OrderSummary> findOrderHistory(Long customerId, Long lastSeenId, int pageSize) {
+        return baseRepository.findSummariesByCustomer(customerId, lastSeenId, pageSize);
+    }
+
+    @Override
+    public List<OrderSummary> findOrdersForSubService(Long subServiceId, OrderStatus status, Long lastSeenId,
+                                                      int pageSize) {
+        return baseRepository.findSummariesBySubService(subServiceId, status, lastSeenId, pageSize);
+    }
+
+    @Override
+    public Optional<OrderDetails> findOrderDetails(Long orderId) {
+        return baseRepository.findDetails(orderId);
+    }
+
+    @Override
+    public void acceptSuggestion(Long customerId, Long orderId, Long suggestionId) {
+        log.info("Customer [{}] is accepting suggestion [{}] on order [{}]", customerId, suggestionId, orderId);
+        SuggestionOffer offer = suggestionRepository.findOffer(orderId, suggestionId).orElseThrow(() ->
+                new CustomException("SuggestionNotFound", "We can not find that suggestion on this order"));
+        LocalDateTime dateAndTime = baseRepository.findDateAndTime(orderId, customerId, OrderStatus.AWAITING_TECHNICIAN)
+                .orElseThrow(() -> new CustomException("InvalidOrderStatus",
+                        "This order isn't waiting for you to pick a technician"));
+        LocalDateTime start = offer.suggestedTime() == null
+                ? dateAndTime
+                : dateAndTime.toLocalDate().atTime(offer.suggestedTime());
+        LocalDateTime end = start.plus(offer.duration() == null ? DEFAULT_JOB_DURATION : offer.duration());
+        transactionTemplate.run(() -> {
+            if (!calendar.book(offer.technicianId(), start, end)) {
+                log.error("Technician [{}] already has a job in [{}, {}) throwing exception", offer.technicianId(),
+                        start, end);
+                throw new CustomException("TechnicianBusy", "This technician already has a job at that time");
+            }
+            transactionTemplate.afterRollback(() -> calendar.release(offer.technicianId(), start, end));
+            if (!baseRepository.assignTechnician(orderId, customerId, offer.technicianId(), offer.price(),
+                    start, end)) {
+                log.error("Order [{}] isn't customer [{}]'s or isn't awaiting a technician throwing exception",
+                        orderId, customerId);
+                throw new CustomException("InvalidOrderStatus",
+                        "This order isn't waiting for you to pick a technician");
+            }
+            outbox.record("Order", orderId, EventType.ORDER_STATUS_CHANGED,
+                    "from=" + OrderStatus.AWAITING_TECHNICIAN + ";to=" + OrderStatus.AWAITING_TECHNICIAN_ARRIVAL
+                            + ";technicianId=" + offer.technicianId() + ";suggestionId=" + suggestionId);
+        });
+    }
+
+    @Override
+    public void rebuildCalendar() {
+        TechnicianCalendar.Builder builder = new TechnicianCalendar.Builder();
+        baseRepository.forEachBooking(LocalDateTime.now(), builder::add);
+        calendar.replace(builder);
+        log.info("Technician calendar rebuilt with [{}] bookings of [{}] technicians", builder.size(),
+                calendar.getTechnicianCount());
+    }
+
+    @Override
+    public void rateOrder(Long customerId, Long orderId, int point, String comment) {
+        log.info("Customer [{}] is rating order [{}] with [{}]", customerId, orderId, point);
+        if (point < MIN_POINT || point > MAX_POINT) {
+            log.error("[{}] is out of range throwing exception", point);
+            throw new CustomException("InvalidPoint", "Points must be between " + MIN_POINT + " and " + MAX_POINT);
+        }
+        if (comment != null && comment.length() > MAX_COMMENT_LENGTH) {
+            log.error("Comment is longer than [{}] throwing exception", MAX_COMMENT_LENGTH);
+            throw new CustomException("InvalidComment", "Comment can't be longer than " + MAX_COMMENT_LENGTH);
+        }
+        transactionTemplate.run(() -> {
+            Long technicianId = baseRepository.rate(orderId, customerId, point, comment).orElse(null);
+            if (technicianId == null) {
+                log.error("Order [{}] can't be rated by customer [{}] throwing exception", orderId, customerId);
+                throw new CustomException("OrderNotRateable", "Only your finished orders can be rated, and only once");
+            }
+            technicianRepository.addRating(technicianId, point, RECENT_SCORE_WEIGHT);
+            outbox.record("Order", orderId, EventType.ORDER_RATED,
+                    "technicianId=" + technicianId + ";point=" + point);
+        });
+    }
+
+    private boolean mayChange(SessionToken session, OrderState state, OrderStatus to) {
+        return switch (session.role()) {
+            case CUSTOMER -> state.customerId() == session.userId()
+                    && to == OrderStatus.AWAITING_TECHNICIAN_SUGGESTION;
+            case TECHNICIAN -> state.technicianId() != null && state.technicianId() == session.userId()
+                    && (to == OrderStatus.STARTED || to == OrderStatus.FINISHED);
+            case MANAGER -> false;
+        };
+    }
+
     private String getViolationMessages(Set<ConstraintViolation<OrderSubmitDto>> violations) {
         log.error("SubmitOrderDto violates some fields throwing exception");
         StringBuilder messageBuilder = new StringBuilder();
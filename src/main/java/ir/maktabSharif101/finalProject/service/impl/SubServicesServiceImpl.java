@@ -1,5 +1,7 @@
 package ir.maktabSharif101.finalProject.service.impl;
 
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import ir.maktabSharif101.finalProject.base.persistence.UnitOfWork;
 import ir.maktabSharif101.finalProject.base.service.BaseEntityServiceImpl;
 import ir.maktabSharif101.finalProject.entity.MainServices;
 import ir.maktabSharif101.finalProject.entity.SubServices;
@@ -9,21 +11,29 @@ import ir.maktabSharif101.finalProject.repository.SubServicesRepository;
 import ir.maktabSharif101.finalProject.service.MainServicesService;
 import ir.maktabSharif101.finalProject.service.SubServicesService;
 import ir.maktabSharif101.finalProject.service.TechnicianService;
+import ir.maktabSharif101.finalProject.service.catalog.CachedSubService;
+import ir.maktabSharif101.finalProject.service.catalog.CatalogCache;
 import ir.maktabSharif101.finalProject.utils.CustomException;
 import lombok.extern.slf4j.Slf4j;
 
 import javax.persistence.PersistenceException;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Slf4j
 public class SubServicesServiceImpl extends BaseEntityServiceImpl<SubServices, Long, SubServicesRepository>
         implements SubServicesService {
+    private static final long CACHE_SIZE = 10_000;
+
+    private final CatalogCache<SubServices, CachedSubService> catalogCache;
     private final MainServicesService mainServicesService;
     private final TechnicianService technicianService;
 
-    public SubServicesServiceImpl(SubServicesRepository baseRepository, MainServicesService mainServicesService
-            , TechnicianService technicianService) {
-        super(baseRepository);
+    public SubServicesServiceImpl(SubServicesRepository baseRepository, UnitOfWork unitOfWork,
+                                  MainServicesService mainServicesService, TechnicianService technicianService) {
+        super(baseRepository, unitOfWork);
+        this.catalogCache = new CatalogCache<>(unitOfWork, CACHE_SIZE, CachedSubService::of);
         this.mainServicesService = mainServicesService;
         this.technicianService = technicianService;
     }
@@ -31,126 +41,168 @@ public class SubServicesServiceImpl extends BaseEntityServiceImpl<SubServices, L
     @Override
     public void addService(String serviceName, double baseWage, String description, String mainServiceName) {
         log.info("Adding a new sub service named [{}]", serviceName);
-        checkConditions(serviceName, mainServiceName);
-        SubServices subServices = setValues(serviceName, baseWage, description);
-
-        MainServices mainServices = mainServicesService.findByName(mainServiceName).orElseThrow(() ->
-                new CustomException("MainServiceNotFound", "We can not find the main service"));
-
         try {
-            log.info("Connecting to [{}]", baseRepository);
-            baseRepository.beginTransaction();
-            subServices.setMainServices(mainServices);
-            mainServices.getSubServices().add(subServices);
-            mainServicesService.save(mainServices);
-            baseRepository.save(subServices);
-            baseRepository.commitTransaction();
+            transactionTemplate.run(() -> {
+                checkConditions(serviceName, mainServiceName);
+                SubServices subServices = setValues(serviceName, baseWage, description);
+
+                MainServices mainServices = mainServicesService.findByName(mainServiceName).orElseThrow(() ->
+                        new CustomException("MainServiceNotFound", "We can not find the main service"));
+
+                log.info("Connecting to [{}]", baseRepository);
+                subServices.setMainServices(mainServices);
+                baseRepository.save(subServices);
+                transactionTemplate.afterCommit(() -> catalogChanged(subServices.getId(), serviceName));
+            });
         } catch (PersistenceException e) {
-            baseRepository.rollbackTransaction();
-            System.out.println(e.getMessage());
+            log.error("Saving sub service [{}] failed throwing exception", serviceName, e);
+            throw new CustomException("ServiceNotSaved", "We could not save the sub service, please try again", e);
         }
     }
 
     @Override
     public Optional<SubServices> findByName(String subServiceName) {
         log.info("trying to find [{}]",subServiceName);
-        return baseRepository.findByName(subServiceName);
+        return catalogCache.findByName(subServiceName, baseRepository::findByName);
     }
 
     @Override
     public boolean existsByName(String subServiceName) {
         log.info("trying to check if [{}] exists",subServiceName);
-        return baseRepository.existsByName(subServiceName);
+        return catalogCache.findByName(subServiceName, baseRepository::findByName).isPresent();
+    }
+
+    @Override
+    public Optional<SubServices> findById(Long id) {
+        return catalogCache.findById(id, baseRepository::findById);
+    }
+
+    @Override
+    public SubServices save(SubServices subServices) {
+        SubServices saved = super.save(subServices);
+        transactionTemplate.afterCommit(() -> catalogChanged(saved.getId(), saved.getName()));
+        return saved;
+    }
+
+    @Override
+    public List<SubServices> saveAll(Collection<SubServices> entities) {
+        List<SubServices> saved = super.saveAll(entities);
+        transactionTemplate.afterCommit(() -> catalogChanged(null, null));
+        return saved;
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        super.deleteById(id);
+        transactionTemplate.afterCommit(() -> catalogChanged(id, null));
+    }
+
+    @Override
+    public void deleteAll() {
+        super.deleteAll();
+        transactionTemplate.afterCommit(() -> catalogChanged(null, null));
+    }
+
+    @Override
+    public CacheStats getCacheStats() {
+        return catalogCache.stats();
     }
 
     @Override
     public void editBaseWage(Long serviceId, double newWage) {
-        SubServices subServices = findSubServices(serviceId);
-        log.info("Changing [{}] wage from [{}] to [{}]", subServices.getName(), subServices.getBaseWage(), newWage);
         try {
-            log.info("Connecting to [{}]", baseRepository);
-            subServices.setBaseWage(newWage);
-            baseRepository.save(subServices);
+            transactionTemplate.run(() -> {
+                SubServices subServices = findSubServices(serviceId);
+                log.info("Changing [{}] wage from [{}] to [{}]", subServices.getName(), subServices.getBaseWage(), newWage);
+                log.info("Connecting to [{}]", baseRepository);
+                subServices.setBaseWage(newWage);
+                baseRepository.save(subServices);
+                transactionTemplate.afterCommit(() -> catalogChanged(serviceId, subServices.getName()));
+            });
         } catch (PersistenceException e) {
-            baseRepository.rollbackTransaction();
-            System.out.println(e.getMessage());
+            log.error("Changing the wage of sub service [{}] failed throwing exception", serviceId, e);
+            throw new CustomException("ServiceNotUpdated", "We could not update the sub service, please try again", e);
         }
     }
 
     @Override
     public void editDescription(Long serviceId, String newDescription) {
-        SubServices subServices = findSubServices(serviceId);
-        log.info("Changing [{}] description from [{}] to [{}]", subServices.getName(), subServices.getDescription(), newDescription);
         try {
-            log.info("Connecting to [{}]", baseRepository);
-            subServices.setDescription(newDescription);
-            baseRepository.save(subServices);
+            transactionTemplate.run(() -> {
+                SubServices subServices = findSubServices(serviceId);
+                log.info("Changing [{}] description from [{}] to [{}]", subServices.getName(), subServices.getDescription(), newDescription);
+                log.info("Connecting to [{}]", baseRepository);
+                subServices.setDescription(newDescription);
+                baseRepository.save(subServices);
+                transactionTemplate.afterCommit(() -> catalogChanged(serviceId, subServices.getName()));
+            });
         } catch (PersistenceException e) {
-            baseRepository.rollbackTransaction();
-            System.out.println(e.getMessage());
+            log.error("Changing the description of sub service [{}] failed throwing exception", serviceId, e);
+            throw new CustomException("ServiceNotUpdated", "We could not update the sub service, please try again", e);
         }
     }
 
     @Override
     public void addToSubService(Long technicianId, Long serviceId) {
         try {
-            baseRepository.beginTransaction();
-            //get the entities
-            SubServices subService = findSubServices(serviceId);
-            Technician technician = findTechnician(technicianId);
-            log.info("Adding [{}] to [{}]", technician.getEmailAddress(), subService.getName());
-            if (!technician.getStatus().equals(TechnicianStatus.CONFIRMED)) {
-                log.error("[{}] is not confirmed throwing exception ", technician.getEmailAddress());
-                throw new CustomException("InvalidTechnician", "Technician must be confirmed first");
-            }
-
-            if (!subService.getTechnicians().contains(technician)) {
-                log.info("Connecting to [{}]",baseRepository);
-                //add them
-                subService.getTechnicians().add(technician);
-                technician.getSubServices().add(subService);
-
-                //save them
-                baseRepository.save(subService);
-                technicianService.save(technician);
-                baseRepository.commitTransaction();
-            } else {
-                log.error("[{}] already exists throwing Exception",technician.getEmailAddress());
-                throw new CustomException("TechnicianAlreadyExists", "You already added this technician before");
-            }
+            transactionTemplate.run(() -> {
+                //get the entities
+                SubServices subService = findSubServices(serviceId);
+                Technician technician = findTechnician(technicianId);
+                log.info("Adding [{}] to [{}]", technician.getEmailAddress(), subService.getName());
+                if (!technician.getStatus().equals(TechnicianStatus.CONFIRMED)) {
+                    log.error("[{}] is not confirmed throwing exception ", technician.getEmailAddress());
+                    throw new CustomException("InvalidTechnician", "Technician must be confirmed first");
+                }
+
+                if (!technicianService.servesSubService(technicianId, serviceId)) {
+                    log.info("Connecting to [{}]",baseRepository);
+                    technicianService.linkSubService(technician, serviceId);
+                } else {
+                    log.error("[{}] already exists throwing Exception",technician.getEmailAddress());
+                    throw new CustomException("TechnicianAlreadyExists", "You already added this technician before");
+                }
+            });
         } catch (PersistenceException e) {
-            baseRepository.rollbackTransaction();
-            System.out.println(e.getMessage());
+            log.error("Adding technician [{}] to sub service [{}] failed throwing exception",
+                    technicianId, serviceId, e);
+            throw new CustomException("TechnicianNotAdded",
+                    "We could not add the technician to the sub service, please try again", e);
         }
     }
 
     @Override
     public void deleteFromSubService(Long technicianId, Long serviceId) {
         try {
-            baseRepository.beginTransaction();
-            //get the entities
-            SubServices subService = findSubServices(serviceId);
-            Technician technician = findTechnician(technicianId);
-            log.info("deleting [{}] from [{}]", technician.getEmailAddress(), subService.getName());
-
-            if (subService.getTechnicians().contains(technician)) {
-                log.info("Connecting to [{}]",baseRepository);
-                //add them
-                subService.getTechnicians().remove(technician);
-                technician.getSubServices().remove(subService);
-
-                //save them
-                baseRepository.save(subService);
-                technicianService.save(technician);
-                baseRepository.commitTransaction();
-            } else {
-                log.error("[{}] doesn't exists throwing Exception",technician.getEmailAddress());
-                throw new CustomException("TechnicianDoesntExist", "Sub service doesn't have that technician");
-            }
+            transactionTemplate.run(() -> {
+                //get the entities
+                SubServices subService = findSubServices(serviceId);
+                Technician technician = findTechnician(technicianId);
+                log.info("deleting [{}] from [{}]", technician.getEmailAddress(), subService.getName());
+
+                if (technicianService.servesSubService(technicianId, serviceId)) {
+                    log.info("Connecting to [{}]",baseRepository);
+                    technicianService.unlinkSubService(technicianId, serviceId);
+                } else {
+                    log.error("[{}] doesn't exists throwing Exception",technician.getEmailAddress());
+                    throw new CustomException("TechnicianDoesntExist", "Sub service doesn't have that technician");
+                }
+            });
         } catch (PersistenceException e) {
-            baseRepository.rollbackTransaction();
-            System.out.println(e.getMessage());
+            log.error("Removing technician [{}] from sub service [{}] failed throwing exception",
+                    technicianId, serviceId, e);
+            throw new CustomException("TechnicianNotRemoved",
+                    "We could not remove the technician from the sub service, please try again", e);
+        }
+    }
+
+    private void catalogChanged(Long id, String name) {
+        if (id == null && name == null) {
+            catalogCache.invalidateAll();
+        } else {
+            catalogCache.invalidate(id, name);
         }
+        mainServicesService.refreshCatalogSnapshot();
     }
 
     private void checkConditions(String serviceName, String mainServiceName) {
@@ -180,7 +232,7 @@ public class SubServicesServiceImpl extends BaseEntityServiceImpl<SubServices, L
     }
 
     private SubServices findSubServices(Long serviceId) {
-        return findById(serviceId).
+        return baseRepository.findById(serviceId).
                 orElseThrow(() -> new CustomException("SubServiceNotFound", "We can not find the sub service"));
     }
 }
@@ -1,16 +1,233 @@
 package ir.maktabSharif101.finalProject.service.impl;
 
 
+import ir.maktabSharif101.finalProject.base.persistence.GroupCommitWriter;
+import ir.maktabSharif101.finalProject.base.persistence.UnitOfWork;
 import ir.maktabSharif101.finalProject.base.service.BaseEntityServiceImpl;
+import ir.maktabSharif101.finalProject.entity.Order;
 import ir.maktabSharif101.finalProject.entity.Suggestion;
+import ir.maktabSharif101.finalProject.entity.Technician;
+import ir.maktabSharif101.finalProject.entity.enums.EventType;
+import ir.maktabSharif101.finalProject.entity.enums.OrderStatus;
+import ir.maktabSharif101.finalProject.entity.enums.TechnicianStatus;
+import ir.maktabSharif101.finalProject.repository.OrderRepository;
 import ir.maktabSharif101.finalProject.repository.SuggestionRepository;
 import ir.maktabSharif101.finalProject.service.SuggestionService;
+import ir.maktabSharif101.finalProject.service.TechnicianService;
+import ir.maktabSharif101.finalProject.service.bidding.SuggestionRanking;
+import ir.maktabSharif101.finalProject.service.dto.SuggestionOffer;
+import ir.maktabSharif101.finalProject.service.dto.SuggestionSubmitDto;
+import ir.maktabSharif101.finalProject.service.event.Outbox;
+import ir.maktabSharif101.finalProject.utils.CustomException;
+import ir.maktabSharif101.finalProject.utils.JobDurations;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.extern.slf4j.Slf4j;
 
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 @Slf4j
 public class SuggestionServiceImpl extends BaseEntityServiceImpl<Suggestion, Long, SuggestionRepository>
-        implements SuggestionService {
-    public SuggestionServiceImpl(SuggestionRepository baseRepository) {
-        super(baseRepository);
+        implements SuggestionService, AutoCloseable {
+
+    private static final int BOARD_SIZE = 10;
+    private static final long MAX_RANKED_ORDERS = 100_000;
+    private static final int MAX_BATCH_SIZE = 256;
+    private static final int QUEUE_CAPACITY = 4096;
+
+    private final OrderRepository orderRepository;
+    private final TechnicianService technicianService;
+    private final Outbox outbox;
+    private final Validator validator;
+    private final SuggestionRanking ranking;
+    private final GroupCommitWriter<Bid, BidResult> writer;
+
+    public SuggestionServiceImpl(SuggestionRepository baseRepository, UnitOfWork unitOfWork,
+                                 OrderRepository orderRepository, TechnicianService technicianService,
+                                 Outbox outbox, Validator validator) {
+        super(baseRepository, unitOfWork);
+        this.orderRepository = orderRepository;
+        this.technicianService = technicianService;
+        this.outbox = outbox;
+        this.validator = validator;
+        this.ranking = new SuggestionRanking(BOARD_SIZE, MAX_RANKED_ORDERS,
+                orderId -> baseRepository.findTopOffers(orderId, BOARD_SIZE));
+        this.writer = new GroupCommitWriter<>("suggestion-writer", MAX_BATCH_SIZE, QUEUE_CAPACITY, this::writeBids);
+    }
+
+    @Override
+    public Suggestion submitSuggestion(Long technicianId, SuggestionSubmitDto suggestionSubmitDto) {
+        log.info("Technician [{}] is bidding [{}]", technicianId, suggestionSubmitDto);
+        Set<ConstraintViolation<SuggestionSubmitDto>> violations = validator.validate(suggestionSubmitDto);
+        if (!violations.isEmpty()) {
+            String violationMessages = getViolationMessages(violations);
+            throw new CustomException("ValidationException", violationMessages);
+        }
+        Technician technician = technicianService.findById(technicianId).orElseThrow(() ->
+                new CustomException("TechnicianNotFound", "We can't find that technician"));
+        Order order = orderRepository.findById(suggestionSubmitDto.getOrderId()).orElseThrow(() ->
+                new CustomException("OrderNotFound", "We can not find the order"));
+        checkCondition(technician, order, suggestionSubmitDto);
+        Duration duration = JobDurations.parse(suggestionSubmitDto.getDuration()).orElseThrow(() ->
+                new CustomException("InvalidDuration", "Duration must be longer than zero"));
+        BidResult result = writer.write(new Bid(technician, order.getId(), suggestionSubmitDto.getSuggestedPrice(),
+                LocalTime.parse(suggestionSubmitDto.getSuggestedTime()), duration, new Date()));
+        if (result.rejection != null) {
+            throw result.rejection;
+        }
+        return result.suggestion;
+    }
+
+    @Override
+    public List<SuggestionOffer> findBestOffers(Long orderId) {
+        return ranking.top(orderId);
+    }
+
+    @Override
+    public void close() {
+        writer.close();
+    }
+
+    protected void checkCondition(Technician technician, Order order, SuggestionSubmitDto suggestionSubmitDto) {
+        log.info("Checking suggestion conditions");
+        if (technician.getStatus() != TechnicianStatus.CONFIRMED) {
+            log.error("[{}] is not confirmed throwing exception", technician.getEmailAddress());
+            throw new CustomException("InvalidTechnician", "Technician must be confirmed first");
+        }
+        if (order.getOrderStatus() != OrderStatus.AWAITING_TECHNICIAN_SUGGESTION
+                && order.getOrderStatus() != OrderStatus.AWAITING_TECHNICIAN) {
+            log.error("Order [{}] is [{}] throwing exception", order.getId(), order.getOrderStatus());
+            throw new CustomException("InvalidOrderStatus", "This order doesn't accept suggestions anymore");
+        }
+        if (!technicianService.servesSubService(technician.getId(), order.getSubServices().getId())) {
+            log.error("[{}] doesn't serve [{}] throwing exception", technician.getEmailAddress(),
+                    order.getSubServices().getName());
+            throw new CustomException("InvalidTechnician", "Technician doesn't offer this service");
+        }
+        if (suggestionSubmitDto.getSuggestedPrice() < order.getSubServices().getBaseWage()) {
+            log.error("Price is lower than base wage throwing exception");
+            throw new CustomException("InvalidPrice", "Price can't be lower than base wage");
+        }
+    }
+
+    /**
+     * Stores one batch of bids in a single transaction and moves their orders to
+     * AWAITING_TECHNICIAN, with one outbox event per bid; the ranking only sees the bids once they
+     * have committed. The orders are locked and checked again here, since they may have moved on
+     * (or already got a bid from the same technician) after the caller's check: such bids are
+     * rejected on their own and the rest of the batch is still stored.
+     */
+    private List<BidResult> writeBids(List<Bid> bids) {
+        return transactionTemplate.execute(() -> {
+            Set<Long> orderIds = new LinkedHashSet<>();
+            Set<Long> technicianIds = new HashSet<>();
+            for (Bid bid : bids) {
+                orderIds.add(bid.orderId);
+                technicianIds.add(bid.technician.getId());
+            }
+            Map<Long, OrderStatus> statuses = orderRepository.lockStatuses(orderIds);
+            Map<Long, Set<Long>> bidders = baseRepository.findBidders(orderIds, technicianIds);
+
+            List<BidResult> results = new ArrayList<>(bids.size());
+            List<Bid> accepted = new ArrayList<>(bids.size());
+            List<Suggestion> suggestions = new ArrayList<>(bids.size());
+            for (Bid bid : bids) {
+                CustomException rejection = recheck(bid, statuses.get(bid.orderId), bidders);
+                if (rejection != null) {
+                    results.add(new BidResult(null, rejection));
+                    continue;
+                }
+                bidders.computeIfAbsent(bid.orderId, orderId -> new HashSet<>()).add(bid.technician.getId());
+                Suggestion suggestion = baseRepository.newSuggestion(bid.technician.getId(), bid.orderId);
+                suggestion.setSuggestedPrice(bid.price);
+                suggestion.setSuggestedTime(bid.suggestedTime);
+                suggestion.setDuration(bid.duration);
+                suggestion.setSuggestionDate(bid.submittedAt);
+                accepted.add(bid);
+                suggestions.add(suggestion);
+                results.add(new BidResult(suggestion, null));
+            }
+            if (suggestions.isEmpty()) {
+                return results;
+            }
+            baseRepository.saveAll(suggestions);
+            Set<Long> biddingOrders = new LinkedHashSet<>();
+            for (int i = 0; i < accepted.size(); i++) {
+                Bid bid = accepted.get(i);
+                outbox.record("Order", bid.orderId, EventType.SUGGESTION_SUBMITTED,
+                        "suggestionId=" + suggestions.get(i).getId() + ";technicianId=" + bid.technician.getId()
+                                + ";price=" + bid.price);
+                biddingOrders.add(bid.orderId);
+            }
+            orderRepository.updateStatus(biddingOrders, OrderStatus.AWAITING_TECHNICIAN_SUGGESTION,
+                    OrderStatus.AWAITING_TECHNICIAN);
+            transactionTemplate.afterCommit(() -> {
+                for (int i = 0; i < accepted.size(); i++) {
+                    Bid bid = accepted.get(i);
+                    ranking.offer(bid.orderId, new SuggestionOffer(suggestions.get(i).getId(), bid.technician.getId(),
+                            bid.technician.getScore(), bid.price, bid.suggestedTime, bid.duration,
+                            bid.submittedAt.toInstant()));
+                }
+            });
+            return results;
+        });
+    }
+
+    private CustomException recheck(Bid bid, OrderStatus status, Map<Long, Set<Long>> bidders) {
+        if (status == null) {
+            log.error("Order [{}] is gone rejecting bid", bid.orderId);
+            return new CustomException("OrderNotFound", "We can not find the order");
+        }
+        if (status != OrderStatus.AWAITING_TECHNICIAN_SUGGESTION && status != OrderStatus.AWAITING_TECHNICIAN) {
+            log.error("Order [{}] moved to [{}] rejecting bid", bid.orderId, status);
+            return new CustomException("InvalidOrderStatus", "This order doesn't accept suggestions anymore");
+        }
+        if (bidders.getOrDefault(bid.orderId, Set.of()).contains(bid.technician.getId())) {
+            log.error("Technician [{}] already bid on order [{}] rejecting bid", bid.technician.getId(), bid.orderId);
+            return new CustomException("DuplicateSuggestion", "You already made a suggestion for this order");
+        }
+        return null;
+    }
+
+    private String getViolationMessages(Set<ConstraintViolation<SuggestionSubmitDto>> violations) {
+        log.error("SuggestionSubmitDto violates some fields throwing exception");
+        StringBuilder messageBuilder = new StringBuilder();
+        for (ConstraintViolation<SuggestionSubmitDto> violation : violations) {
+            messageBuilder.append("\n").append(violation.getMessage());
+        }
+        return messageBuilder.toString().trim();
+    }
+
+    /**
+     * The stored suggestion, or why the bid was turned down when its batch was written.
+     */
+    private record BidResult(Suggestion suggestion, CustomException rejection) {
+    }
+
+    private static final class Bid {
+        private final Technician technician;
+        private final long orderId;
+        private final double price;
+        private final LocalTime suggestedTime;
+        private final Duration duration;
+        private final Date submittedAt;
+
+        private Bid(Technician technician, long orderId, double price, LocalTime suggestedTime, Duration duration,
+                    Date submittedAt) {
+            this.technician = technician;
+            this.orderId = orderId;
+            this.price = price;
+            this.suggestedTime = suggestedTime;
+            this.duration = duration;
+            this.submittedAt = submittedAt;
+        }
     }
 }
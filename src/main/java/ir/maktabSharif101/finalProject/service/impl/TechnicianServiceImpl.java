@@ -1,83 +1,108 @@
 package ir.maktabSharif101.finalProject.service.impl;
 
+import ir.maktabSharif101.finalProject.base.persistence.UnitOfWork;
 import ir.maktabSharif101.finalProject.entity.Technician;
+import ir.maktabSharif101.finalProject.entity.TechnicianImage;
+import ir.maktabSharif101.finalProject.entity.enums.EventType;
 import ir.maktabSharif101.finalProject.entity.enums.TechnicianStatus;
+import ir.maktabSharif101.finalProject.entity.enums.UserRole;
+import ir.maktabSharif101.finalProject.repository.TechnicianImageRepository;
 import ir.maktabSharif101.finalProject.repository.TechnicianRepository;
 import ir.maktabSharif101.finalProject.service.TechnicianService;
+import ir.maktabSharif101.finalProject.service.availability.TechnicianCalendar;
 import ir.maktabSharif101.finalProject.service.base.BaseUserServiceImpl;
 import ir.maktabSharif101.finalProject.service.dto.RegisterDto;
+import ir.maktabSharif101.finalProject.service.event.Outbox;
+import ir.maktabSharif101.finalProject.service.matching.TechnicianMatchingIndex;
 import ir.maktabSharif101.finalProject.utils.CustomException;
+import ir.maktabSharif101.finalProject.utils.JpegIngest;
+import ir.maktabSharif101.finalProject.utils.PasswordHasher;
+import ir.maktabSharif101.finalProject.utils.SessionTokens;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Validator;
 import lombok.extern.slf4j.Slf4j;
 
-import javax.imageio.ImageIO;
-import javax.imageio.ImageReader;
-import javax.imageio.stream.ImageInputStream;
 import javax.persistence.PersistenceException;
-import java.io.File;
-import java.io.IOException;
-import java.nio.file.Files;
-import java.util.Iterator;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
 import java.util.Set;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
 @Slf4j
 public class TechnicianServiceImpl extends BaseUserServiceImpl<Technician, TechnicianRepository> implements TechnicianService {
 
+    private static final int MAX_IMAGE_BYTES = 300 * 1024;
+
+    private final TechnicianImageRepository technicianImageRepository;
+    private final Outbox outbox;
+    private final TechnicianCalendar calendar;
     private final Validator validator;
+    private final JpegIngest jpegIngest = new JpegIngest(MAX_IMAGE_BYTES);
+    private final TechnicianMatchingIndex matchingIndex = new TechnicianMatchingIndex();
+    private volatile boolean matchingIndexLoaded;
 
-    public TechnicianServiceImpl(TechnicianRepository baseRepository, Validator validator) {
-        super(baseRepository);
+    public TechnicianServiceImpl(TechnicianRepository baseRepository, UnitOfWork unitOfWork,
+                                 PasswordHasher passwordHasher, SessionTokens sessionTokens,
+                                 TechnicianImageRepository technicianImageRepository, Outbox outbox,
+                                 TechnicianCalendar calendar, Validator validator) {
+        super(baseRepository, unitOfWork, passwordHasher, sessionTokens);
+        this.technicianImageRepository = technicianImageRepository;
+        this.outbox = outbox;
+        this.calendar = calendar;
         this.validator = validator;
     }
 
+    @Override
+    protected UserRole getUserRole() {
+        return UserRole.TECHNICIAN;
+    }
+
     @Override
     public Technician register(RegisterDto registerDto, String imageAddress) {
+        log.info("Reading image [{}]", imageAddress);
+        return register(registerDto, () -> jpegIngest.read(Path.of(imageAddress)));
+    }
+
+    @Override
+    public Technician register(RegisterDto registerDto, InputStream image) {
+        return register(registerDto, () -> jpegIngest.read(image));
+    }
+
+    @Override
+    public Technician register(RegisterDto registerDto, ReadableByteChannel image, long imageSize) {
+        return register(registerDto, () -> jpegIngest.read(image, imageSize));
+    }
+
+    private Technician register(RegisterDto registerDto, Supplier<byte[]> imageReader) {
         log.info("Registering with this data [{}]", registerDto);
         Set<ConstraintViolation<RegisterDto>> violations = validator.validate(registerDto);
         if (violations.isEmpty()) {
             log.info("Information is validated - commencing registration");
-            validateImage(imageAddress);
+            byte[] imageData = imageReader.get();
             checkCondition(registerDto);
-            Technician technician = mapDtoValues(registerDto, imageAddress);
+            Technician technician = mapDtoValues(registerDto);
+            TechnicianImage image = mapImage(technician, imageData);
             try {
                 log.info("Connecting to [{}]",baseRepository);
-                return baseRepository.save(technician);
+                return insertNewUser(technician.getEmailAddress(), () -> {
+                    baseRepository.save(technician);
+                    technicianImageRepository.save(image);
+                    return technician;
+                });
             } catch (PersistenceException e) {
-                System.out.println(e.getMessage());
+                log.error("Registering [{}] failed throwing exception", registerDto.getEmailAddress(), e);
+                throw new CustomException("RegistrationFailed", "We could not register you, please try again", e);
             }
         }
         String violationMessages = getViolationMessages(violations);
         throw new CustomException("ValidationException", violationMessages);
     }
 
-    private void validateImage(String imageAddress) {
-        log.info("Validating image [{}]",imageAddress);
-        try {
-            File imageFile = new File(imageAddress);
-            ImageInputStream imageInputStream = ImageIO.createImageInputStream(imageFile);
-
-            if (imageInputStream != null) {
-                Iterator<ImageReader> imageReaders = ImageIO.getImageReaders(imageInputStream);
-                ImageReader reader = imageReaders.next();
-                String imageType = reader.getFormatName();
-                long imageSize = imageFile.length() / 1024; // Size in KB
-
-                if (!imageType.equalsIgnoreCase("jpeg")) {
-                    log.error("Image format [{}] is invalid throwing exception",imageType);
-                    throw new CustomException("InvalidImage", "The only supported format is JPEG");
-                } else if (imageSize > 300) {
-                    log.error("Image size [{}] is more than 300kb throwing exception",imageSize);
-                    throw new CustomException("InvalidImageSize", "Max image size is 300kb");
-                }
-            } else {
-                log.error("Can't find image throwing exception");
-                throw new CustomException("ImageNotFound", "We can not find the image");
-            }
-        } catch (IOException e) {
-            System.out.println(e.getMessage());
-        }
-    }
-
     private String getViolationMessages(Set<ConstraintViolation<RegisterDto>> violations) {
         log.error("RegisterDto violates some fields throwing exception");
         StringBuilder messageBuilder = new StringBuilder();
@@ -89,27 +114,124 @@ public class TechnicianServiceImpl extends BaseUserServiceImpl<Technician, Techn
 
     @Override
     public void confirmTechnician(Long technicianId) {
-        log.info("Confirming technician");
-        Technician technician = findById(technicianId).orElseThrow(() ->
-                new CustomException("TechnicianNotFound", "We can't find the technician"));
+        transactionTemplate.run(() -> {
+            log.info("Confirming technician");
+            Technician technician = findById(technicianId).orElseThrow(() ->
+                    new CustomException("TechnicianNotFound", "We can't find the technician"));
 
-        try {
-            log.info("Connecting to [{}]",baseRepository);
-            technician.setStatus(TechnicianStatus.CONFIRMED);
-            baseRepository.save(technician);
-        } catch (PersistenceException e) {
-            System.out.println(e.getMessage());
+            try {
+                log.info("Connecting to [{}]",baseRepository);
+                technician.setStatus(TechnicianStatus.CONFIRMED);
+                baseRepository.save(technician);
+                outbox.record("Technician", technicianId, EventType.TECHNICIAN_CONFIRMED, "");
+                transactionTemplate.afterCommit(() ->
+                        matchingIndex.updateStatus(technicianId, TechnicianStatus.CONFIRMED));
+            } catch (PersistenceException e) {
+                log.error("Confirming technician [{}] failed throwing exception", technicianId, e);
+                throw new CustomException("TechnicianNotConfirmed",
+                        "We could not confirm the technician, please try again", e);
+            }
+        });
+    }
+
+    @Override
+    public boolean servesSubService(long technicianId, long subServiceId) {
+        return loadedMatchingIndex().contains(subServiceId, technicianId);
+    }
+
+    @Override
+    public int countTechnicians(long subServiceId, TechnicianStatus status) {
+        return loadedMatchingIndex().count(subServiceId, status);
+    }
+
+    @Override
+    public void forEachTechnician(long subServiceId, TechnicianStatus status, LongConsumer action) {
+        loadedMatchingIndex().forEach(subServiceId, status, action);
+    }
+
+    @Override
+    public boolean isAvailable(long technicianId, LocalDateTime start, LocalDateTime end) {
+        return calendar.isFree(technicianId, start, end);
+    }
+
+    @Override
+    public void forEachAvailableTechnician(long subServiceId, LocalDateTime start, LocalDateTime end,
+                                           LongConsumer action) {
+        long from = TechnicianCalendar.toEpochMinute(start);
+        long to = TechnicianCalendar.toEndMinute(end);
+        loadedMatchingIndex().forEach(subServiceId, TechnicianStatus.CONFIRMED, technicianId -> {
+            if (calendar.isFree(technicianId, from, to)) {
+                action.accept(technicianId);
+            }
+        });
+    }
+
+    @Override
+    public void linkSubService(Technician technician, Long subServiceId) {
+        log.info("Linking [{}] to sub service [{}]", technician.getEmailAddress(), subServiceId);
+        transactionTemplate.run(() -> {
+            // the status as committed, not as on the caller's possibly stale entity
+            TechnicianStatus status = baseRepository.lockStatus(technician.getId()).orElseThrow(() ->
+                    new CustomException("TechnicianNotFound", "We can't find the technician"));
+            baseRepository.addSubService(technician.getId(), subServiceId);
+            transactionTemplate.afterCommit(() -> matchingIndex.add(subServiceId, technician.getId(), status));
+        });
+    }
+
+    @Override
+    public void unlinkSubService(Long technicianId, Long subServiceId) {
+        log.info("Unlinking technician [{}] from sub service [{}]", technicianId, subServiceId);
+        transactionTemplate.run(() -> {
+            baseRepository.removeSubService(technicianId, subServiceId);
+            transactionTemplate.afterCommit(() -> matchingIndex.remove(subServiceId, technicianId));
+        });
+    }
+
+    @Override
+    public void rebuildMatchingIndex() {
+        synchronized (matchingIndex) {
+            TechnicianMatchingIndex.Builder builder = new TechnicianMatchingIndex.Builder();
+            baseRepository.forEachSubServiceLink(builder::add);
+            matchingIndex.replace(builder);
+            matchingIndexLoaded = true;
+            log.info("Matching index rebuilt with [{}] links over [{}] sub services", builder.size(),
+                    matchingIndex.getSubServiceCount());
+        }
+    }
+
+    private TechnicianMatchingIndex loadedMatchingIndex() {
+        if (!matchingIndexLoaded) {
+            synchronized (matchingIndex) {
+                if (!matchingIndexLoaded) {
+                    rebuildMatchingIndex();
+                }
+            }
         }
+        return matchingIndex;
     }
 
+    @Override
+    @Deprecated
+    public InputStream loadImage(Long technicianId) {
+        log.info("Loading image of technician [{}]", technicianId);
+        byte[] imageData = technicianImageRepository.findImageDataByTechnicianId(technicianId).orElseThrow(() ->
+                new CustomException("ImageNotFound", "We can not find the image"));
+        return new ByteArrayInputStream(imageData);
+    }
 
-    private byte[] imageToBytes(String imageAddress) {
-        log.info("Converting image to bytes");
+    @Override
+    public void loadImage(Long technicianId, OutputStream target) {
+        log.info("Streaming image of technician [{}]", technicianId);
+        boolean found;
         try {
-            File imageFile = new File(imageAddress);
-            return Files.readAllBytes(imageFile.toPath());
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+            found = technicianImageRepository.copyImageData(technicianId, target);
+        } catch (UncheckedIOException e) {
+            log.error("Writing image failed throwing exception", e);
+            throw new CustomException("ImageWriteFailed", e.getMessage());
+        }
+        if (!found) {
+            log.error("Technician [{}] has no image throwing exception", technicianId);
+            throw new CustomException("ImageNotFound", "We can not find the image");
         }
     }
 
@@ -121,16 +243,22 @@ public class TechnicianServiceImpl extends BaseUserServiceImpl<Technician, Techn
         }
     }
 
-    protected Technician mapDtoValues(RegisterDto registerDto, String imageAddress) {
+    protected Technician mapDtoValues(RegisterDto registerDto) {
         log.info("Mapping [{}] values",registerDto);
         Technician technician = new Technician();
         technician.setFirstname(registerDto.getFirstname());
         technician.setLastname(registerDto.getLastname());
         technician.setEmailAddress(registerDto.getEmailAddress());
-        technician.setPassword(registerDto.getPassword());
-        technician.setImageData(imageToBytes(imageAddress));
+        technician.setPassword(passwordHasher.hash(registerDto.getPassword()));
         technician.setScore(0);
         technician.setStatus(TechnicianStatus.NEW);
         return technician;
     }
+
+    protected TechnicianImage mapImage(Technician technician, byte[] imageData) {
+        TechnicianImage image = new TechnicianImage();
+        image.setTechnician(technician);
+        image.setImageData(imageData);
+        return image;
+    }
 }
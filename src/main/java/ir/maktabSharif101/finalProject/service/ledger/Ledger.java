@@ -0,0 +1,225 @@
+package ir.maktabSharif101.finalProject.service.ledger;
+
+import ir.maktabSharif101.finalProject.base.persistence.GroupCommitWriter;
+import ir.maktabSharif101.finalProject.base.persistence.TransactionTemplate;
+import ir.maktabSharif101.finalProject.base.persistence.UnitOfWork;
+import ir.maktabSharif101.finalProject.entity.LedgerEntry;
+import ir.maktabSharif101.finalProject.entity.enums.LedgerAccountType;
+import ir.maktabSharif101.finalProject.repository.LedgerEntryRepository;
+import ir.maktabSharif101.finalProject.utils.CustomException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Customer and technician balances kept as an append-only ledger. Every posting is a
+ * {@link LedgerEntry} with its amount in minor units ({@link #MINOR_UNITS} to the unit); a balance
+ * is the sum of the account's entries and {@link #rebuild()} can always recompute it from them.
+ * <p>
+ * Postings go through a {@link GroupCommitWriter}, so concurrent callers share a transaction and a
+ * JDBC batch, and a posting returns once it has committed. The running balance of each account is
+ * a {@link LongAdder} that is only added to after the commit: postings never read-modify-write an
+ * entity or take a lock on the balance, and {@link #balanceOf} never shows money that did not
+ * commit. The {@code balance} columns of customer and technician are snapshots of those adders,
+ * written every {@code snapshotInterval} for the accounts that moved since the last one, and once
+ * more on close.
+ * <p>
+ * There is no overdraft check; a caller that needs one has to serialize its postings itself.
+ */
+@Slf4j
+public class Ledger implements AutoCloseable {
+
+    public static final long MINOR_UNITS = 100;
+
+    private static final int MAX_BATCH_SIZE = 256;
+    private static final int QUEUE_CAPACITY = 4096;
+
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration snapshotInterval;
+    private final Map<LedgerAccountType, Map<Long, LongAdder>> balances = new EnumMap<>(LedgerAccountType.class);
+    private final Map<LedgerAccountType, Set<Long>> moved = new EnumMap<>(LedgerAccountType.class);
+    private final GroupCommitWriter<List<LedgerEntry>, List<LedgerEntry>> writer;
+    private ScheduledExecutorService snapshotter;
+
+    public Ledger(LedgerEntryRepository ledgerEntryRepository, UnitOfWork unitOfWork, Duration snapshotInterval) {
+        this.ledgerEntryRepository = ledgerEntryRepository;
+        this.transactionTemplate = new TransactionTemplate(unitOfWork);
+        this.snapshotInterval = snapshotInterval;
+        for (LedgerAccountType accountType : LedgerAccountType.values()) {
+            balances.put(accountType, new ConcurrentHashMap<>());
+            moved.put(accountType, ConcurrentHashMap.newKeySet());
+        }
+        this.writer = new GroupCommitWriter<>("ledger-writer", MAX_BATCH_SIZE, QUEUE_CAPACITY, this::writePostings);
+    }
+
+    public static long toMinorUnits(double amount) {
+        return Math.round(amount * MINOR_UNITS);
+    }
+
+    public synchronized void start() {
+        if (snapshotter != null) {
+            return;
+        }
+        snapshotter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ledger-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotter.scheduleWithFixedDelay(this::snapshotQuietly, snapshotInterval.toMillis(),
+                snapshotInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Adds {@code amount} (negative to take money out) to one account.
+     */
+    public LedgerEntry post(LedgerAccountType accountType, long accountId, long amount, String description) {
+        if (amount == 0) {
+            throw new CustomException("InvalidAmount", "Amount can't be zero");
+        }
+        return writer.write(List.of(entry(accountType, accountId, amount, description))).get(0);
+    }
+
+    /**
+     * Moves {@code amount} from one account to another; both entries commit together.
+     */
+    public List<LedgerEntry> transfer(LedgerAccountType fromType, long fromId, LedgerAccountType toType, long toId,
+                                      long amount, String description) {
+        if (amount <= 0) {
+            throw new CustomException("InvalidAmount", "Amount must be positive");
+        }
+        return writer.write(List.of(entry(fromType, fromId, -amount, description),
+                entry(toType, toId, amount, description)));
+    }
+
+    /**
+     * Like {@link #transfer}, but writes both entries in the caller's transaction instead of a
+     * group-committed one, so they commit or roll back together with the caller's other writes
+     * (e.g. the order status a payment settles). The running balances move once that commits.
+     */
+    public List<LedgerEntry> transferInTransaction(LedgerAccountType fromType, long fromId, LedgerAccountType toType,
+                                                   long toId, long amount, String description) {
+        if (amount <= 0) {
+            throw new CustomException("InvalidAmount", "Amount must be positive");
+        }
+        List<LedgerEntry> entries = List.of(entry(fromType, fromId, -amount, description),
+                entry(toType, toId, amount, description));
+        return transactionTemplate.execute(() -> {
+            ledgerEntryRepository.saveAll(entries);
+            transactionTemplate.afterCommit(() -> entries.forEach(this::apply));
+            return entries;
+        });
+    }
+
+    public long balanceOf(LedgerAccountType accountType, long accountId) {
+        LongAdder balance = balances.get(accountType).get(accountId);
+        return balance == null ? 0 : balance.sum();
+    }
+
+    /**
+     * Recomputes every running balance from the ledger. Meant for startup, before anything posts:
+     * a posting that commits while the sums are read can be counted twice.
+     */
+    public void rebuild() {
+        for (LedgerAccountType accountType : LedgerAccountType.values()) {
+            Map<Long, Long> sums = ledgerEntryRepository.sumByAccount(accountType);
+            Map<Long, LongAdder> accounts = balances.get(accountType);
+            accounts.keySet().retainAll(sums.keySet());
+            sums.forEach((accountId, sum) -> {
+                LongAdder balance = accounts.computeIfAbsent(accountId, id -> new LongAdder());
+                balance.reset();
+                balance.add(sum);
+            });
+            log.info("Rebuilt [{}] [{}] balances from the ledger", sums.size(), accountType);
+        }
+    }
+
+    /**
+     * Writes the running balance of every account that moved since the last snapshot to its
+     * {@code balance} column; returns how many were written.
+     */
+    public synchronized int snapshot() {
+        int written = 0;
+        for (LedgerAccountType accountType : LedgerAccountType.values()) {
+            Set<Long> accounts = moved.get(accountType);
+            if (accounts.isEmpty()) {
+                continue;
+            }
+            Map<Long, Long> snapshot = new HashMap<>();
+            for (Iterator<Long> iterator = accounts.iterator(); iterator.hasNext(); ) {
+                Long accountId = iterator.next();
+                iterator.remove();
+                snapshot.put(accountId, balanceOf(accountType, accountId));
+            }
+            try {
+                ledgerEntryRepository.updateBalances(accountType, snapshot);
+            } catch (RuntimeException e) {
+                accounts.addAll(snapshot.keySet());
+                throw e;
+            }
+            written += snapshot.size();
+        }
+        return written;
+    }
+
+    @Override
+    public void close() {
+        writer.close();
+        synchronized (this) {
+            if (snapshotter != null) {
+                snapshotter.shutdown();
+                snapshotter = null;
+            }
+        }
+        snapshotQuietly();
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (RuntimeException e) {
+            log.error("Writing balance snapshots failed, retrying after [{}]", snapshotInterval, e);
+        }
+    }
+
+    /**
+     * Stores the entries of a batch of postings in one transaction and applies them to the running
+     * balances once it has committed.
+     */
+    private List<List<LedgerEntry>> writePostings(List<List<LedgerEntry>> postings) {
+        return transactionTemplate.execute(() -> {
+            List<LedgerEntry> entries = new ArrayList<>();
+            postings.forEach(entries::addAll);
+            ledgerEntryRepository.saveAll(entries);
+            transactionTemplate.afterCommit(() -> entries.forEach(this::apply));
+            return postings;
+        });
+    }
+
+    private void apply(LedgerEntry entry) {
+        Map<Long, LongAdder> accounts = balances.get(entry.getAccountType());
+        LongAdder balance = accounts.get(entry.getAccountId());
+        if (balance == null) {
+            balance = accounts.computeIfAbsent(entry.getAccountId(), id -> new LongAdder());
+        }
+        balance.add(entry.getAmount());
+        moved.get(entry.getAccountType()).add(entry.getAccountId());
+    }
+
+    private static LedgerEntry entry(LedgerAccountType accountType, long accountId, long amount, String description) {
+        return new LedgerEntry(accountType, accountId, amount, description, LocalDateTime.now());
+    }
+}
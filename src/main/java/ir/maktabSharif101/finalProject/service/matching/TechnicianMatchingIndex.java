@@ -0,0 +1,231 @@
+package ir.maktabSharif101.finalProject.service.matching;
+
+import ir.maktabSharif101.finalProject.entity.enums.TechnicianStatus;
+import ir.maktabSharif101.finalProject.utils.LongHashSet;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * In-memory answer to "which technicians with a given status serve sub service S".
+ * <p>
+ * For every sub service it keeps one {@link LongHashSet} of technician ids per
+ * {@link TechnicianStatus}. Sub service ids are held in a sorted array and found by binary search,
+ * technician membership is a hash lookup, and neither boxes nor loads entities. The whole state
+ * is immutable and replaced on every change, so readers never lock; writers are serialized and
+ * only copy the sets they touch.
+ */
+public class TechnicianMatchingIndex {
+
+    private static final TechnicianStatus[] STATUSES = TechnicianStatus.values();
+
+    private volatile State state = new State(new long[0], new LongHashSet[0][]);
+
+    /**
+     * True if {@code technicianId} serves {@code subServiceId} and currently has {@code status}.
+     */
+    public boolean contains(long subServiceId, long technicianId, TechnicianStatus status) {
+        LongHashSet[] entry = state.entry(subServiceId);
+        return entry != null && entry[status.ordinal()].contains(technicianId);
+    }
+
+    public boolean contains(long subServiceId, long technicianId) {
+        LongHashSet[] entry = state.entry(subServiceId);
+        if (entry == null) {
+            return false;
+        }
+        for (LongHashSet technicians : entry) {
+            if (technicians.contains(technicianId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int count(long subServiceId, TechnicianStatus status) {
+        LongHashSet[] entry = state.entry(subServiceId);
+        return entry == null ? 0 : entry[status.ordinal()].size();
+    }
+
+    public void forEach(long subServiceId, TechnicianStatus status, LongConsumer action) {
+        LongHashSet[] entry = state.entry(subServiceId);
+        if (entry != null) {
+            entry[status.ordinal()].forEach(action);
+        }
+    }
+
+    /**
+     * Links {@code technicianId} to {@code subServiceId}. If the index already holds the technician
+     * under some status in another sub service, that status wins over {@code status}: it was set by
+     * {@link #updateStatus}, which may have run after the caller read its status.
+     */
+    public synchronized void add(long subServiceId, long technicianId, TechnicianStatus status) {
+        State current = state;
+        status = heldStatus(current, technicianId, status);
+        LongHashSet[] entry = current.entry(subServiceId);
+        LongHashSet[] updated = entry == null ? emptyEntry() : entry.clone();
+        for (int i = 0; i < updated.length; i++) {
+            updated[i] = i == status.ordinal()
+                    ? updated[i].with(technicianId)
+                    : updated[i].without(technicianId);
+        }
+        state = current.with(subServiceId, updated);
+    }
+
+    public synchronized void remove(long subServiceId, long technicianId) {
+        State current = state;
+        LongHashSet[] entry = current.entry(subServiceId);
+        if (entry == null) {
+            return;
+        }
+        LongHashSet[] updated = entry.clone();
+        for (int i = 0; i < updated.length; i++) {
+            updated[i] = updated[i].without(technicianId);
+        }
+        state = current.with(subServiceId, updated);
+    }
+
+    private static TechnicianStatus heldStatus(State current, long technicianId, TechnicianStatus fallback) {
+        TechnicianStatus[] statuses = TechnicianStatus.values();
+        for (LongHashSet[] entry : current.entries) {
+            for (int s = 0; s < entry.length; s++) {
+                if (entry[s].contains(technicianId)) {
+                    return statuses[s];
+                }
+            }
+        }
+        return fallback;
+    }
+
+    /**
+     * Moves {@code technicianId} to {@code status} in every sub service it serves.
+     */
+    public synchronized void updateStatus(long technicianId, TechnicianStatus status) {
+        State current = state;
+        State updated = current;
+        for (int i = 0; i < current.subServiceIds.length; i++) {
+            LongHashSet[] entry = current.entries[i];
+            if (!entry[status.ordinal()].contains(technicianId) && contains(entry, technicianId)) {
+                LongHashSet[] moved = entry.clone();
+                for (int s = 0; s < moved.length; s++) {
+                    moved[s] = s == status.ordinal() ? moved[s].with(technicianId) : moved[s].without(technicianId);
+                }
+                updated = updated.with(current.subServiceIds[i], moved);
+            }
+        }
+        state = updated;
+    }
+
+    /**
+     * Replaces the whole index with the links collected in {@code builder}.
+     */
+    public synchronized void replace(Builder builder) {
+        state = builder.build();
+    }
+
+    public int getSubServiceCount() {
+        return state.subServiceIds.length;
+    }
+
+    private static boolean contains(LongHashSet[] entry, long technicianId) {
+        for (LongHashSet technicians : entry) {
+            if (technicians.contains(technicianId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static LongHashSet[] emptyEntry() {
+        LongHashSet[] entry = new LongHashSet[STATUSES.length];
+        Arrays.fill(entry, LongHashSet.EMPTY);
+        return entry;
+    }
+
+    private static final class State {
+        private final long[] subServiceIds;
+        private final LongHashSet[][] entries;
+
+        private State(long[] subServiceIds, LongHashSet[][] entries) {
+            this.subServiceIds = subServiceIds;
+            this.entries = entries;
+        }
+
+        private LongHashSet[] entry(long subServiceId) {
+            int index = Arrays.binarySearch(subServiceIds, subServiceId);
+            return index >= 0 ? entries[index] : null;
+        }
+
+        private State with(long subServiceId, LongHashSet[] entry) {
+            int index = Arrays.binarySearch(subServiceIds, subServiceId);
+            if (index >= 0) {
+                LongHashSet[][] copy = entries.clone();
+                copy[index] = entry;
+                return new State(subServiceIds, copy);
+            }
+            int insertAt = -index - 1;
+            long[] ids = new long[subServiceIds.length + 1];
+            LongHashSet[][] copy = new LongHashSet[entries.length + 1][];
+            System.arraycopy(subServiceIds, 0, ids, 0, insertAt);
+            System.arraycopy(entries, 0, copy, 0, insertAt);
+            ids[insertAt] = subServiceId;
+            copy[insertAt] = entry;
+            System.arraycopy(subServiceIds, insertAt, ids, insertAt + 1, subServiceIds.length - insertAt);
+            System.arraycopy(entries, insertAt, copy, insertAt + 1, entries.length - insertAt);
+            return new State(ids, copy);
+        }
+    }
+
+    /**
+     * Collects (sub service, technician, status) links for a full rebuild, in any order.
+     */
+    public static final class Builder {
+        private long[] subServiceIds = new long[1024];
+        private long[] technicianIds = new long[1024];
+        private byte[] statuses = new byte[1024];
+        private int size;
+
+        public void add(long subServiceId, long technicianId, TechnicianStatus status) {
+            if (size == subServiceIds.length) {
+                subServiceIds = Arrays.copyOf(subServiceIds, size * 2);
+                technicianIds = Arrays.copyOf(technicianIds, size * 2);
+                statuses = Arrays.copyOf(statuses, size * 2);
+            }
+            subServiceIds[size] = subServiceId;
+            technicianIds[size] = technicianId;
+            statuses[size] = (byte) status.ordinal();
+            size++;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        private State build() {
+            long[] keys = Arrays.stream(subServiceIds, 0, size).sorted().distinct().toArray();
+            // counting pass, then bucket the technician ids per (sub service, status)
+            int[][] counts = new int[keys.length][STATUSES.length];
+            for (int i = 0; i < size; i++) {
+                counts[Arrays.binarySearch(keys, subServiceIds[i])][statuses[i]]++;
+            }
+            long[][][] buckets = new long[keys.length][STATUSES.length][];
+            for (int k = 0; k < keys.length; k++) {
+                for (int s = 0; s < STATUSES.length; s++) {
+                    buckets[k][s] = new long[counts[k][s]];
+                    counts[k][s] = 0;
+                }
+            }
+            for (int i = 0; i < size; i++) {
+                int k = Arrays.binarySearch(keys, subServiceIds[i]);
+                buckets[k][statuses[i]][counts[k][statuses[i]]++] = technicianIds[i];
+            }
+            LongHashSet[][] entries = new LongHashSet[keys.length][STATUSES.length];
+            for (int k = 0; k < keys.length; k++) {
+                for (int s = 0; s < STATUSES.length; s++) {
+                    entries[k][s] = LongHashSet.of(buckets[k][s], buckets[k][s].length);
+                }
+            }
+            return new State(keys, entries);
+        }
+    }
+}
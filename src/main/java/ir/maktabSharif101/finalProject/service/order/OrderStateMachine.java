@@ -0,0 +1,121 @@
+package ir.maktabSharif101.finalProject.service.order;
+
+import ir.maktabSharif101.finalProject.base.persistence.TransactionTemplate;
+import ir.maktabSharif101.finalProject.base.persistence.UnitOfWork;
+import ir.maktabSharif101.finalProject.entity.enums.EventType;
+import ir.maktabSharif101.finalProject.entity.enums.OrderStatus;
+import ir.maktabSharif101.finalProject.repository.OrderRepository;
+import ir.maktabSharif101.finalProject.service.dto.OrderState;
+import ir.maktabSharif101.finalProject.service.event.Outbox;
+import ir.maktabSharif101.finalProject.utils.CustomException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
+
+/**
+ * Moves orders through their lifecycle without read-modify-write of the entity.
+ * <p>
+ * A transition reads only the order's status and version, checks the move is legal and then issues
+ * a single conditional {@code UPDATE ... WHERE status = ? AND version = ?}. If the row changed in
+ * between, nothing is written: when the status is still the expected one only the version moved
+ * (someone edited another field), so the transition is retried under the {@link RetryPolicy};
+ * when the status itself changed, another actor won and retrying can't help, so the caller gets
+ * {@code OrderStatusChanged} straight away. A successful transition records an
+ * {@code ORDER_STATUS_CHANGED} event in the same transaction.
+ */
+@Slf4j
+public class OrderStateMachine {
+
+    private final OrderRepository orderRepository;
+    private final Outbox outbox;
+    private final TransactionTemplate transactionTemplate;
+    private final RetryPolicy retryPolicy;
+    private final LongAdder transitions = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+
+    public OrderStateMachine(UnitOfWork unitOfWork, OrderRepository orderRepository, Outbox outbox,
+                             RetryPolicy retryPolicy) {
+        this.orderRepository = orderRepository;
+        this.outbox = outbox;
+        this.transactionTemplate = new TransactionTemplate(unitOfWork);
+        this.retryPolicy = retryPolicy;
+    }
+
+    public OrderState transition(long orderId, OrderStatus from, OrderStatus to) {
+        return transition(orderId, from, to, retryPolicy);
+    }
+
+    public OrderState transition(long orderId, OrderStatus from, OrderStatus to, RetryPolicy policy) {
+        return transition(orderId, from, to, policy, state -> true);
+    }
+
+    public OrderState transition(long orderId, OrderStatus from, OrderStatus to, Predicate<OrderState> allowed) {
+        return transition(orderId, from, to, retryPolicy, allowed);
+    }
+
+    /**
+     * Like {@link #transition(long, OrderStatus, OrderStatus, RetryPolicy)}, but only if
+     * {@code allowed} accepts the order as read; otherwise fails with {@code TransitionNotAllowed}
+     * without writing anything.
+     */
+    public OrderState transition(long orderId, OrderStatus from, OrderStatus to, RetryPolicy policy,
+                                 Predicate<OrderState> allowed) {
+        if (!from.canMoveTo(to)) {
+            log.error("[{}] -> [{}] is not a legal transition throwing exception", from, to);
+            throw new CustomException("InvalidTransition", "An order can't go from " + from + " to " + to);
+        }
+        for (int attempt = 1; ; attempt++) {
+            long backoff = policy.backoffNanos(attempt);
+            if (backoff > 0) {
+                LockSupport.parkNanos(backoff);
+            }
+            OrderState current = orderRepository.findState(orderId).orElseThrow(() ->
+                    new CustomException("OrderNotFound", "We can not find the order"));
+            if (current.status() != from) {
+                conflicts.increment();
+                log.error("Order [{}] is [{}] instead of [{}] throwing exception", orderId, current.status(), from);
+                throw new CustomException("OrderStatusChanged", "This order is already " + current.status());
+            }
+            if (!allowed.test(current)) {
+                log.error("Order [{}] can't be moved to [{}] by this caller throwing exception", orderId, to);
+                throw new CustomException("TransitionNotAllowed", "You can't move this order to " + to);
+            }
+            if (compareAndSet(current, to)) {
+                transitions.increment();
+                return new OrderState(orderId, to, current.version() + 1, current.customerId(), current.technicianId());
+            }
+            conflicts.increment();
+            if (attempt >= policy.maxAttempts()) {
+                log.error("Order [{}] kept changing after [{}] attempts throwing exception", orderId, attempt);
+                throw new CustomException("OrderConflict", "This order is being changed by someone else, try again");
+            }
+            retries.increment();
+        }
+    }
+
+    private boolean compareAndSet(OrderState current, OrderStatus to) {
+        return transactionTemplate.execute(() -> {
+            if (!orderRepository.compareAndSetStatus(current, to)) {
+                return false;
+            }
+            outbox.record("Order", current.orderId(), EventType.ORDER_STATUS_CHANGED,
+                    "from=" + current.status() + ";to=" + to);
+            return true;
+        });
+    }
+
+    public long getTransitionCount() {
+        return transitions.sum();
+    }
+
+    public long getConflictCount() {
+        return conflicts.sum();
+    }
+
+    public long getRetryCount() {
+        return retries.sum();
+    }
+}
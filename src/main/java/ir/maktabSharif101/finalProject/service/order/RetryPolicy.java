@@ -0,0 +1,37 @@
+package ir.maktabSharif101.finalProject.service.order;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * How often, and how patiently, to retry a transition that lost a race.
+ * <p>
+ * The n-th retry waits a random time between zero and {@code min(maxBackoff, baseBackoff * 2^n)}
+ * ("full jitter"), so threads that collided once don't collide again in lock step.
+ */
+public record RetryPolicy(int maxAttempts, Duration baseBackoff, Duration maxBackoff) {
+
+    /**
+     * Try once and report the conflict to the caller.
+     */
+    public static final RetryPolicy NONE = new RetryPolicy(1, Duration.ZERO, Duration.ZERO);
+
+    public static final RetryPolicy DEFAULT = new RetryPolicy(5, Duration.ofMillis(2), Duration.ofMillis(50));
+
+    public RetryPolicy {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be positive");
+        }
+    }
+
+    /**
+     * Nanoseconds to wait before attempt {@code attempt} (1-based; the first attempt never waits).
+     */
+    long backoffNanos(int attempt) {
+        if (attempt <= 1 || baseBackoff.isZero()) {
+            return 0;
+        }
+        long cap = Math.min(maxBackoff.toNanos(), baseBackoff.toNanos() << Math.min(attempt - 2, 20));
+        return cap <= 0 ? 0 : ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+}
@@ -0,0 +1,95 @@
+package ir.maktabSharif101.finalProject.service.rating;
+
+import ir.maktabSharif101.finalProject.repository.OrderRepository;
+import ir.maktabSharif101.finalProject.repository.TechnicianRepository;
+import ir.maktabSharif101.finalProject.service.dto.RatingAggregate;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Checks every technician's stored rating aggregate against their rated orders and corrects the
+ * ones that drifted. Technicians are read a page at a time by id; each page is recomputed from
+ * {@code orders} with one grouped query over its id range, on {@code parallelism} threads.
+ * <p>
+ * A page's stored aggregates are read before its orders, and a correction only applies if the
+ * stored values are still the ones read. A rating that commits in between makes the two disagree,
+ * but it also changes the stored values, so the correction is skipped rather than undoing it.
+ * The recent score depends on the order ratings arrived in, which orders don't record, so it is
+ * left alone.
+ */
+@Slf4j
+public class RatingRebuild {
+
+    private static final int PAGE_SIZE = 1000;
+
+    private final OrderRepository orderRepository;
+    private final TechnicianRepository technicianRepository;
+
+    public RatingRebuild(OrderRepository orderRepository, TechnicianRepository technicianRepository) {
+        this.orderRepository = orderRepository;
+        this.technicianRepository = technicianRepository;
+    }
+
+    public RatingRebuildReport run(int parallelism) {
+        long start = System.nanoTime();
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "rating-rebuild-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        LongAdder corrected = new LongAdder();
+        LongAdder skipped = new LongAdder();
+        long technicians = 0;
+        List<CompletableFuture<Void>> pages = new ArrayList<>();
+        try {
+            List<RatingAggregate> page = technicianRepository.findRatingAggregates(null, PAGE_SIZE);
+            while (!page.isEmpty()) {
+                technicians += page.size();
+                List<RatingAggregate> stored = page;
+                pages.add(CompletableFuture.runAsync(() -> check(stored, corrected, skipped), executor));
+                page = technicianRepository.findRatingAggregates(page.get(page.size() - 1).technicianId(),
+                        PAGE_SIZE);
+            }
+            CompletableFuture.allOf(pages.toArray(CompletableFuture[]::new)).join();
+        } finally {
+            executor.shutdown();
+        }
+        RatingRebuildReport report = new RatingRebuildReport(technicians, corrected.sum(), skipped.sum(),
+                (System.nanoTime() - start) / 1_000_000);
+        log.info("Checked [{}] technician ratings, corrected [{}], skipped [{}] in [{}] ms", report.technicians(),
+                report.corrected(), report.skipped(), report.millis());
+        return report;
+    }
+
+    private void check(List<RatingAggregate> stored, LongAdder corrected, LongAdder skipped) {
+        Map<Long, RatingAggregate> actual = new HashMap<>();
+        for (RatingAggregate aggregate : orderRepository.aggregateRatings(stored.get(0).technicianId(),
+                stored.get(stored.size() - 1).technicianId())) {
+            actual.put(aggregate.technicianId(), aggregate);
+        }
+        for (RatingAggregate expected : stored) {
+            RatingAggregate computed = actual.getOrDefault(expected.technicianId(),
+                    new RatingAggregate(expected.technicianId(), 0, 0));
+            if (computed.count() == expected.count() && computed.sum() == expected.sum()) {
+                continue;
+            }
+            if (technicianRepository.correctRating(expected, computed)) {
+                corrected.increment();
+                log.warn("Technician [{}] rating was [{}] instead of [{}], corrected", expected.technicianId(),
+                        expected, computed);
+            } else {
+                skipped.increment();
+            }
+        }
+    }
+}
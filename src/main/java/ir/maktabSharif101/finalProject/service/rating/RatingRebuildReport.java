@@ -0,0 +1,9 @@
+package ir.maktabSharif101.finalProject.service.rating;
+
+/**
+ * What a {@link RatingRebuild} found: {@code corrected} aggregates did not match the rated orders
+ * and were rewritten; {@code skipped} did not match either but took a new rating while being
+ * checked, so they were left for the next run.
+ */
+public record RatingRebuildReport(long technicians, long corrected, long skipped, long millis) {
+}
@@ -1,158 +1,413 @@
 package ir.maktabSharif101.finalProject.utils;
 
+import ir.maktabSharif101.finalProject.base.metrics.Instrumentation;
+import ir.maktabSharif101.finalProject.base.metrics.MetricsRegistry;
+import ir.maktabSharif101.finalProject.base.metrics.QueryBudgets;
+import ir.maktabSharif101.finalProject.base.persistence.SchemaMigrations;
+import ir.maktabSharif101.finalProject.base.persistence.UnitOfWork;
 import ir.maktabSharif101.finalProject.repository.*;
 import ir.maktabSharif101.finalProject.repository.impl.*;
 import ir.maktabSharif101.finalProject.service.*;
+import ir.maktabSharif101.finalProject.service.availability.TechnicianCalendar;
+import ir.maktabSharif101.finalProject.service.event.EventBus;
+import ir.maktabSharif101.finalProject.service.event.Outbox;
+import ir.maktabSharif101.finalProject.service.event.OutboxRelay;
 import ir.maktabSharif101.finalProject.service.impl.*;
+import ir.maktabSharif101.finalProject.service.ledger.Ledger;
+import ir.maktabSharif101.finalProject.service.rating.RatingRebuild;
 import jakarta.validation.Validation;
 import jakarta.validation.Validator;
 import jakarta.validation.ValidatorFactory;
+import lombok.extern.slf4j.Slf4j;
 import org.hibernate.validator.messageinterpolation.ParameterMessageInterpolator;
-import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
 import javax.persistence.Persistence;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
-public class ApplicationContext {
-    public static final EntityManager ENTITY_MANAGER =
-            Persistence.createEntityManagerFactory(
-                    "default"
-            ).createEntityManager();
-    static ValidatorFactory factory = Validation.byDefaultProvider()
-            .configure()
-            .messageInterpolator(new ParameterMessageInterpolator())
-            .buildValidatorFactory();
-    public static final Validator VALIDATOR = factory.getValidator();
-
-    private static CustomerRepository customerRepository;
-    private static MainServicesRepository mainServicesRepository;
-    private static ManagerRepository managerRepository;
-    private static OrderRepository orderRepository;
-    private static SubServicesRepository subServicesRepository;
-    private static SuggestionRepository suggestionRepository;
-    private static TechnicianRepository technicianRepository;
-
-
-    private static CustomerService customerService;
-    private static MainServicesService mainServicesService;
-    private static ManagerService managerService;
-    private static OrderService orderService;
-    private static SubServicesService subServicesService;
-    private static SuggestionService suggestionService;
-    private static TechnicianService technicianService;
+/**
+ * Builds and owns every repository and service. {@link #start()} runs the schema migrations and
+ * builds the entity manager factory and the validator side by side on a small bootstrap pool,
+ * wires everything, then warms the caches in parallel before returning; {@link #stop()} closes it
+ * all again in reverse order, the entity manager factory (and with it the connection pool) last.
+ * <p>
+ * A running context is an immutable instance published through a volatile field, so the static
+ * getters never see a half-built one. A getter called before {@link #start()} starts the context.
+ */
+@Slf4j
+public final class ApplicationContext {
 
+    private static final String PERSISTENCE_UNIT = "default";
+    private static final int BOOTSTRAP_THREADS = 4;
 
-    public static CustomerRepository getCustomerRepository() {
-        if (customerRepository == null) {
-            customerRepository = new CustomerRepositoryImpl(ENTITY_MANAGER);
+    private static final Object LIFECYCLE = new Object();
+    private static volatile ApplicationContext running;
+
+    private final Deque<AutoCloseable> closeables = new ArrayDeque<>();
+    private final StartupReport startupReport;
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final UnitOfWork unitOfWork;
+    private final Validator validator;
+    private final PasswordHasher passwordHasher;
+    private final SessionTokens sessionTokens;
+    private final EventBus eventBus;
+    private final MetricsRegistry metrics;
+
+    private final CustomerRepository customerRepository;
+    private final MainServicesRepository mainServicesRepository;
+    private final ManagerRepository managerRepository;
+    private final OrderRepository orderRepository;
+    private final SubServicesRepository subServicesRepository;
+    private final SuggestionRepository suggestionRepository;
+    private final TechnicianRepository technicianRepository;
+    private final TechnicianImageRepository technicianImageRepository;
+    private final OutboxEventRepository outboxEventRepository;
+    private final LedgerEntryRepository ledgerEntryRepository;
+
+    private final OutboxRelay outboxRelay;
+    private final Outbox outbox;
+    private final Ledger ledger;
+    private final RatingRebuild ratingRebuild;
+
+    private final CustomerService customerService;
+    private final MainServicesService mainServicesService;
+    private final ManagerService managerService;
+    private final OrderService orderService;
+    private final SubServicesService subServicesService;
+    private final SuggestionService suggestionService;
+    private final TechnicianService technicianService;
+
+    private ApplicationContext() {
+        StartupReport.Recorder startup = new StartupReport.Recorder();
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService bootstrap = Executors.newFixedThreadPool(BOOTSTRAP_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "bootstrap-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            CompletableFuture<EntityManagerFactory> entityManagerFactoryFuture = CompletableFuture.supplyAsync(() -> {
+                startup.time("schema migrations", () -> SchemaMigrations.migrate(PERSISTENCE_UNIT, Map.of()));
+                return startup.time("entity manager factory",
+                        () -> Persistence.createEntityManagerFactory(PERSISTENCE_UNIT));
+            }, bootstrap);
+            closeables.push(() -> entityManagerFactoryFuture.thenAccept(EntityManagerFactory::close));
+            CompletableFuture<ValidatorFactory> validatorFactoryFuture = startup.async("validator factory",
+                    ApplicationContext::buildValidatorFactory, bootstrap);
+            closeables.push(() -> validatorFactoryFuture.thenAccept(ValidatorFactory::close));
+
+            passwordHasher = new PasswordHasher(
+                    Integer.getInteger("password.hash.iterations", PasswordHasher.DEFAULT_ITERATIONS),
+                    Math.max(1, Runtime.getRuntime().availableProcessors() / 2)
+            );
+            closeables.push(passwordHasher);
+            sessionTokens = SessionTokens.withRandomSecret(Duration.ofHours(12));
+            eventBus = new EventBus();
+            QueryBudgets budgets = startup.time("query budgets", () -> QueryBudgets.load(
+                    "query-budgets.properties",
+                    QueryBudgets.Mode.valueOf(System.getProperty("query.budget.mode", "warn").toUpperCase())
+            ));
+
+            validator = await(validatorFactoryFuture).getValidator();
+            entityManagerFactory = await(entityManagerFactoryFuture);
+            unitOfWork = new UnitOfWork(entityManagerFactory);
+            metrics = new MetricsRegistry(budgets, unitOfWork);
+            closeables.push(metrics);
+
+            long wiring = System.nanoTime();
+            customerRepository = instrument(CustomerRepository.class, new CustomerRepositoryImpl(unitOfWork));
+            mainServicesRepository = instrument(MainServicesRepository.class,
+                    new MainServicesRepositoryImpl(unitOfWork));
+            managerRepository = instrument(ManagerRepository.class, new ManagerRepositoryImpl(unitOfWork));
+            orderRepository = instrument(OrderRepository.class, new OrderRepositoryImpl(unitOfWork));
+            subServicesRepository = instrument(SubServicesRepository.class, new SubServicesRepositoryImpl(unitOfWork));
+            suggestionRepository = instrument(SuggestionRepository.class, new SuggestionRepositoryImpl(unitOfWork));
+            technicianRepository = instrument(TechnicianRepository.class, new TechnicianRepositoryImpl(unitOfWork));
+            technicianImageRepository = instrument(TechnicianImageRepository.class,
+                    new TechnicianImageRepositoryImpl(unitOfWork));
+            outboxEventRepository = instrument(OutboxEventRepository.class,
+                    new OutboxEventRepositoryImpl(unitOfWork));
+            ledgerEntryRepository = instrument(LedgerEntryRepository.class,
+                    new LedgerEntryRepositoryImpl(unitOfWork));
+
+            outboxRelay = new OutboxRelay(outboxEventRepository, eventBus, 256, Duration.ofSeconds(1));
+            closeables.push(outboxRelay);
+            outbox = new Outbox(outboxEventRepository, unitOfWork, outboxRelay);
+            ledger = new Ledger(ledgerEntryRepository, unitOfWork,
+                    Duration.ofSeconds(Long.getLong("ledger.snapshot.seconds", 30)));
+            closeables.push(ledger);
+            TechnicianCalendar calendar = new TechnicianCalendar();
+
+            customerService = instrument(CustomerService.class, new CustomerServiceImpl(
+                    customerRepository,
+                    unitOfWork,
+                    passwordHasher,
+                    sessionTokens,
+                    validator
+            ));
+            managerService = instrument(ManagerService.class, new ManagerServiceImpl(
+                    managerRepository,
+                    unitOfWork,
+                    passwordHasher,
+                    sessionTokens,
+                    validator
+            ));
+            technicianService = instrument(TechnicianService.class, new TechnicianServiceImpl(
+                    technicianRepository,
+                    unitOfWork,
+                    passwordHasher,
+                    sessionTokens,
+                    technicianImageRepository,
+                    outbox,
+                    calendar,
+                    validator
+            ));
+            mainServicesService = instrument(MainServicesService.class,
+                    new MainServicesServiceImpl(mainServicesRepository, unitOfWork));
+            subServicesService = instrument(SubServicesService.class, new SubServicesServiceImpl(
+                    subServicesRepository,
+                    unitOfWork,
+                    mainServicesService,
+                    technicianService
+            ));
+            orderService = instrument(OrderService.class, new OrderServiceImpl(
+                    orderRepository,
+                    unitOfWork,
+                    subServicesService,
+                    customerService,
+                    suggestionRepository,
+                    technicianRepository,
+                    outbox,
+                    calendar,
+                    ledger,
+                    validator
+            ));
+            ratingRebuild = new RatingRebuild(orderRepository, technicianRepository);
+            SuggestionServiceImpl suggestions = new SuggestionServiceImpl(
+                    suggestionRepository,
+                    unitOfWork,
+                    orderRepository,
+                    technicianService,
+                    outbox,
+                    validator
+            );
+            // pending bids are flushed before the outbox relay and the entity manager factory go
+            closeables.push(suggestions);
+            suggestionService = instrument(SuggestionService.class, suggestions);
+            startup.record("wiring", wiring);
+
+            await(CompletableFuture.allOf(
+                    startup.async("customer email filter", customerService::warmEmailFilter, bootstrap),
+                    startup.async("manager email filter", managerService::warmEmailFilter, bootstrap),
+                    startup.async("technician email filter", technicianService::warmEmailFilter, bootstrap),
+                    startup.async("technician matching index", technicianService::rebuildMatchingIndex, bootstrap),
+                    startup.async("technician calendar", orderService::rebuildCalendar, bootstrap),
+                    startup.async("catalog snapshot", mainServicesService::getCatalogSnapshot, bootstrap),
+                    startup.async("ledger balances", ledger::rebuild, bootstrap)
+            ));
+
+            outboxRelay.start();
+            ledger.start();
+            long dumpSeconds = Long.getLong("metrics.dump.seconds", 300);
+            if (dumpSeconds > 0) {
+                metrics.startPeriodicDump(Duration.ofSeconds(dumpSeconds));
+            }
+            startupReport = startup.finish();
+            log.info(startupReport.toString());
+        } catch (RuntimeException | Error e) {
+            close();
+            throw e;
+        } finally {
+            bootstrap.shutdown();
         }
-        return customerRepository;
     }
 
-    public static MainServicesRepository getMainServiceRepository() {
-        if (mainServicesRepository == null) {
-            mainServicesRepository = new MainServicesRepositoryImpl(ENTITY_MANAGER);
+    /**
+     * Starts the context unless it is already running, and returns how the start went.
+     */
+    public static StartupReport start() {
+        return current().startupReport;
+    }
+
+    /**
+     * Closes the running context, if any. The next getter call or {@link #start()} builds a new one.
+     */
+    public static void stop() {
+        synchronized (LIFECYCLE) {
+            ApplicationContext context = running;
+            running = null;
+            if (context != null) {
+                context.close();
+            }
         }
-        return mainServicesRepository;
+    }
+
+    public static EntityManagerFactory getEntityManagerFactory() {
+        return current().entityManagerFactory;
+    }
+
+    public static UnitOfWork getUnitOfWork() {
+        return current().unitOfWork;
+    }
+
+    public static Validator getValidator() {
+        return current().validator;
+    }
+
+    public static PasswordHasher getPasswordHasher() {
+        return current().passwordHasher;
+    }
+
+    public static SessionTokens getSessionTokens() {
+        return current().sessionTokens;
+    }
+
+    public static EventBus getEventBus() {
+        return current().eventBus;
+    }
+
+    public static MetricsRegistry getMetrics() {
+        return current().metrics;
+    }
+
+    public static CustomerRepository getCustomerRepository() {
+        return current().customerRepository;
+    }
+
+    public static MainServicesRepository getMainServiceRepository() {
+        return current().mainServicesRepository;
     }
 
     public static ManagerRepository getManagerRepository() {
-        if (managerRepository == null) {
-            managerRepository = new ManagerRepositoryImpl(ENTITY_MANAGER);
-        }
-        return managerRepository;
+        return current().managerRepository;
     }
 
     public static OrderRepository getOrderRepository() {
-        if (orderRepository == null) {
-            orderRepository = new OrderRepositoryImpl(ENTITY_MANAGER);
-        }
-        return orderRepository;
+        return current().orderRepository;
     }
 
     public static SubServicesRepository getSubServiceRepository() {
-        if (subServicesRepository == null) {
-            subServicesRepository = new SubServicesRepositoryImpl(ENTITY_MANAGER);
-        }
-        return subServicesRepository;
+        return current().subServicesRepository;
     }
 
     public static SuggestionRepository getSuggestionRepository() {
-        if (suggestionRepository == null) {
-            suggestionRepository = new SuggestionRepositoryImpl(ENTITY_MANAGER);
-        }
-        return suggestionRepository;
+        return current().suggestionRepository;
     }
 
     public static TechnicianRepository getTechnicianRepository() {
-        if (technicianRepository == null) {
-            technicianRepository = new TechnicianRepositoryImpl(ENTITY_MANAGER);
-        }
-        return technicianRepository;
+        return current().technicianRepository;
+    }
+
+    public static TechnicianImageRepository getTechnicianImageRepository() {
+        return current().technicianImageRepository;
+    }
+
+    public static OutboxEventRepository getOutboxEventRepository() {
+        return current().outboxEventRepository;
+    }
+
+    public static LedgerEntryRepository getLedgerEntryRepository() {
+        return current().ledgerEntryRepository;
+    }
+
+    public static OutboxRelay getOutboxRelay() {
+        return current().outboxRelay;
+    }
+
+    public static Outbox getOutbox() {
+        return current().outbox;
+    }
+
+    public static Ledger getLedger() {
+        return current().ledger;
+    }
+
+    public static RatingRebuild getRatingRebuild() {
+        return current().ratingRebuild;
     }
 
     public static CustomerService getCustomerService() {
-        if (customerService == null) {
-            customerService = new CustomerServiceImpl(
-                    getCustomerRepository(),
-                    VALIDATOR
-            );
-        }
-        return customerService;
+        return current().customerService;
     }
 
     public static MainServicesService getMainServiceService() {
-        if (mainServicesService == null) {
-            mainServicesService = new MainServicesServiceImpl(getMainServiceRepository());
-        }
-        return mainServicesService;
+        return current().mainServicesService;
     }
 
     public static ManagerService getManagerService() {
-        if (managerService == null) {
-            managerService = new ManagerServiceImpl(
-                    getManagerRepository(),
-                    VALIDATOR
-            );
-        }
-        return managerService;
+        return current().managerService;
     }
 
     public static OrderService getOrderService() {
-        if (orderService == null) {
-            orderService = new OrderServiceImpl(
-                    getOrderRepository(),
-                    getSubServiceService(),
-                    getCustomerService(),
-                    VALIDATOR
-            );
-        }
-        return orderService;
+        return current().orderService;
     }
 
     public static SubServicesService getSubServiceService() {
-        if (subServicesService == null) {
-            subServicesService = new SubServicesServiceImpl(
-                    getSubServiceRepository(),
-                    getMainServiceService(),
-                    getTechnicianService()
-            );
-        }
-        return subServicesService;
+        return current().subServicesService;
     }
 
     public static SuggestionService getSuggestionService() {
-        if (suggestionService == null) {
-            suggestionService = new SuggestionServiceImpl(getSuggestionRepository());
-        }
-        return suggestionService;
+        return current().suggestionService;
     }
 
     public static TechnicianService getTechnicianService() {
-        if (technicianService == null) {
-            technicianService = new TechnicianServiceImpl(
-                    getTechnicianRepository(),
-                    VALIDATOR
-            );
+        return current().technicianService;
+    }
+
+    private static ApplicationContext current() {
+        ApplicationContext context = running;
+        if (context != null) {
+            return context;
+        }
+        synchronized (LIFECYCLE) {
+            if (running == null) {
+                running = new ApplicationContext();
+            }
+            return running;
         }
-        return technicianService;
+    }
+
+    private void close() {
+        while (!closeables.isEmpty()) {
+            AutoCloseable closeable = closeables.pop();
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                log.warn("Closing [{}] failed", closeable, e);
+            }
+        }
+    }
+
+    private static ValidatorFactory buildValidatorFactory() {
+        return Validation.byDefaultProvider()
+                .configure()
+                .messageInterpolator(new ParameterMessageInterpolator())
+                .buildValidatorFactory();
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private <I> I instrument(Class<I> type, I target) {
+        return Instrumentation.wrap(type, target, metrics);
     }
 }
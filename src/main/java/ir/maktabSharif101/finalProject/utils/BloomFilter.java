@@ -0,0 +1,140 @@
+package ir.maktabSharif101.finalProject.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size Bloom filter over strings, safe for concurrent {@code put} and {@code mightContain}.
+ * <p>
+ * {@code mightContain} never answers {@code false} for a string that was put; a {@code true}
+ * answer is wrong with roughly {@link #expectedFpp()} probability, which grows once more than
+ * the expected number of strings has been inserted. Strings are hashed with 128-bit MurmurHash3
+ * over their UTF-8 bytes and the {@code k} bit positions are derived by double hashing.
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitSize;
+    private final int hashFunctions;
+    private final LongAdder insertions = new LongAdder();
+
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("expectedInsertions must be positive and falsePositiveRate in (0, 1)");
+        }
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int wordCount = Math.toIntExact((bits + 63) / 64);
+        this.words = new AtomicLongArray(wordCount);
+        this.bitSize = wordCount * 64L;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitSize / expectedInsertions * Math.log(2)));
+    }
+
+    public void put(String value) {
+        long[] hash = murmur3(value.getBytes(StandardCharsets.UTF_8));
+        long combined = hash[0];
+        for (int i = 0; i < hashFunctions; i++) {
+            setBit((combined & Long.MAX_VALUE) % bitSize);
+            combined += hash[1];
+        }
+        insertions.increment();
+    }
+
+    public boolean mightContain(String value) {
+        long[] hash = murmur3(value.getBytes(StandardCharsets.UTF_8));
+        long combined = hash[0];
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = (combined & Long.MAX_VALUE) % bitSize;
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+            combined += hash[1];
+        }
+        return true;
+    }
+
+    /**
+     * False-positive probability for the number of strings put so far (duplicates included).
+     */
+    public double expectedFpp() {
+        return Math.pow(1 - Math.exp(-hashFunctions * (double) insertions.sum() / bitSize), hashFunctions);
+    }
+
+    public long getInsertions() {
+        return insertions.sum();
+    }
+
+    public long getBitSize() {
+        return bitSize;
+    }
+
+    public int getHashFunctions() {
+        return hashFunctions;
+    }
+
+    public long getMemoryBytes() {
+        return bitSize / 8;
+    }
+
+    private void setBit(long bit) {
+        int index = (int) (bit >>> 6);
+        long mask = 1L << bit;
+        long word = words.get(index);
+        while ((word & mask) == 0 && !words.compareAndSet(index, word, word | mask)) {
+            word = words.get(index);
+        }
+    }
+
+    private static long[] murmur3(byte[] data) {
+        final long c1 = 0x87c37b91114253d5L;
+        final long c2 = 0x4cf5ad432745937fL;
+        long h1 = 0;
+        long h2 = 0;
+        int blocks = data.length / 16;
+        for (int i = 0; i < blocks; i++) {
+            long k1 = littleEndian(data, i * 16);
+            long k2 = littleEndian(data, i * 16 + 8);
+            h1 ^= Long.rotateLeft(k1 * c1, 31) * c2;
+            h1 = (Long.rotateLeft(h1, 27) + h2) * 5 + 0x52dce729;
+            h2 ^= Long.rotateLeft(k2 * c2, 33) * c1;
+            h2 = (Long.rotateLeft(h2, 31) + h1) * 5 + 0x38495ab5;
+        }
+        long k1 = 0;
+        long k2 = 0;
+        int tail = blocks * 16;
+        for (int i = data.length - 1; i >= tail + 8; i--) {
+            k2 = (k2 << 8) | (data[i] & 0xffL);
+        }
+        for (int i = Math.min(data.length, tail + 8) - 1; i >= tail; i--) {
+            k1 = (k1 << 8) | (data[i] & 0xffL);
+        }
+        h2 ^= Long.rotateLeft(k2 * c2, 33) * c1;
+        h1 ^= Long.rotateLeft(k1 * c1, 31) * c2;
+        h1 ^= data.length;
+        h2 ^= data.length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix(h1);
+        h2 = fmix(h2);
+        h1 += h2;
+        h2 += h1;
+        return new long[]{h1, h2};
+    }
+
+    private static long littleEndian(byte[] data, int offset) {
+        long value = 0;
+        for (int i = 7; i >= 0; i--) {
+            value = (value << 8) | (data[offset + i] & 0xffL);
+        }
+        return value;
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb93e53e3fe87L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
@@ -4,4 +4,8 @@ public class CustomException extends RuntimeException{
     public CustomException(String error,String description) {
         super("(×_×;）\n❗ERROR: "+error+"\n📃DESC:\n"+description);
     }
+
+    public CustomException(String error,String description,Throwable cause) {
+        super("(×_×;）\n❗ERROR: "+error+"\n📃DESC:\n"+description,cause);
+    }
 }
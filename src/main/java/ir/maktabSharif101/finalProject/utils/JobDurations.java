@@ -0,0 +1,72 @@
+package ir.maktabSharif101.finalProject.utils;
+
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * How long a technician says a job takes. New bids are written as {@code 2h}, {@code 45m} or
+ * {@code 1h30m}; older rows hold free text such as {@code 2 hours}, which is still read as long as
+ * it is a number of hours and/or minutes. ISO-8601 ({@code PT1H30M}) is accepted too.
+ */
+public final class JobDurations {
+
+    /**
+     * The format bids are validated against.
+     */
+    public static final String PATTERN = "^(\\d{1,3}h)?(\\d{1,4}m)?$";
+
+    private static final Pattern PART = Pattern.compile(
+            "\\s*(\\d{1,6})\\s*(hours|hour|hrs|hr|h|minutes|minute|mins|min|m)\\s*,?\\s*(and\\s*)?");
+
+    private JobDurations() {
+    }
+
+    /**
+     * Reads {@code text}; empty if it is blank, not a duration, or not positive.
+     */
+    public static Optional<Duration> parse(String text) {
+        if (text == null || text.isBlank()) {
+            return Optional.empty();
+        }
+        String trimmed = text.trim().toLowerCase(Locale.ROOT);
+        if (trimmed.startsWith("pt")) {
+            try {
+                return positive(Duration.parse(trimmed));
+            } catch (DateTimeParseException e) {
+                return Optional.empty();
+            }
+        }
+        Matcher matcher = PART.matcher(trimmed);
+        Duration duration = Duration.ZERO;
+        int end = 0;
+        while (matcher.lookingAt()) {
+            long amount = Long.parseLong(matcher.group(1));
+            duration = matcher.group(2).startsWith("h")
+                    ? duration.plusHours(amount)
+                    : duration.plusMinutes(amount);
+            end = matcher.end();
+            matcher.region(end, trimmed.length());
+        }
+        return end == trimmed.length() ? positive(duration) : Optional.empty();
+    }
+
+    /**
+     * Writes {@code duration} in the bid format, e.g. {@code 1h30m}.
+     */
+    public static String format(Duration duration) {
+        long hours = duration.toHours();
+        int minutes = duration.toMinutesPart();
+        if (hours == 0) {
+            return minutes + "m";
+        }
+        return minutes == 0 ? hours + "h" : hours + "h" + minutes + "m";
+    }
+
+    private static Optional<Duration> positive(Duration duration) {
+        return duration.isNegative() || duration.isZero() ? Optional.empty() : Optional.of(duration);
+    }
+}
@@ -0,0 +1,101 @@
+package ir.maktabSharif101.finalProject.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads an uploaded JPEG in a single pass and returns its bytes ready to be persisted.
+ * <p>
+ * The JPEG signature is checked as soon as the first three bytes arrive and reading stops as soon
+ * as the upload grows past {@code maxBytes}. When the size is known up front (files, or callers
+ * passing a content length) the buffer is allocated at the exact size and its array is returned
+ * as is; otherwise the bytes are trimmed once at the end. Channels must be blocking.
+ */
+@Slf4j
+public class JpegIngest {
+
+    private static final byte[] JPEG_SIGNATURE = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+
+    private final int maxBytes;
+
+    public JpegIngest(int maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public byte[] read(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return read(channel, channel.size());
+        } catch (NoSuchFileException e) {
+            log.error("Can't find image [{}] throwing exception", path);
+            throw new CustomException("ImageNotFound", "We can not find the image");
+        } catch (IOException e) {
+            throw readFailed(e);
+        }
+    }
+
+    public byte[] read(InputStream inputStream) {
+        return read(Channels.newChannel(inputStream), -1);
+    }
+
+    /**
+     * @param size the number of bytes the channel will deliver, or {@code -1} when unknown
+     */
+    public byte[] read(ReadableByteChannel channel, long size) {
+        if (size > maxBytes) {
+            throw tooLarge(size);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size < 0 ? maxBytes + 1 : (int) size);
+        boolean signatureChecked = false;
+        try {
+            while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+                if (!signatureChecked && buffer.position() >= JPEG_SIGNATURE.length) {
+                    checkSignature(buffer);
+                    signatureChecked = true;
+                }
+            }
+            if (size >= 0 && !buffer.hasRemaining() && channel.read(ByteBuffer.allocate(1)) > 0) {
+                throw tooLarge(size + 1);
+            }
+        } catch (IOException e) {
+            throw readFailed(e);
+        }
+        if (!signatureChecked) {
+            log.error("Image is too short to be a JPEG throwing exception");
+            throw new CustomException("InvalidImage", "The only supported format is JPEG");
+        }
+        if (buffer.position() > maxBytes) {
+            throw tooLarge(buffer.position());
+        }
+        byte[] array = buffer.array();
+        return buffer.position() == array.length ? array : Arrays.copyOf(array, buffer.position());
+    }
+
+    private void checkSignature(ByteBuffer buffer) {
+        for (int i = 0; i < JPEG_SIGNATURE.length; i++) {
+            if (buffer.get(i) != JPEG_SIGNATURE[i]) {
+                log.error("Image doesn't start with a JPEG signature throwing exception");
+                throw new CustomException("InvalidImage", "The only supported format is JPEG");
+            }
+        }
+    }
+
+    private CustomException tooLarge(long size) {
+        log.error("Image size [{}] bytes is more than [{}] throwing exception", size, maxBytes);
+        return new CustomException("InvalidImageSize", "Max image size is " + maxBytes / 1024 + "kb");
+    }
+
+    private CustomException readFailed(IOException e) {
+        log.error("Reading image failed throwing exception", e);
+        return new CustomException("ImageReadFailed", e.getMessage());
+    }
+}
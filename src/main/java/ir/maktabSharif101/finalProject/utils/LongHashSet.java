@@ -0,0 +1,138 @@
+package ir.maktabSharif101.finalProject.utils;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Immutable open-addressing hash set of primitive {@code long}s.
+ * <p>
+ * {@link #with} and {@link #without} return modified copies, so a set can be shared between
+ * threads without locking and replaced atomically by whoever owns it. Lookups and iteration
+ * don't box or allocate. The table is kept at most half full; zero marks an empty slot, so zero
+ * itself is tracked by a flag.
+ */
+public final class LongHashSet {
+
+    public static final LongHashSet EMPTY = new LongHashSet(new long[2], false, 0);
+
+    private final long[] slots;
+    private final boolean containsZero;
+    private final int size;
+
+    private LongHashSet(long[] slots, boolean containsZero, int size) {
+        this.slots = slots;
+        this.containsZero = containsZero;
+        this.size = size;
+    }
+
+    public static LongHashSet of(long[] values, int count) {
+        long[] slots = new long[tableSize(count)];
+        boolean zero = false;
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            if (values[i] == 0) {
+                if (!zero) {
+                    zero = true;
+                    size++;
+                }
+            } else if (insert(slots, values[i])) {
+                size++;
+            }
+        }
+        return new LongHashSet(slots, zero, size);
+    }
+
+    public boolean contains(long value) {
+        if (value == 0) {
+            return containsZero;
+        }
+        int mask = slots.length - 1;
+        for (int i = mix(value) & mask; ; i = (i + 1) & mask) {
+            long slot = slots[i];
+            if (slot == value) {
+                return true;
+            }
+            if (slot == 0) {
+                return false;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void forEach(LongConsumer action) {
+        if (containsZero) {
+            action.accept(0);
+        }
+        for (long slot : slots) {
+            if (slot != 0) {
+                action.accept(slot);
+            }
+        }
+    }
+
+    public LongHashSet with(long value) {
+        if (contains(value)) {
+            return this;
+        }
+        if (value == 0) {
+            return new LongHashSet(slots, true, size + 1);
+        }
+        long[] copy = rehash(tableSize(size + 1));
+        insert(copy, value);
+        return new LongHashSet(copy, containsZero, size + 1);
+    }
+
+    public LongHashSet without(long value) {
+        if (!contains(value)) {
+            return this;
+        }
+        if (value == 0) {
+            return new LongHashSet(slots, false, size - 1);
+        }
+        long[] copy = new long[tableSize(size - 1)];
+        for (long slot : slots) {
+            if (slot != 0 && slot != value) {
+                insert(copy, slot);
+            }
+        }
+        return new LongHashSet(copy, containsZero, size - 1);
+    }
+
+    private long[] rehash(int capacity) {
+        long[] copy = new long[capacity];
+        for (long slot : slots) {
+            if (slot != 0) {
+                insert(copy, slot);
+            }
+        }
+        return copy;
+    }
+
+    private static boolean insert(long[] slots, long value) {
+        int mask = slots.length - 1;
+        for (int i = mix(value) & mask; ; i = (i + 1) & mask) {
+            if (slots[i] == value) {
+                return false;
+            }
+            if (slots[i] == 0) {
+                slots[i] = value;
+                return true;
+            }
+        }
+    }
+
+    private static int tableSize(int count) {
+        return Math.max(2, Integer.highestOneBit(Math.max(1, count) * 2 - 1) << 1);
+    }
+
+    private static int mix(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
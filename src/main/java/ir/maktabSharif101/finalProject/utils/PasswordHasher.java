@@ -0,0 +1,139 @@
+package ir.maktabSharif101.finalProject.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hashes and verifies passwords with PBKDF2-HMAC-SHA256.
+ * <p>
+ * Hashes are stored as {@code pbkdf2-sha256$<iterations>$<salt>$<hash>} (Base64 salt and hash),
+ * so the cost can be raised later without invalidating existing hashes: {@link #needsRehash}
+ * tells the caller when a stored value should be replaced. Values without that prefix are treated
+ * as legacy plaintext passwords. All hashing runs on a fixed pool with a bounded queue, so a burst
+ * of logins can use at most {@code threads} cores; when the queue is full the request is refused
+ * with {@code ServerBusy} instead of piling up.
+ */
+@Slf4j
+public class PasswordHasher implements AutoCloseable {
+
+    public static final int DEFAULT_ITERATIONS = 600_000;
+
+    private static final String PREFIX = "pbkdf2-sha256";
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+    private static final int QUEUE_PER_THREAD = 64;
+
+    private final int iterations;
+    private final ThreadPoolExecutor executor;
+    private final SecureRandom random = new SecureRandom();
+
+    public PasswordHasher(int iterations, int threads) {
+        if (iterations < 1 || threads < 1) {
+            throw new IllegalArgumentException("iterations and threads must be positive");
+        }
+        this.iterations = iterations;
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * QUEUE_PER_THREAD), runnable -> {
+            Thread thread = new Thread(runnable, "password-hasher-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        byte[] hash = submit(() -> pbkdf2(password, salt, iterations));
+        Base64.Encoder encoder = Base64.getEncoder().withoutPadding();
+        return PREFIX + "$" + iterations + "$" + encoder.encodeToString(salt) + "$" + encoder.encodeToString(hash);
+    }
+
+    public boolean verify(String password, String stored) {
+        if (password == null || stored == null) {
+            return false;
+        }
+        if (!isHashed(stored)) {
+            return MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8),
+                    stored.getBytes(StandardCharsets.UTF_8));
+        }
+        String[] parts = stored.split("\\$");
+        if (parts.length != 4) {
+            log.error("Stored password hash is malformed");
+            return false;
+        }
+        int storedIterations = Integer.parseInt(parts[1]);
+        byte[] salt = Base64.getDecoder().decode(parts[2]);
+        byte[] expected = Base64.getDecoder().decode(parts[3]);
+        byte[] actual = submit(() -> pbkdf2(password, salt, storedIterations));
+        return MessageDigest.isEqual(expected, actual);
+    }
+
+    /**
+     * True for legacy plaintext values and for hashes made with fewer iterations than configured.
+     */
+    public boolean needsRehash(String stored) {
+        if (!isHashed(stored)) {
+            return true;
+        }
+        String[] parts = stored.split("\\$");
+        return parts.length != 4 || Integer.parseInt(parts[1]) < iterations;
+    }
+
+    public static boolean isHashed(String stored) {
+        return stored != null && stored.startsWith(PREFIX + "$");
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private byte[] submit(Callable<byte[]> task) {
+        Future<byte[]> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            log.error("Password hashing queue is full rejecting request");
+            throw new CustomException("ServerBusy", "Too many login attempts right now, try again shortly");
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new IllegalStateException("Interrupted while hashing a password", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    private static byte[] pbkdf2(String password, byte[] salt, int iterations) throws GeneralSecurityException {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package ir.maktabSharif101.finalProject.utils;
+
+import ir.maktabSharif101.finalProject.entity.enums.UserRole;
+
+/**
+ * What a verified session token says about its bearer. Times are epoch milliseconds.
+ */
+public record SessionToken(long userId, UserRole role, long issuedAt, long expiresAt) {
+}
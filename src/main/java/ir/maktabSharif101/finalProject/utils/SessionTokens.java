@@ -0,0 +1,143 @@
+package ir.maktabSharif101.finalProject.utils;
+
+import ir.maktabSharif101.finalProject.entity.enums.UserRole;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Issues and verifies stateless session tokens signed with HMAC-SHA256.
+ * <p>
+ * A token is {@code base64url(payload).base64url(mac)}, where the payload packs the user id, role,
+ * issue time and expiry into 25 bytes, so verifying one needs no database access. Revocation is
+ * per user: {@link #revokeAll} records a cut-off time and every token of that user issued before
+ * it is rejected. Cut-offs are dropped once every token they could reject has expired, so the map
+ * only holds users who changed their password within the last token lifetime.
+ */
+@Slf4j
+public class SessionTokens {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int PAYLOAD_BYTES = 25;
+    private static final UserRole[] ROLES = UserRole.values();
+
+    private final SecretKeySpec key;
+    private final Duration timeToLive;
+    private final Clock clock;
+    private final ThreadLocal<Mac> macs;
+    private final Map<Long, Long> revokedBefore = new ConcurrentHashMap<>();
+
+    public SessionTokens(byte[] secret, Duration timeToLive, Clock clock) {
+        if (secret.length < 32) {
+            throw new IllegalArgumentException("Session secret must be at least 32 bytes");
+        }
+        this.key = new SecretKeySpec(secret.clone(), ALGORITHM);
+        this.timeToLive = timeToLive;
+        this.clock = clock;
+        this.macs = ThreadLocal.withInitial(this::newMac);
+    }
+
+    /**
+     * Uses a random secret, so tokens don't survive a restart.
+     */
+    public static SessionTokens withRandomSecret(Duration timeToLive) {
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        return new SessionTokens(secret, timeToLive, Clock.systemUTC());
+    }
+
+    public String issue(long userId, UserRole role) {
+        long now = clock.millis();
+        ByteBuffer payload = ByteBuffer.allocate(PAYLOAD_BYTES)
+                .putLong(userId)
+                .put((byte) role.ordinal())
+                .putLong(now)
+                .putLong(now + timeToLive.toMillis());
+        byte[] bytes = payload.array();
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString(bytes) + "." + encoder.encodeToString(sign(bytes));
+    }
+
+    /**
+     * Checks the signature, expiry and revocation of {@code token} and returns its claims.
+     */
+    public SessionToken verify(String token) {
+        int dot = token == null ? -1 : token.indexOf('.');
+        if (dot < 0) {
+            throw invalid();
+        }
+        byte[] payload;
+        byte[] mac;
+        try {
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            payload = decoder.decode(token.substring(0, dot).getBytes(StandardCharsets.US_ASCII));
+            mac = decoder.decode(token.substring(dot + 1).getBytes(StandardCharsets.US_ASCII));
+        } catch (IllegalArgumentException e) {
+            throw invalid();
+        }
+        if (payload.length != PAYLOAD_BYTES || !MessageDigest.isEqual(sign(payload), mac)) {
+            throw invalid();
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        long userId = buffer.getLong();
+        int role = buffer.get();
+        long issuedAt = buffer.getLong();
+        long expiresAt = buffer.getLong();
+        if (role < 0 || role >= ROLES.length) {
+            throw invalid();
+        }
+        if (expiresAt <= clock.millis()) {
+            throw new CustomException("ExpiredToken", "Session has expired, log in again");
+        }
+        Long cutOff = revokedBefore.get(userId);
+        if (cutOff != null && issuedAt < cutOff) {
+            throw new CustomException("RevokedToken", "Session has been revoked, log in again");
+        }
+        return new SessionToken(userId, ROLES[role], issuedAt, expiresAt);
+    }
+
+    /**
+     * Rejects every token of {@code userId} issued up to now.
+     */
+    public void revokeAll(long userId) {
+        long now = clock.millis();
+        // a token issued in this very millisecond must not survive, hence the + 1
+        revokedBefore.merge(userId, now + 1, Math::max);
+        long expired = now - timeToLive.toMillis();
+        revokedBefore.values().removeIf(cutOff -> cutOff <= expired);
+        log.info("Revoked sessions of user [{}]", userId);
+    }
+
+    public int getRevokedUserCount() {
+        return revokedBefore.size();
+    }
+
+    private byte[] sign(byte[] payload) {
+        return macs.get().doFinal(payload);
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    private static CustomException invalid() {
+        return new CustomException("InvalidToken", "Session token is not valid");
+    }
+}
@@ -0,0 +1,86 @@
+package ir.maktabSharif101.finalProject.utils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Where the time went while {@link ApplicationContext} started. Phases run on the bootstrap
+ * threads overlap, so their durations add up to more than {@code totalMillis}.
+ */
+public record StartupReport(long totalMillis, List<Phase> phases) {
+
+    /**
+     * One startup step; {@code startMillis} is measured from the start of the bootstrap.
+     */
+    public record Phase(String name, String thread, long startMillis, long durationMillis) {
+
+        @Override
+        public String toString() {
+            return String.format("%-32s %-12s start=%dms took=%dms", name, thread, startMillis, durationMillis);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder("Started in ").append(totalMillis).append("ms");
+        for (Phase phase : phases) {
+            report.append(System.lineSeparator()).append("  ").append(phase);
+        }
+        return report.toString();
+    }
+
+    /**
+     * Collects phases from any thread.
+     */
+    static final class Recorder {
+
+        private final long start = System.nanoTime();
+        private final List<Phase> phases = new ArrayList<>();
+
+        <T> T time(String name, Supplier<T> step) {
+            long begin = System.nanoTime();
+            try {
+                return step.get();
+            } finally {
+                record(name, begin);
+            }
+        }
+
+        void time(String name, Runnable step) {
+            time(name, () -> {
+                step.run();
+                return null;
+            });
+        }
+
+        <T> CompletableFuture<T> async(String name, Supplier<T> step, Executor executor) {
+            return CompletableFuture.supplyAsync(() -> time(name, step), executor);
+        }
+
+        CompletableFuture<Void> async(String name, Runnable step, Executor executor) {
+            return CompletableFuture.runAsync(() -> time(name, step), executor);
+        }
+
+        synchronized StartupReport finish() {
+            List<Phase> sorted = new ArrayList<>(phases);
+            sorted.sort(Comparator.comparingLong(Phase::startMillis));
+            return new StartupReport(millisSince(start), List.copyOf(sorted));
+        }
+
+        /**
+         * Records a phase that began at {@code begin} ({@link System#nanoTime()}) and ends now.
+         */
+        synchronized void record(String name, long begin) {
+            phases.add(new Phase(name, Thread.currentThread().getName(), (begin - start) / 1_000_000,
+                    millisSince(begin)));
+        }
+
+        private static long millisSince(long nanos) {
+            return (System.nanoTime() - nanos) / 1_000_000;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+-- What the entities gained between the baseline and the first migration: pooled id blocks, the
+-- technician photo table, the transactional outbox and the order version column.
+
+-- Ids are handed out in blocks of 50 (BaseEntity.ID_ALLOCATION_SIZE)
+alter sequence hibernate_sequence increment by 50;
+
+create table technician_image (
+    id            bigint not null,
+    image_data    bytea,
+    technician_id bigint not null,
+    primary key (id),
+    constraint uk_technician_image_technician unique (technician_id),
+    constraint fk_technician_image_technician foreign key (technician_id) references technician
+);
+
+create table outbox_event (
+    id            bigint not null,
+    aggregateId   bigint,
+    aggregateType varchar(255),
+    createdAt     timestamp,
+    eventType     varchar(255),
+    payload       varchar(255),
+    primary key (id)
+);
+
+alter table orders add column version bigint default 0;
@@ -0,0 +1,7 @@
+-- Photos stored on the technician row before technician_image existed move to that table; the
+-- old column goes once they are copied.
+
+insert into technician_image (id, technician_id, image_data)
+    select nextval('hibernate_sequence'), id, image_data from technician where image_data is not null;
+
+alter table technician drop column image_data;
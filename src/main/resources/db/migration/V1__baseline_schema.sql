@@ -0,0 +1,99 @@
+-- The schema as hibernate.hbm2ddl.auto=update left it before migrations, constraint names included.
+-- Databases that already have these tables are baselined at this version and only run the later
+-- scripts, so nothing may be added here: later changes go in their own versions.
+
+create sequence hibernate_sequence start with 1 increment by 1;
+
+create table customer (
+    id           bigint           not null,
+    emailAddress varchar(255),
+    firstname    varchar(255),
+    lastname     varchar(255),
+    password     varchar(255),
+    registerDate timestamp,
+    balance      double precision not null,
+    primary key (id)
+);
+
+create table main_services (
+    id   bigint not null,
+    name varchar(255),
+    primary key (id)
+);
+
+create table manager (
+    id           bigint not null,
+    emailAddress varchar(255),
+    firstname    varchar(255),
+    lastname     varchar(255),
+    password     varchar(255),
+    registerDate timestamp,
+    lastLogin    timestamp,
+    primary key (id)
+);
+
+create table orders (
+    id             bigint           not null,
+    Address        varchar(255),
+    comment        varchar(255),
+    dateAndTime    timestamp,
+    jobInfo        varchar(255),
+    orderStatus    varchar(255),
+    point          double precision not null,
+    price          double precision not null,
+    customer_id    bigint,
+    subServices_id bigint,
+    primary key (id)
+);
+
+create table sub_service (
+    id              bigint           not null,
+    baseWage        double precision not null,
+    description     varchar(255),
+    name            varchar(255),
+    mainServices_id bigint,
+    primary key (id)
+);
+
+create table suggestion (
+    id             bigint           not null,
+    Duration       varchar(255),
+    suggestedPrice double precision not null,
+    suggestedTime  time,
+    suggestionDate timestamp,
+    order_id       bigint,
+    technician_id  bigint,
+    primary key (id)
+);
+
+create table technician (
+    id           bigint           not null,
+    emailAddress varchar(255),
+    firstname    varchar(255),
+    lastname     varchar(255),
+    password     varchar(255),
+    registerDate timestamp,
+    balance      double precision not null,
+    image_data   bytea,
+    score        double precision not null,
+    status       varchar(255),
+    primary key (id)
+);
+
+create table Technician_SubServices (
+    Technician_id bigint not null,
+    SubService_id bigint not null
+);
+
+alter table customer add constraint UK_et6863g0otfpmben3h9hsnmsw unique (emailAddress);
+alter table main_services add constraint UK_bsx5tr755hamqe88y9norg1w2 unique (name);
+alter table manager add constraint UK_6hspubtbwph9b96qabwo3yrgw unique (emailAddress);
+alter table sub_service add constraint UK_5weva3k6a7v8htt4ji5tww389 unique (name);
+alter table technician add constraint UK_kdtbda6omsba6o3gkeocghk02 unique (emailAddress);
+alter table orders add constraint FK624gtjin3po807j3vix093tlf foreign key (customer_id) references customer;
+alter table orders add constraint FKtcdi5q0s41oml5yx3vw7677he foreign key (subServices_id) references sub_service;
+alter table sub_service add constraint FK60tf3pumcwxy9vpqsebl0wo0p foreign key (mainServices_id) references main_services;
+alter table suggestion add constraint FKqq1rh9wlvraoqid76mknaafna foreign key (order_id) references orders;
+alter table suggestion add constraint FK9nouggcfb565fr4fkw4rr2rgy foreign key (technician_id) references technician;
+alter table Technician_SubServices add constraint FKorrpjffagcuyfxiqc0qxu5w20 foreign key (SubService_id) references sub_service;
+alter table Technician_SubServices add constraint FK2djrptlki8qlcodqd2n4iodlt foreign key (Technician_id) references technician;
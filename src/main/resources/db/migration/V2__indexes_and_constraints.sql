@@ -0,0 +1,40 @@
+-- Secondary indexes for the order, suggestion and matching queries, a key for the technician /
+-- sub service links, and not-null constraints on the references the services always set.
+
+-- Order history: where customer_id = ? [and id < ?] order by id desc
+create index idx_orders_customer on orders (customer_id, id);
+-- Orders of a sub service in a status: where subServices_id = ? and orderStatus = ? [and id > ?] order by id
+create index idx_orders_sub_service_status on orders (subServices_id, orderStatus, id);
+
+-- Offers on an order, best price first; also serves the per-order count and min(price)
+create index idx_suggestion_order_price on suggestion (order_id, suggestedPrice);
+create index idx_suggestion_technician on suggestion (technician_id);
+
+create index idx_sub_service_main_services on sub_service (mainServices_id);
+
+-- Links were a bag without a key, so the same pair could be stored twice. Collapse duplicates
+-- before the primary key (technician -> sub services) and the reverse index (sub service ->
+-- technicians) go on.
+create table technician_sub_services_dedup as
+    select distinct Technician_id, SubService_id from Technician_SubServices;
+delete from Technician_SubServices;
+insert into Technician_SubServices (Technician_id, SubService_id)
+    select Technician_id, SubService_id from technician_sub_services_dedup;
+drop table technician_sub_services_dedup;
+
+alter table Technician_SubServices
+    add constraint pk_technician_sub_services primary key (Technician_id, SubService_id);
+create index idx_technician_sub_services_sub_service on Technician_SubServices (SubService_id, Technician_id);
+
+update orders set version = 0 where version is null;
+alter table orders alter column version set not null;
+alter table orders alter column customer_id set not null;
+alter table orders alter column subServices_id set not null;
+
+alter table suggestion alter column order_id set not null;
+alter table suggestion alter column technician_id set not null;
+
+alter table outbox_event alter column aggregateType set not null;
+alter table outbox_event alter column aggregateId set not null;
+alter table outbox_event alter column eventType set not null;
+alter table outbox_event alter column createdAt set not null;
@@ -0,0 +1,34 @@
+-- Append-only ledger behind the customer and technician balances. Amounts are whole minor units
+-- (1/100 of the unit the old double precision balances were kept in); the balance columns become
+-- bigint snapshots of the ledger sums. Every existing non-zero balance is carried over as an
+-- opening entry, so the ledger alone reproduces it.
+
+create table ledger_entry (
+    id          bigint       not null,
+    accountType varchar(255) not null,
+    accountId   bigint       not null,
+    amount      bigint       not null,
+    description varchar(255),
+    postedAt    timestamp    not null,
+    primary key (id)
+);
+
+-- Rebuilds group one account type by account; a single account's sum reads one range
+create index idx_ledger_entry_account on ledger_entry (accountType, accountId);
+
+insert into ledger_entry (id, accountType, accountId, amount, description, postedAt)
+    select nextval('hibernate_sequence'), 'CUSTOMER', id, round(balance * 100), 'opening balance', current_timestamp
+    from customer where balance <> 0;
+insert into ledger_entry (id, accountType, accountId, amount, description, postedAt)
+    select nextval('hibernate_sequence'), 'TECHNICIAN', id, round(balance * 100), 'opening balance', current_timestamp
+    from technician where balance <> 0;
+
+alter table customer add column balance_minor bigint default 0 not null;
+update customer set balance_minor = round(balance * 100);
+alter table customer drop column balance;
+alter table customer rename column balance_minor to balance;
+
+alter table technician add column balance_minor bigint default 0 not null;
+update technician set balance_minor = round(balance * 100);
+alter table technician drop column balance;
+alter table technician rename column balance_minor to balance;
@@ -0,0 +1,11 @@
+-- The technician an order was given to, and each technician's rating aggregate, kept up to date
+-- one rating at a time instead of by rescanning orders.
+
+alter table orders add column technician_id bigint;
+alter table orders add constraint fk_orders_technician foreign key (technician_id) references technician;
+-- A technician's orders; the rating rebuild reads them by technician id range
+create index idx_orders_technician on orders (technician_id, id);
+
+alter table technician add column ratingCount bigint default 0 not null;
+alter table technician add column ratingSum double precision default 0 not null;
+alter table technician add column recentScore double precision default 0 not null;
@@ -0,0 +1,7 @@
+-- The window the accepted technician has committed to: the suggested time on the order's date,
+-- for the suggested duration. Set when a suggestion is accepted.
+
+alter table orders add column scheduledStart timestamp;
+alter table orders add column scheduledEnd timestamp;
+-- A technician's bookings that haven't ended yet; the availability calendar is rebuilt from them
+create index idx_orders_technician_schedule on orders (technician_id, scheduledEnd);
@@ -0,0 +1,13 @@
+-- Outbox events are delivered in insert order. Ids come from pooled blocks per session factory, so
+-- a later event can hold a lower id; seq is drawn from its own sequence at insert time instead.
+-- Events still pending get negative numbers in id order, the order the relay used until now, so
+-- they go before anything written from here on.
+
+create sequence outbox_event_seq start with 1 increment by 1;
+
+alter table outbox_event add column seq bigint;
+update outbox_event e set seq = -(select count(*) from outbox_event o where o.id >= e.id);
+alter table outbox_event alter column seq set default nextval('outbox_event_seq');
+alter table outbox_event alter column seq set not null;
+
+create unique index idx_outbox_event_seq on outbox_event (seq);
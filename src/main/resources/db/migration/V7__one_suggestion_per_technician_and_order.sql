@@ -0,0 +1,9 @@
+-- A technician bids on an order at most once. Earlier duplicates are collapsed onto the first
+-- suggestion made before the key goes on.
+
+delete from suggestion s
+    where exists (select 1 from suggestion d
+                  where d.technician_id = s.technician_id and d.order_id = s.order_id and d.id < s.id);
+
+alter table suggestion
+    add constraint uk_suggestion_technician_order unique (technician_id, order_id);